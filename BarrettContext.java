@@ -0,0 +1,135 @@
+/**
+ * Barrett reduction modulo a fixed modulus that fits in an int.
+ *
+ * The constant mu = floor((2^64 - 1) / n) is computed once. Reducing a product x < 2^63 then
+ * takes the high half of x*mu as an estimate of x / n, one multiplication and at most two
+ * subtractions; there is no division. Unlike {@link MontgomeryContext} the values stay in their
+ * ordinary form and the modulus may be even, so there is nothing to convert in and out, which
+ * pays off for short exponents.
+ *
+ * Instances are immutable and can be shared between threads.
+ *
+ * @author cpp270
+ *
+ */
+public final class BarrettContext {
+  private final long modulus;
+  // floor((2^64 - 1) / n), below 2^63 for every n > 1
+  private final long mu;
+
+  /**
+   * Creates a context for the modulus <code>n</code>.
+   *
+   * @param n the modulus
+   * @throws IllegalArgumentException if <code>n</code> is less than 2
+   */
+  public BarrettContext(int n) {
+    if (n < 2) {
+      throw new IllegalArgumentException("modulus is not greater than 1");
+    }
+
+    this.modulus = n;
+    this.mu = Long.divideUnsigned(-1L, n);
+  }
+
+  /**
+   *
+   * @return the modulus n
+   */
+  public int getModulus() {
+    return (int) modulus;
+  }
+
+  /**
+   * Computes x mod n.
+   *
+   * The estimate q = floor(x*mu / 2^64) is at most two below floor(x / n), so x - q*n is below
+   * 3n and at most two subtractions finish the reduction.
+   *
+   * @param x a non negative value
+   * @return x mod n
+   */
+  public int reduce(long x) {
+    long q = Math.multiplyHigh(x, mu);
+    long r = x - q * modulus;
+
+    while (r >= modulus) {
+      r -= modulus;
+    }
+    return (int) r;
+  }
+
+  /**
+   * Computes a*b mod n.
+   *
+   * @param a value less than n
+   * @param b value less than n
+   * @return a*b mod n
+   */
+  public int multiply(int a, int b) {
+    return reduce((long) a * b);
+  }
+
+  /**
+   * Computes a^x mod n scanning the bits of the exponent left to right.
+   *
+   * @param a the base, non negative
+   * @param x the exponent, non negative
+   * @return a^x mod n
+   */
+  public int modPow(int a, int x) {
+    if (a < 0 || x < 0) {
+      throw new IllegalArgumentException("none negative arguments required");
+    }
+
+    int base = reduce(a);
+    int y = reduce(1);
+
+    for (int i = Integer.SIZE - 1 - Integer.numberOfLeadingZeros(x); i >= 0; i--) {
+      // squaring
+      y = multiply(y, y);
+
+      if (((x >>> i) & 0x1) == 1) {
+        // multiplying
+        y = multiply(y, base);
+      }
+    }
+
+    return y;
+  }
+
+  /**
+   * Computes a^x mod n scanning the exponent bits left to right.
+   *
+   * @param a the base, non negative
+   * @param x the exponent converted to binary
+   * @return a^x mod n
+   * @see RSAMath#FastExponentiation(int, int[], int)
+   */
+  public int modPow(int a, int[] x) {
+    if (a < 0) {
+      throw new IllegalArgumentException("none negative arguments required");
+    }
+
+    int base = reduce(a);
+    int y = reduce(1);
+
+    // leading zero bits would only square one
+    int top = x.length-1;
+    while (top >= 0 && x[top] == 0) {
+      top--;
+    }
+
+    for (int i = top; i >= 0; i--) {
+      // squaring
+      y = multiply(y, y);
+
+      if (x[i] == 1) {
+        // multiplying
+        y = multiply(y, base);
+      }
+    }
+
+    return y;
+  }
+}
@@ -0,0 +1,154 @@
+import java.util.Arrays;
+
+/**
+ * Computes many independent exponentiations a[i]^x mod n[i] with one shared exponent x at once.
+ *
+ * The odd moduli run in Montgomery form lane by lane: where the incubating Vector API is
+ * available (Java 16 or later, started with <code>--add-modules jdk.incubator.vector</code>)
+ * a whole vector of lanes is multiplied per instruction; everywhere else the same loop runs one
+ * lane at a time. Even moduli have no Montgomery form and are computed with
+ * {@link BarrettContext}. The results are the same either way.
+ *
+ * This class contains only static methods.
+ *
+ * @author cpp270
+ *
+ */
+public final class BatchExponentiation {
+  private static final ExponentiationKernel KERNEL = loadKernel();
+
+  /*
+   * Static class; disable constructor
+   */
+  private BatchExponentiation() {
+  }
+
+  /**
+   * Tells whether the batches run on the Vector API.
+   *
+   * @return true if the vector kernel is in use, false for the scalar fallback
+   */
+  public static boolean isVectorized() {
+    return KERNEL != ScalarExponentiationKernel.INSTANCE;
+  }
+
+  /**
+   * Computes results[i] = bases[i]^exponent mod moduli[i] for every i.
+   *
+   * @param bases the non negative bases
+   * @param exponent the shared exponent
+   * @param moduli the moduli, each greater than 1
+   * @param results receives the results; may be <code>bases</code>
+   * @throws IllegalArgumentException if the arrays differ in length, a base or the exponent is
+   * negative, or a modulus is less than 2
+   */
+  public static void modPow(int[] bases, int exponent, int[] moduli, int[] results) {
+    modPow(bases, exponent, moduli, results, KERNEL);
+  }
+
+  /**
+   * Computes results[i] = bases[i]^exponent mod modulus for every i, e.g. the public key
+   * operations of one issuer over many signatures.
+   *
+   * @param bases the non negative bases
+   * @param exponent the shared exponent
+   * @param modulus the shared modulus, greater than 1
+   * @param results receives the results; may be <code>bases</code>
+   * @throws IllegalArgumentException if the arrays differ in length, a base or the exponent is
+   * negative, or the modulus is less than 2
+   */
+  public static void modPow(int[] bases, int exponent, int modulus, int[] results) {
+    if (bases == null) {
+      throw new NullPointerException("the bases parameter must be non-null");
+    }
+    int[] moduli = new int[bases.length];
+    Arrays.fill(moduli, modulus);
+    modPow(bases, exponent, moduli, results, KERNEL);
+  }
+
+  /*
+   * The batch on the given kernel
+   */
+  static void modPow(int[] bases, int exponent, int[] moduli, int[] results,
+      ExponentiationKernel kernel) {
+    if (bases == null) {
+      throw new NullPointerException("the bases parameter must be non-null");
+    }
+    if (moduli == null) {
+      throw new NullPointerException("the moduli parameter must be non-null");
+    }
+    if (results == null) {
+      throw new NullPointerException("the results parameter must be non-null");
+    }
+    if (moduli.length != bases.length || results.length != bases.length) {
+      throw new IllegalArgumentException("arrays of equal length required");
+    }
+    if (exponent < 0) {
+      throw new IllegalArgumentException("none negative arguments required");
+    }
+
+    int length = bases.length;
+    long[] n = new long[length];
+    long[] nPrime = new long[length];
+    long[] base = new long[length];
+    long[] y = new long[length];
+
+    // Montgomery constants; runs of the same modulus share them
+    boolean even = false;
+    long one = 0;
+    long rSquared = 0;
+    long inverse = 0;
+    for (int i = 0; i < length; i++) {
+      int ni = moduli[i];
+      if (bases[i] < 0) {
+        throw new IllegalArgumentException("none negative arguments required");
+      }
+      if (ni < 2) {
+        throw new IllegalArgumentException("modulus is not greater than 1");
+      }
+
+      if (i == 0 || ni != moduli[i - 1]) {
+        one = (1L << 32) % ni;
+        rSquared = (one * one) % ni;
+        inverse = (-MontgomeryContext.inverseModWord(ni)) & 0xFFFFFFFFL;
+      }
+
+      n[i] = ni;
+      nPrime[i] = inverse;
+      base[i] = ScalarExponentiationKernel.multiply(bases[i] % ni, rSquared, ni, nPrime[i]);
+      y[i] = one;
+      even |= (ni & 0x1) == 0;
+    }
+
+    kernel.modPow(n, nPrime, base, y, exponent, 0, length);
+
+    // the lanes of even moduli went through the kernel for nothing
+    if (even) {
+      for (int i = 0; i < length; i++) {
+        if ((moduli[i] & 0x1) == 0) {
+          y[i] = new BarrettContext(moduli[i]).modPow(bases[i], exponent);
+        }
+      }
+    }
+
+    for (int i = 0; i < length; i++) {
+      results[i] = (int) y[i];
+    }
+  }
+
+  /*
+   * The vector kernel if the Vector API is there and the kernel was compiled, the scalar one
+   * otherwise
+   */
+  private static ExponentiationKernel loadKernel() {
+    if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+      try {
+        return (ExponentiationKernel) Class.forName("VectorExponentiationKernel")
+            .getDeclaredConstructor().newInstance();
+      } catch (ReflectiveOperationException | LinkageError e) {
+        // not compiled into this build, or built for a later Java
+      }
+    }
+    return ScalarExponentiationKernel.INSTANCE;
+  }
+}
@@ -0,0 +1,31 @@
+/**
+ * A convenience class used for returning the results from Extended Euclidean algorithm
+ * computed on arbitrary-precision natural numbers.
+ *  
+ * @author cpp270
+ * @see ExtendedEuclidResults
+ *
+ */
+public interface BigExtendedEuclidResults {
+  /**
+   * Returns gcd(a, b). If the result is 1 then a and b are relatively prime
+   * 
+   * @return the greatest common divisor
+   */
+  public BigNatural getGCD();
+  /**
+   * Normalized Bezout's s coefficients
+   * a*s + b*t = gcd(a,b)
+   * 
+   * @return the multiplicative inverse of a modulo b
+   */
+  public BigNatural getPositiveMultInverseOfAModB();
+  /**
+   * Normalized Bezout's t coefficients
+   * a*s + b*t = gcd(a,b)
+   * 
+   * @return the multiplicative inverse of b modulo a
+   */
+  public BigNatural getPositiveMultInverseOfBModA();
+
+}
@@ -0,0 +1,229 @@
+import java.util.Arrays;
+
+/**
+ * Montgomery arithmetic modulo a fixed odd multi-limb modulus.
+ * 
+ * With k limbs in the modulus, R = 2^(32k). Products are reduced with the coarsely integrated
+ * operand scanning (CIOS) method, which interleaves the multiplication and the reduction one
+ * limb at a time and needs only k + 2 limbs of scratch.
+ * 
+ * The context itself is immutable; every exponentiation allocates its own scratch, so a context
+ * can be shared between threads.
+ * 
+ * @author cpp270
+ *
+ */
+public final class BigMontgomeryContext {
+  private static final long MASK = BigNatural.LIMB_MASK;
+  
+  private final BigNatural n;
+  private final int[] modulus;
+  private final int size;
+  // -n^-1 mod 2^32
+  private final long nPrime;
+  // R mod n and R^2 mod n as limbs
+  private final int[] one;
+  private final int[] rSquared;
+  
+  /**
+   * Creates a context for the odd modulus <code>n</code>.
+   * 
+   * @param n the modulus
+   * @throws IllegalArgumentException if <code>n</code> is not odd
+   */
+  public BigMontgomeryContext(BigNatural n) {
+    if (!n.isOdd()) {
+      throw new IllegalArgumentException("odd modulus required");
+    }
+    
+    this.n = n;
+    this.size = n.limbCount();
+    this.modulus = new int[size];
+    n.copyLimbsTo(modulus);
+    this.nPrime = (-MontgomeryContext.inverseModWord(modulus[0])) & MASK;
+    
+    this.one = new int[size];
+    BigNatural.ONE.shiftLeft(Integer.SIZE * size).mod(n).copyLimbsTo(one);
+    this.rSquared = new int[size];
+    BigNatural.ONE.shiftLeft(2 * Integer.SIZE * size).mod(n).copyLimbsTo(rSquared);
+  }
+  
+  /**
+   * 
+   * @return the modulus n
+   */
+  public BigNatural getModulus() {
+    return n;
+  }
+  
+  /**
+   * Computes a^x mod n with sliding windows.
+   * 
+   * @param a the base
+   * @param x the exponent
+   * @return a^x mod n
+   * @see RSAMath#FastExponentiation(BigNatural, BigNatural, BigNatural)
+   */
+  public BigNatural modPow(BigNatural a, BigNatural x) {
+    return modPow(a, x, ExponentiationStrategy.SLIDING_WINDOW);
+  }
+  
+  /**
+   * Computes a^x mod n scanning the exponent with the given strategy.
+   * 
+   * @param a the base
+   * @param x the exponent
+   * @param strategy how to scan the exponent
+   * @return a^x mod n
+   */
+  public BigNatural modPow(BigNatural a, BigNatural x, ExponentiationStrategy strategy) {
+    if (strategy == ExponentiationStrategy.BINARY) {
+      return modPowBinary(a, x);
+    }
+    return modPow(a, WindowRecoding.recode(x, strategy));
+  }
+  
+  /**
+   * Computes a^x mod n for an already recoded exponent. The odd powers of the base are 
+   * precomputed, then every digit costs one multiplication.
+   * 
+   * The base is converted into Montgomery form once, the loop works entirely in Montgomery 
+   * form without division, and the result is converted back once.
+   * 
+   * @param a the base
+   * @param x the recoded exponent
+   * @return a^x mod n
+   */
+  public BigNatural modPow(BigNatural a, WindowRecoding x) {
+    int[] t = new int[size + 2];
+    int count = x.getDigitCount();
+    if (count == 0) {
+      return fromMontgomery(one, t);
+    }
+    
+    // odd powers a, a^3, a^5, ...
+    int[][] table = new int[x.getTableSize()][];
+    table[0] = toMontgomery(a, t);
+    if (table.length > 1) {
+      int[] square = new int[size];
+      multiply(table[0], table[0], square, t);
+      for (int i = 1; i < table.length; i++) {
+        table[i] = new int[size];
+        multiply(table[i-1], square, table[i], t);
+      }
+    }
+    
+    int[] y = table[x.getValue(0) >>> 1].clone();
+    for (int k = 1; k < count; k++) {
+      for (int i = x.getPosition(k-1) - x.getPosition(k); i > 0; i--) {
+        multiply(y, y, y, t);
+      }
+      multiply(y, table[x.getValue(k) >>> 1], y, t);
+    }
+    for (int i = x.getPosition(count-1); i > 0; i--) {
+      multiply(y, y, y, t);
+    }
+    
+    return fromMontgomery(y, t);
+  }
+  
+  /*
+   * Plain left-to-right square and multiply in Montgomery form
+   */
+  private BigNatural modPowBinary(BigNatural a, BigNatural x) {
+    int[] t = new int[size + 2];
+    int[] base = toMontgomery(a, t);
+    
+    int[] y = one.clone();
+    
+    for (int i = x.bitLength() - 1; i >= 0; i--) {
+      // squaring
+      multiply(y, y, y, t);
+      
+      if (x.testBit(i)) {
+        // multiplying
+        multiply(y, base, y, t);
+      }
+    }
+    
+    return fromMontgomery(y, t);
+  }
+  
+  /**
+   * Converts <code>a</code> into Montgomery form. <code>t</code> is scratch of size + 2 limbs.
+   */
+  int[] toMontgomery(BigNatural a, int[] t) {
+    int[] z = new int[size];
+    a.mod(n).copyLimbsTo(z);
+    multiply(z, rSquared, z, t);
+    return z;
+  }
+  
+  /**
+   * Converts <code>a</code> out of Montgomery form. <code>t</code> is scratch of size + 2 limbs.
+   */
+  BigNatural fromMontgomery(int[] a, int[] t) {
+    int[] unit = new int[size];
+    unit[0] = 1;
+    int[] z = new int[size];
+    multiply(a, unit, z, t);
+    return BigNatural.fromLimbs(z, size);
+  }
+  
+  /**
+   * 
+   * @return R mod n, i.e. one in Montgomery form; a new array
+   */
+  int[] one() {
+    return one.clone();
+  }
+  
+  /**
+   * 
+   * @return the number of limbs of the modulus
+   */
+  int size() {
+    return size;
+  }
+  
+  /**
+   * CIOS Montgomery product z = a*b*R^-1 mod n of two values in Montgomery form. z may alias a or b;
+   * t is scratch of size + 2 limbs.
+   */
+  void multiply(int[] a, int[] b, int[] z, int[] t) {
+    Arrays.fill(t, 0);
+    
+    for (int i = 0; i < size; i++) {
+      // t += a * b[i]
+      long bi = b[i] & MASK;
+      long c = 0;
+      for (int j = 0; j < size; j++) {
+        long s = (t[j] & MASK) + (a[j] & MASK) * bi + c;
+        t[j] = (int) s;
+        c = s >>> 32;
+      }
+      long s = (t[size] & MASK) + c;
+      t[size] = (int) s;
+      t[size + 1] = (int) (s >>> 32);
+      
+      // t = (t + m * n) / 2^32, where m makes the low limb vanish
+      long m = ((t[0] & MASK) * nPrime) & MASK;
+      s = (t[0] & MASK) + m * (modulus[0] & MASK);
+      c = s >>> 32;
+      for (int j = 1; j < size; j++) {
+        s = (t[j] & MASK) + m * (modulus[j] & MASK) + c;
+        t[j - 1] = (int) s;
+        c = s >>> 32;
+      }
+      s = (t[size] & MASK) + c;
+      t[size - 1] = (int) s;
+      t[size] = t[size + 1] + (int) (s >>> 32);
+    }
+    
+    // t < 2n, so at most one subtraction
+    if (t[size] != 0 || BigNatural.compare(t, size, modulus, size) >= 0) {
+      BigNatural.subtractTo(t, size, modulus, size, t);
+    }
+    System.arraycopy(t, 0, z, 0, size);
+  }
+}
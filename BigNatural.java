@@ -0,0 +1,834 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * An immutable arbitrary-precision natural number (non negative integer).
+ *
+ * The magnitude is stored as 32 bit limbs, least significant limb first, with no leading zero
+ * limbs; zero has no limbs at all. Intermediate products are computed in 64 bit longs.
+ *
+ * The static limb kernels and the {@link Reducer} are the mutable counterparts used by the
+ * exponentiation and primality loops in {@link RSAMath}, so those loops do not allocate.
+ *
+ * @author cpp270
+ *
+ */
+public final class BigNatural implements Comparable<BigNatural> {
+  // mask for reading a limb as an unsigned value
+  static final long LIMB_MASK = 0xFFFFFFFFL;
+
+  public static final BigNatural ZERO = new BigNatural(new int[0]);
+  public static final BigNatural ONE = valueOf(1);
+  public static final BigNatural TWO = valueOf(2);
+
+  // largest power of ten that fits in a limb; used for decimal conversion
+  private static final int DECIMAL_CHUNK = 1000000000;
+  private static final int DECIMAL_CHUNK_DIGITS = 9;
+
+  // limbs, least significant first, normalized
+  private final int[] mag;
+
+  /*
+   * Wraps the given limbs; the array is trimmed but not copied.
+   */
+  private BigNatural(int[] mag) {
+    this.mag = trim(mag, mag.length);
+  }
+
+  /**
+   * Returns a natural number equal to <code>n</code>.
+   *
+   * @param n a non negative value
+   * @return the natural number
+   * @throws IllegalArgumentException if <code>n</code> is negative
+   */
+  public static BigNatural valueOf(long n) {
+    if (n < 0) {
+      throw new IllegalArgumentException("none negative argument required");
+    }
+    return new BigNatural(new int[] { (int) n, (int) (n >>> 32) });
+  }
+
+  /**
+   * Returns a natural number from its decimal string representation.
+   *
+   * @param s string of decimal digits
+   * @return the natural number
+   * @throws IllegalArgumentException if <code>s</code> is empty or contains a non digit character
+   */
+  public static BigNatural valueOf(String s) {
+    if (s == null || s.isEmpty()) {
+      throw new IllegalArgumentException("none empty or null argument required");
+    }
+
+    int[] z = new int[s.length() / DECIMAL_CHUNK_DIGITS + 2];
+    int zlen = 0;
+
+    int first = s.length() % DECIMAL_CHUNK_DIGITS;
+    if (first == 0) {
+      first = DECIMAL_CHUNK_DIGITS;
+    }
+
+    for (int i = 0; i < s.length(); i += (i == 0 ? first : DECIMAL_CHUNK_DIGITS)) {
+      int end = i == 0 ? first : i + DECIMAL_CHUNK_DIGITS;
+      int chunk = 0;
+      int scale = 1;
+      for (int j = i; j < end; j++) {
+        char c = s.charAt(j);
+        if (c < '0' || c > '9') {
+          throw new IllegalArgumentException("invalid decimal digit");
+        }
+        chunk = chunk * 10 + (c - '0');
+        scale *= 10;
+      }
+      zlen = multiplyAddSmall(z, zlen, scale, chunk);
+    }
+
+    return new BigNatural(z);
+  }
+
+  /**
+   * Returns a natural number equal to the unsigned value of the bit sequence <code>b</code>.
+   *
+   * @param b the bit sequence, least significant bit first
+   * @return the natural number
+   */
+  public static BigNatural valueOf(Binary b) {
+    long[] words = b.toLongArray();
+    int[] z = new int[words.length * 2];
+
+    for (int i = 0; i < words.length; i++) {
+      z[2*i] = (int) words[i];
+      z[2*i + 1] = (int) (words[i] >>> 32);
+    }
+
+    return new BigNatural(z);
+  }
+
+  /**
+   * Returns the bit sequence of this number, {@link #bitLength()} bits long.
+   *
+   * @return the binary representation of this number
+   */
+  public Binary toBinary() {
+    long[] words = new long[(mag.length + 1) >>> 1];
+    for (int i = 0; i < mag.length; i++) {
+      words[i >>> 1] |= (mag[i] & LIMB_MASK) << ((i & 0x1) * Integer.SIZE);
+    }
+    return Binary.valueOf(words, bitLength());
+  }
+
+  /**
+   * Returns a uniformly distributed random natural number of at most <code>bitLength</code> bits.
+   *
+   * @param bitLength the maximum bit length
+   * @param r source of randomness
+   * @return random natural number in 0 <= x < 2^bitLength
+   */
+  public static BigNatural random(int bitLength, Random r) {
+    if (bitLength < 0) {
+      throw new IllegalArgumentException("none negative arguments required");
+    }
+
+    int[] z = new int[(bitLength + 31) >>> 5];
+    for (int i = 0; i < z.length; i++) {
+      z[i] = r.nextInt();
+    }
+
+    int excess = z.length * Integer.SIZE - bitLength;
+    if (excess > 0) {
+      z[z.length - 1] &= -1 >>> excess;
+    }
+
+    return new BigNatural(z);
+  }
+
+  /**
+   * Returns this + v.
+   *
+   * @param v value to be added
+   * @return the sum
+   */
+  public BigNatural add(BigNatural v) {
+    int[] x = mag.length >= v.mag.length ? mag : v.mag;
+    int[] y = mag.length >= v.mag.length ? v.mag : mag;
+
+    int[] z = new int[x.length + 1];
+    z[x.length] = addTo(x, x.length, y, y.length, z);
+
+    return new BigNatural(z);
+  }
+
+  /**
+   * Returns this - v.
+   *
+   * @param v value to be subtracted
+   * @return the difference
+   * @throws ArithmeticException if <code>v</code> is greater than this
+   */
+  public BigNatural subtract(BigNatural v) {
+    if (compareTo(v) < 0) {
+      throw new ArithmeticException("difference is negative");
+    }
+
+    int[] z = new int[mag.length];
+    subtractTo(mag, mag.length, v.mag, v.mag.length, z);
+
+    return new BigNatural(z);
+  }
+
+  /**
+   * Returns this * v.
+   *
+   * @param v value to multiply by
+   * @return the product
+   */
+  public BigNatural multiply(BigNatural v) {
+    if (isZero() || v.isZero()) {
+      return ZERO;
+    }
+
+    int[] z = new int[mag.length + v.mag.length];
+    multiplyTo(mag, mag.length, v.mag, v.mag.length, z);
+
+    return new BigNatural(z);
+  }
+
+  /**
+   * Returns the quotient and remainder of this divided by <code>v</code>.
+   *
+   * @param v the divisor
+   * @return an array holding the quotient followed by the remainder
+   * @throws ArithmeticException if <code>v</code> is zero
+   */
+  public BigNatural[] divideAndRemainder(BigNatural v) {
+    if (v.isZero()) {
+      throw new ArithmeticException("invalid divisor");
+    }
+
+    if (compareTo(v) < 0) {
+      return new BigNatural[] { ZERO, this };
+    }
+
+    int[] q = new int[mag.length - v.mag.length + 1];
+    int[] r = new int[v.mag.length];
+    divide(mag, mag.length, v.mag, v.mag.length, q, r);
+
+    return new BigNatural[] { new BigNatural(q), new BigNatural(r) };
+  }
+
+  /**
+   * Returns this / v rounded down.
+   *
+   * @param v the divisor
+   * @return the quotient
+   */
+  public BigNatural divide(BigNatural v) {
+    return divideAndRemainder(v)[0];
+  }
+
+  /**
+   * Returns this mod v.
+   *
+   * @param v the divisor
+   * @return the remainder
+   */
+  public BigNatural mod(BigNatural v) {
+    if (v.isZero()) {
+      throw new ArithmeticException("invalid divisor");
+    }
+
+    if (compareTo(v) < 0) {
+      return this;
+    }
+
+    int[] r = new int[v.mag.length];
+    divide(mag, mag.length, v.mag, v.mag.length, null, r);
+
+    return new BigNatural(r);
+  }
+
+  /**
+   * Returns this shifted left by <code>n</code> bits.
+   *
+   * @param n number of bits
+   * @return this * 2^n
+   */
+  public BigNatural shiftLeft(int n) {
+    if (n < 0) {
+      throw new IllegalArgumentException("none negative arguments required");
+    }
+    if (isZero() || n == 0) {
+      return this;
+    }
+
+    int limbs = n >>> 5;
+    int bits = n & 31;
+    int[] z = new int[mag.length + limbs + 1];
+
+    for (int i = 0; i < mag.length; i++) {
+      long w = (mag[i] & LIMB_MASK) << bits;
+      z[i + limbs] |= (int) w;
+      z[i + limbs + 1] |= (int) (w >>> 32);
+    }
+
+    return new BigNatural(z);
+  }
+
+  /**
+   * Returns this shifted right by <code>n</code> bits.
+   *
+   * @param n number of bits
+   * @return floor(this / 2^n)
+   */
+  public BigNatural shiftRight(int n) {
+    if (n < 0) {
+      throw new IllegalArgumentException("none negative arguments required");
+    }
+
+    int limbs = n >>> 5;
+    if (limbs >= mag.length) {
+      return ZERO;
+    }
+
+    int[] z = new int[mag.length - limbs];
+    shiftRightTo(mag, limbs, mag.length - limbs, n & 31, z);
+
+    return new BigNatural(z);
+  }
+
+  /**
+   * Returns the number of bits in the minimal binary representation of this number.
+   *
+   * @return bit length, zero for zero
+   */
+  public int bitLength() {
+    return bitLength(mag, mag.length);
+  }
+
+  /**
+   * Returns true if the bit at position <code>n</code> is set, where zero is the least significant bit.
+   *
+   * @param n bit position
+   * @return true if the bit is one
+   */
+  public boolean testBit(int n) {
+    if (n < 0) {
+      throw new IllegalArgumentException("none negative arguments required");
+    }
+    int limb = n >>> 5;
+    return limb < mag.length && ((mag[limb] >>> n) & 0x1) == 1;
+  }
+
+  /**
+   *
+   * @return true if this number is zero
+   */
+  public boolean isZero() {
+    return mag.length == 0;
+  }
+
+  /**
+   *
+   * @return true if this number is odd
+   */
+  public boolean isOdd() {
+    return mag.length > 0 && (mag[0] & 0x1) == 1;
+  }
+
+  /**
+   * Returns this mod d for a single limb divisor without allocating.
+   *
+   * @param d the divisor, read as an unsigned value
+   * @return the remainder, read as an unsigned value
+   * @throws ArithmeticException if <code>d</code> is zero
+   */
+  public int mod(int d) {
+    if (d == 0) {
+      throw new ArithmeticException("invalid divisor");
+    }
+    return divideSmall(mag, mag.length, d, null);
+  }
+
+  /**
+   * Returns the low 32 bits of this number.
+   *
+   * @return the low 32 bits as an int
+   */
+  public int intValue() {
+    return mag.length == 0 ? 0 : mag[0];
+  }
+
+  /**
+   * Returns the low 64 bits of this number.
+   *
+   * @return the low 64 bits as a long
+   */
+  public long longValue() {
+    long lo = mag.length > 0 ? mag[0] & LIMB_MASK : 0;
+    long hi = mag.length > 1 ? mag[1] & LIMB_MASK : 0;
+    return (hi << 32) | lo;
+  }
+
+  /**
+   * Returns the number of 32 bit limbs in this number.
+   *
+   * @return limb count
+   */
+  public int limbCount() {
+    return mag.length;
+  }
+
+  /**
+   * Copies the limbs of this number, least significant first, into <code>dst</code> and zero
+   * fills the remainder of <code>dst</code>.
+   *
+   * @param dst destination of at least {@link #limbCount()} limbs
+   */
+  public void copyLimbsTo(int[] dst) {
+    System.arraycopy(mag, 0, dst, 0, mag.length);
+    Arrays.fill(dst, mag.length, dst.length, 0);
+  }
+
+  /*
+   * The limbs of this number; must not be modified
+   */
+  int[] limbs() {
+    return mag;
+  }
+
+  /**
+   * Returns a natural number from limbs, least significant first. The array is copied.
+   *
+   * @param limbs the limbs
+   * @param len number of limbs to use
+   * @return the natural number
+   */
+  public static BigNatural fromLimbs(int[] limbs, int len) {
+    return new BigNatural(Arrays.copyOf(limbs, len));
+  }
+
+  /**
+   * Compares the values of two natural numbers.
+   *
+   * @param v the number to be compared
+   * @return a negative integer, zero, or a positive integer as this number is less than,
+   * equal to, or greater than <code>v</code>
+   */
+  @Override
+  public int compareTo(BigNatural v) {
+    return compare(mag, mag.length, v.mag, v.mag.length);
+  }
+
+  /**
+   * Indicates whether some object is a natural number with the same value.
+   *
+   * @param o the reference object with which to compare
+   * @return true if this object is the same as the argument; false otherwise
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    }
+    if (!(o instanceof BigNatural)) {
+      return false;
+    }
+    return Arrays.equals(mag, ((BigNatural) o).mag);
+  }
+
+  /**
+   * Computes and returns the hash code value for this natural number.
+   *
+   * @return a hash code value for this natural number
+   */
+  @Override
+  public int hashCode() {
+    int result = 17;
+    result = 31 * result + Arrays.hashCode(mag);
+    return result;
+  }
+
+  /**
+   * Returns the decimal representation of this number.
+   *
+   * @return string of decimal digits
+   */
+  @Override
+  public String toString() {
+    if (isZero()) {
+      return "0";
+    }
+
+    int[] x = Arrays.copyOf(mag, mag.length);
+    int xlen = x.length;
+    int[] chunks = new int[xlen * 10 / DECIMAL_CHUNK_DIGITS + 2];
+    int count = 0;
+
+    while (xlen > 0) {
+      chunks[count++] = divideSmall(x, xlen, DECIMAL_CHUNK, x);
+      xlen = normalizedLength(x, xlen);
+    }
+
+    StringBuilder b = new StringBuilder(count * DECIMAL_CHUNK_DIGITS);
+    b.append(chunks[count - 1]);
+    for (int i = count - 2; i >= 0; i--) {
+      String c = Integer.toString(chunks[i]);
+      for (int j = c.length(); j < DECIMAL_CHUNK_DIGITS; j++) {
+        b.append('0');
+      }
+      b.append(c);
+    }
+
+    return b.toString();
+  }
+
+  /*
+   * Limb kernels. All arrays are little endian; lengths are passed explicitly so callers
+   * can reuse oversized scratch arrays.
+   */
+
+  /*
+   * Strips leading zero limbs
+   */
+  private static int[] trim(int[] x, int len) {
+    int n = normalizedLength(x, len);
+    return n == x.length ? x : Arrays.copyOf(x, n);
+  }
+
+  /*
+   * Length of x without leading zero limbs
+   */
+  static int normalizedLength(int[] x, int len) {
+    while (len > 0 && x[len - 1] == 0) {
+      len--;
+    }
+    return len;
+  }
+
+  /*
+   * Bit length of the first len limbs of x
+   */
+  static int bitLength(int[] x, int len) {
+    len = normalizedLength(x, len);
+    if (len == 0) {
+      return 0;
+    }
+    return (len - 1) * Integer.SIZE + Integer.SIZE - Integer.numberOfLeadingZeros(x[len - 1]);
+  }
+
+  /*
+   * Compares two limb sequences by value
+   */
+  static int compare(int[] x, int xlen, int[] y, int ylen) {
+    xlen = normalizedLength(x, xlen);
+    ylen = normalizedLength(y, ylen);
+    if (xlen != ylen) {
+      return xlen < ylen ? -1 : 1;
+    }
+    for (int i = xlen - 1; i >= 0; i--) {
+      if (x[i] != y[i]) {
+        return Integer.compareUnsigned(x[i], y[i]);
+      }
+    }
+    return 0;
+  }
+
+  /*
+   * z[0..xlen) = x + y where xlen >= ylen; returns the carry out. z may alias x.
+   */
+  static int addTo(int[] x, int xlen, int[] y, int ylen, int[] z) {
+    long carry = 0;
+    int i = 0;
+    for (; i < ylen; i++) {
+      long t = (x[i] & LIMB_MASK) + (y[i] & LIMB_MASK) + carry;
+      z[i] = (int) t;
+      carry = t >>> 32;
+    }
+    for (; i < xlen; i++) {
+      long t = (x[i] & LIMB_MASK) + carry;
+      z[i] = (int) t;
+      carry = t >>> 32;
+    }
+    return (int) carry;
+  }
+
+  /*
+   * z[0..xlen) = x - y where xlen >= ylen; returns the borrow out. z may alias x.
+   */
+  static int subtractTo(int[] x, int xlen, int[] y, int ylen, int[] z) {
+    long borrow = 0;
+    int i = 0;
+    for (; i < ylen; i++) {
+      long t = (x[i] & LIMB_MASK) - (y[i] & LIMB_MASK) - borrow;
+      z[i] = (int) t;
+      borrow = (t >> 32) & 0x1;
+    }
+    for (; i < xlen; i++) {
+      long t = (x[i] & LIMB_MASK) - borrow;
+      z[i] = (int) t;
+      borrow = (t >> 32) & 0x1;
+    }
+    return (int) borrow;
+  }
+
+  /*
+   * z[0..xlen+ylen) = x * y. z must not alias x or y.
+   */
+  static void multiplyTo(int[] x, int xlen, int[] y, int ylen, int[] z) {
+    if (xlen == 0 || ylen == 0) {
+      Arrays.fill(z, 0, xlen + ylen, 0);
+      return;
+    }
+
+    long x0 = x[0] & LIMB_MASK;
+    long carry = 0;
+    for (int j = 0; j < ylen; j++) {
+      long p = x0 * (y[j] & LIMB_MASK) + carry;
+      z[j] = (int) p;
+      carry = p >>> 32;
+    }
+    z[ylen] = (int) carry;
+
+    for (int i = 1; i < xlen; i++) {
+      long xi = x[i] & LIMB_MASK;
+      carry = 0;
+      for (int j = 0; j < ylen; j++) {
+        long p = xi * (y[j] & LIMB_MASK) + (z[i + j] & LIMB_MASK) + carry;
+        z[i + j] = (int) p;
+        carry = p >>> 32;
+      }
+      z[i + ylen] = (int) carry;
+    }
+  }
+
+  /*
+   * z[0..len) = x[from..from+len) >> bits, where bits < 32. z may alias x when from is 0.
+   */
+  static void shiftRightTo(int[] x, int from, int len, int bits, int[] z) {
+    if (bits == 0) {
+      System.arraycopy(x, from, z, 0, len);
+      return;
+    }
+    for (int i = 0; i < len - 1; i++) {
+      z[i] = (x[from + i] >>> bits) | (x[from + i + 1] << (32 - bits));
+    }
+    z[len - 1] = x[from + len - 1] >>> bits;
+  }
+
+  /*
+   * q[0..xlen) = x / d for a single limb divisor; returns the remainder. q may alias x.
+   */
+  static int divideSmall(int[] x, int xlen, int d, int[] q) {
+    long dl = d & LIMB_MASK;
+    long r = 0;
+    for (int i = xlen - 1; i >= 0; i--) {
+      long num = (r << 32) | (x[i] & LIMB_MASK);
+      long qi = Long.divideUnsigned(num, dl);
+      r = num - qi * dl;
+      if (q != null) {
+        q[i] = (int) qi;
+      }
+    }
+    return (int) r;
+  }
+
+  /*
+   * x[0..len) = x * m + a for small m and a; returns the new length. x must have room for one
+   * extra limb.
+   */
+  private static int multiplyAddSmall(int[] x, int len, int m, int a) {
+    long carry = a & LIMB_MASK;
+    long ml = m & LIMB_MASK;
+    for (int i = 0; i < len; i++) {
+      long p = (x[i] & LIMB_MASK) * ml + carry;
+      x[i] = (int) p;
+      carry = p >>> 32;
+    }
+    if (carry != 0) {
+      x[len++] = (int) carry;
+    }
+    return len;
+  }
+
+  /*
+   * Schoolbook long division (Knuth, TAOCP vol. 2, algorithm D). Computes the quotient into q
+   * (when not null, at least ulen - vlen + 1 limbs) and the remainder into r (vlen limbs).
+   * Requires u >= v > 0.
+   */
+  private static void divide(int[] u, int ulen, int[] v, int vlen, int[] q, int[] r) {
+    ulen = normalizedLength(u, ulen);
+    vlen = normalizedLength(v, vlen);
+
+    if (vlen == 1) {
+      int rem = divideSmall(u, ulen, v[0], q);
+      Arrays.fill(r, 0, vlen, 0);
+      r[0] = rem;
+      return;
+    }
+
+    int s = Integer.numberOfLeadingZeros(v[vlen - 1]);
+    int[] vn = new int[vlen];
+    shiftLeftTo(v, vlen, s, vn);
+    int[] un = new int[ulen + 1];
+    un[ulen] = shiftLeftTo(u, ulen, s, un);
+
+    divideNormalized(un, ulen, vn, vlen, q);
+    shiftRightTo(un, 0, vlen, s, r);
+  }
+
+  /*
+   * z[0..len) = x << bits, where bits < 32; returns the bits shifted out of the top limb.
+   * z may alias x.
+   */
+  static int shiftLeftTo(int[] x, int len, int bits, int[] z) {
+    if (bits == 0) {
+      System.arraycopy(x, 0, z, 0, len);
+      return 0;
+    }
+    int out = x[len - 1] >>> (32 - bits);
+    for (int i = len - 1; i > 0; i--) {
+      z[i] = (x[i] << bits) | (x[i - 1] >>> (32 - bits));
+    }
+    z[0] = x[0] << bits;
+    return out;
+  }
+
+  /*
+   * Core of algorithm D. un holds ulen + 1 limbs of the shifted dividend and is replaced by the
+   * shifted remainder in its low vlen limbs; vn is the shifted divisor with its top bit set.
+   */
+  static void divideNormalized(int[] un, int ulen, int[] vn, int vlen, int[] q) {
+    long vtop = vn[vlen - 1] & LIMB_MASK;
+    long vnext = vn[vlen - 2] & LIMB_MASK;
+
+    for (int j = ulen - vlen; j >= 0; j--) {
+      // estimate the quotient limb from the top two limbs of the remainder
+      long num = ((un[j + vlen] & LIMB_MASK) << 32) | (un[j + vlen - 1] & LIMB_MASK);
+      long qhat = Long.divideUnsigned(num, vtop);
+      long rhat = num - qhat * vtop;
+
+      while (qhat > LIMB_MASK
+          || Long.compareUnsigned(qhat * vnext, (rhat << 32) | (un[j + vlen - 2] & LIMB_MASK)) > 0) {
+        qhat--;
+        rhat += vtop;
+        if (rhat > LIMB_MASK) {
+          break;
+        }
+      }
+
+      // multiply and subtract
+      long k = 0;
+      long t;
+      for (int i = 0; i < vlen; i++) {
+        long p = qhat * (vn[i] & LIMB_MASK);
+        t = (un[i + j] & LIMB_MASK) - k - (p & LIMB_MASK);
+        un[i + j] = (int) t;
+        k = (p >>> 32) - (t >> 32);
+      }
+      t = (un[j + vlen] & LIMB_MASK) - k;
+      un[j + vlen] = (int) t;
+
+      if (t < 0) {
+        // the estimate was one too large; add the divisor back
+        qhat--;
+        long carry = 0;
+        for (int i = 0; i < vlen; i++) {
+          long s = (un[i + j] & LIMB_MASK) + (vn[i] & LIMB_MASK) + carry;
+          un[i + j] = (int) s;
+          carry = s >>> 32;
+        }
+        un[j + vlen] += (int) carry;
+      }
+
+      if (q != null) {
+        q[j] = (int) qhat;
+      }
+    }
+  }
+
+  /**
+   * Reusable reducer modulo a fixed natural number. It holds the normalized divisor and the
+   * scratch space for one reduction, so repeated multiply-and-reduce steps do not allocate.
+   *
+   * Instances are not thread safe.
+   *
+   * @author cpp270
+   *
+   */
+  static final class Reducer {
+    private final int[] modulus;
+    private final int size;
+    private final int shift;
+    private final int[] normalized;
+    private final int[] product;
+    private final int[] shifted;
+
+    /**
+     * Creates a reducer for the modulus <code>n</code>.
+     *
+     * @param n the modulus
+     */
+    Reducer(BigNatural n) {
+      if (n.isZero()) {
+        throw new ArithmeticException("invalid divisor");
+      }
+
+      this.size = n.mag.length;
+      this.modulus = n.mag;
+      this.shift = Integer.numberOfLeadingZeros(n.mag[size - 1]);
+      this.normalized = new int[size];
+      shiftLeftTo(n.mag, size, shift, normalized);
+      this.product = new int[2 * size];
+      this.shifted = new int[2 * size + 1];
+    }
+
+    /**
+     *
+     * @return the number of limbs of the modulus and of every reduced value
+     */
+    int size() {
+      return size;
+    }
+
+    /**
+     *
+     * @return the limbs of the modulus; must not be modified
+     */
+    int[] modulus() {
+      return modulus;
+    }
+
+    /**
+     * z = x * y mod n, where x and y are reduced values of {@link #size()} limbs. z may alias
+     * x or y.
+     */
+    void multiply(int[] x, int[] y, int[] z) {
+      multiplyTo(x, size, y, size, product);
+      reduce(product, 2 * size, z);
+    }
+
+    /**
+     * z = x[0..xlen) mod n, written as {@link #size()} limbs. x is not modified.
+     */
+    void reduce(int[] x, int xlen, int[] z) {
+      xlen = normalizedLength(x, xlen);
+
+      if (compare(x, xlen, modulus, size) < 0) {
+        System.arraycopy(x, 0, z, 0, xlen);
+        Arrays.fill(z, xlen, size, 0);
+        return;
+      }
+
+      if (size == 1) {
+        z[0] = divideSmall(x, xlen, modulus[0], null);
+        return;
+      }
+
+      int[] un = xlen + 1 <= shifted.length ? shifted : new int[xlen + 1];
+      un[xlen] = shiftLeftTo(x, xlen, shift, un);
+      divideNormalized(un, xlen, normalized, size, null);
+      shiftRightTo(un, 0, size, shift, z);
+    }
+  }
+}
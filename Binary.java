@@ -3,12 +3,20 @@ import java.util.Arrays;
 /**
  * Utility class used for representing and creating a bit sequence.
  * 
+ * The bits are packed into 64 bit words, least significant bit first, so a sequence of
+ * <code>length</code> bits occupies <code>(length + 63) / 64</code> longs. Bits past 
+ * <code>length</code> in the last word are always zero.
+ * 
  * @author cpp270
  *
  */
-public class Binary {
-  private int[] bitArray;
+public class Binary implements Comparable<Binary> {
+  private long[] words;
+  private int length;
   public static final int BYTESIZE = 8;
+  
+  // number of bits in one storage word
+  private static final int WORDSIZE = Long.SIZE;
 
   /**
    * Creates a binary object that represents the integer <code>n</code>
@@ -16,7 +24,7 @@ public class Binary {
    * @param n the number to be converted to bit value
    */
   public Binary(int n) {
-    this.bitArray = Binary.toBitArray(n);
+    this(n, Integer.SIZE);
   }
   
   /**
@@ -26,14 +34,21 @@ public class Binary {
    * @param n the number to be converted to bit value
    */
   public Binary(int n, int Size) {
-    this.bitArray = Binary.toBitArray(n, Size);
+    checkIntArguments(n, Size);
+    
+    this.length = Size;
+    this.words = new long[wordCount(Size)];
+    if (Size > 0) {
+      this.words[0] = (n & 0xFFFFFFFFL) & lastWordMask(Math.min(Size, WORDSIZE));
+    }
   }
   /**
    * Creates a copy of the binary <code>b</code>
    * @param b a binary object
    */
   public Binary(Binary b) {
-    this.bitArray = b.toIntArray();
+    this.length = b.length;
+    this.words = Arrays.copyOf(b.words, b.words.length);
   }
 
   /**
@@ -41,7 +56,12 @@ public class Binary {
    * @param bitArray bit array
    */
   public Binary(int[] bitArray) {
-    this.bitArray = Arrays.copyOf(bitArray, bitArray.length);
+    this.length = bitArray.length;
+    this.words = new long[wordCount(length)];
+    
+    for (int i = 0; i < bitArray.length; i++) {
+      words[i >>> 6] |= (long) (bitArray[i] & 0x1) << i;
+    }
   }
 
   /**
@@ -52,23 +72,77 @@ public class Binary {
    * @param Size maximum length of the bit sequence
    */
   public Binary(String s, int Size) {
-    this.bitArray = Binary.toBitArray(s, Size);
+    checkStringArguments(s, Size);
+    
+    this.length = Size;
+    this.words = new long[wordCount(Size)];
+    
+    // the last letter goes into the first byte, same as toBitArray(String, int)
+    byte[] strByte = s.getBytes();
+    int x = 0;
+    for (int j = strByte.length - 1; j >= 0; j--, x++) {
+      int bit = x * BYTESIZE;
+      words[bit >>> 6] |= (strByte[j] & 0xFFL) << bit;
+    }
+  }
+  
+  /**
+   * Creates a binary object of length <code>Size</code> from packed 64 bit words, least 
+   * significant word first. Bits past <code>Size</code> are ignored; missing words read as zero.
+   * 
+   * @param words the packed bits
+   * @param Size the length of the bit sequence
+   * @return a new binary object
+   */
+  public static Binary valueOf(long[] words, int Size) {
+    if (Size < 0) {
+      throw new IllegalArgumentException("none negative arguments required");
+    }
+    
+    long[] w = Arrays.copyOf(words, wordCount(Size));
+    if (Size > 0) {
+      w[w.length - 1] &= lastWordMask(Size - (w.length - 1) * WORDSIZE);
+    }
+    return new Binary(w, Size);
+  }
+  
+  /*
+   * Wraps already packed words; the array is not copied.
+   */
+  private Binary(long[] words, int length) {
+    this.words = words;
+    this.length = length;
   }
   
   /**
    * Computes the hash value of this binary object.
    * 
+   * Works on whole words: the XOR of all words holds the XOR of every bit position modulo 64,
+   * which is then folded down to {@link #BYTESIZE} bits. The result is the same as 
+   * {@link #hash(int[])} of this bit sequence.
+   * 
    * @return the hash value of this object
    * @see #hash(int[])
    */
   public Binary hash() {
-    return new Binary(Binary.hash(bitArray));
+    long w = 0;
+    for (long word : words) {
+      w ^= word;
+    }
+    
+    w ^= w >>> 32;
+    w ^= w >>> 16;
+    w ^= w >>> 8;
+    
+    return new Binary(new long[] { w & 0xFFL }, BYTESIZE);
   }
   
   /**
    * Partitions the bit array <code>v</code> into one {@link #BYTESIZE} long chunks and
    * computes their bitwise exclusive OR
    * 
+   * Use a {@link BinaryHasher} to hash long messages without building the bit array.
+   * 
    * @param v value to be hashed
    * @return hash value of <code>v</code> as a bit array of one {@link #BYTESIZE} long
    */
@@ -76,11 +150,9 @@ public class Binary {
     // return value initialized by JVM to 0s
     int[] h = new int[BYTESIZE];
     
-    int j;
+    // BYTESIZE is a power of two, so i mod BYTESIZE is a mask
     for(int i = 0; i < v.length; i++) {
-      //j = i % BYTESIZE;
-      j = RSAMath.mod(i, BYTESIZE);
-      h[j] = v[i] ^ h[j];
+      h[i & (BYTESIZE - 1)] ^= v[i];
     }
     
     return h;
@@ -91,7 +163,11 @@ public class Binary {
    * @return integer representation of this binary
    */
   public int toInt() {
-    return Binary.toInt(this.bitArray);
+    if (length > Integer.SIZE) {
+      throw new IllegalArgumentException("value too big for integer type");
+    }
+    
+    return length == 0 ? 0 : (int) words[0];
   }
 
   /**
@@ -99,7 +175,21 @@ public class Binary {
    * @return bit sequence length
    */
   public int length() {
-    return this.bitArray.length;
+    return this.length;
+  }
+  
+  /**
+   * Returns the bit at position <code>index</code>, where index zero is the least significant bit.
+   * 
+   * @param index the bit position
+   * @return 0 or 1
+   * @throws IndexOutOfBoundsException if <code>index</code> is not in 0 <= index < length
+   */
+  public int getBit(int index) {
+    if (index < 0 || index >= length) {
+      throw new IndexOutOfBoundsException("bit index out of range");
+    }
+    return (int) (words[index >>> 6] >>> index) & 0x1;
   }
 
   /**
@@ -112,7 +202,7 @@ public class Binary {
    */
   @Override 
   public String toString() {
-    StringBuilder b = new StringBuilder();
+    StringBuilder b = new StringBuilder(length);
     Iterator it = createReverseIterator();
     
     while(it.hasNext()) {
@@ -122,6 +212,59 @@ public class Binary {
     return b.toString();
   }
   
+  /**
+   * Indicates whether some object is equal to this binary object. Two binaries are equal when
+   * they have the same length and the same bits.
+   * 
+   * @param o the reference object with which to compare 
+   * @return true if this object is the same as the argument; false otherwise 
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    }
+    if (!(o instanceof Binary)) {
+      return false;
+    }
+    Binary b = (Binary) o;
+    return b.length == length && Arrays.equals(b.words, words);
+  }
+  
+  /**
+   * Computes and returns the hash code value for this binary object.
+   * 
+   * @return a hash code value for this binary object
+   */
+  @Override
+  public int hashCode() {
+    int result = 17;
+    result = 31 * result + length;
+    result = 31 * result + Arrays.hashCode(words);
+    return result;
+  }
+  
+  /**
+   * Compares the unsigned values of two binaries word by word, starting with the most 
+   * significant word. Binaries with equal values are ordered by length.
+   * 
+   * @param b the binary to be compared
+   * @return a negative integer, zero, or a positive integer as this binary is less than, 
+   * equal to, or greater than <code>b</code>
+   */
+  @Override
+  public int compareTo(Binary b) {
+    for (int i = Math.max(words.length, b.words.length) - 1; i >= 0; i--) {
+      long x = i < words.length ? words[i] : 0;
+      long y = i < b.words.length ? b.words[i] : 0;
+      
+      if (x != y) {
+        return Long.compareUnsigned(x, y);
+      }
+    }
+    return Integer.compare(length, b.length);
+  }
+  
   /**
    * Converts this Binary to a new int array.
    * 
@@ -129,7 +272,29 @@ public class Binary {
    * and whose contents are initialized to contain the int sequence represented by this binary.
    */
   public int[] toIntArray() {
-    return Arrays.copyOf(bitArray, bitArray.length);
+    int[] bitArray = new int[length];
+    
+    for (int i = 0; i < length; i++) {
+      bitArray[i] = (int) (words[i >>> 6] >>> i) & 0x1;
+    }
+    
+    return bitArray;
+  }
+  
+  /**
+   * Converts this Binary to a new array of packed 64 bit words, least significant word first.
+   * 
+   * @return a newly allocated copy of the words backing this binary
+   */
+  public long[] toLongArray() {
+    return Arrays.copyOf(words, words.length);
+  }
+  
+  /*
+   * The words backing this binary; must not be modified
+   */
+  long[] words() {
+    return words;
   }
 
   /**
@@ -140,13 +305,7 @@ public class Binary {
    * @return bit array
    */
   public static int[] toBitArray(int n, int Size) {
-    if (n > ((1 << Size) - 1) && Size != Integer.SIZE) {
-      throw new IllegalArgumentException("integer too big");
-    }
-    
-    if (Size < 0 || n < 0) {
-      throw new IllegalArgumentException("none negative arguments required");
-    }    
+    checkIntArguments(n, Size);
     
     int[] bitArray = new int[Size];
     
@@ -195,13 +354,7 @@ public class Binary {
    * @return bit array
    */
   public static int[] toBitArray(String s, int Size) {
-    if (s.length() * BYTESIZE > Size) {
-      throw new IllegalArgumentException("string too big");
-    }
-        
-    if (Size < 0 || s == null) {
-      throw new IllegalArgumentException("none negative or null arguments required");
-    }    
+    checkStringArguments(s, Size);
     
     int[] bitArray = new int[Size];
     
@@ -236,6 +389,9 @@ public class Binary {
   /**
    * Concatenates multiple Binary bit sequences
    * 
+   * The last binary ends up in the least significant bits. Whole words are copied with a shift
+   * instead of walking the bits one at a time.
+   * 
    * @param binaries
    * @return a new Binary object
    */
@@ -245,26 +401,94 @@ public class Binary {
       len += b.length();
     }
     
-    Binary bConc = new Binary(0, len);
-    InputIterator itConc = bConc.createIterator();
+    long[] conc = new long[wordCount(len)];
+    int offset = 0;
     
     for (int i = binaries.length - 1; i >= 0; i--) {
-      Iterator itB = binaries[i].createIterator();
+      Binary b = binaries[i];
+      int wordOffset = offset >>> 6;
+      int shift = offset & (WORDSIZE - 1);
       
-      while(itB.hasNext()) {
-        itConc.setNext(itB.next());
-      }      
+      for (int j = 0; j < b.words.length; j++) {
+        long w = b.words[j];
+        conc[wordOffset + j] |= w << shift;
+        
+        if (shift != 0 && wordOffset + j + 1 < conc.length) {
+          conc[wordOffset + j + 1] |= w >>> (WORDSIZE - shift);
+        }
+      }
+      
+      offset += b.length;
     }    
     
-    return bConc;    
+    return new Binary(conc, len);    
   }
+  
+  /*
+   * Validates the arguments used for converting an integer to a bit sequence
+   */
+  private static void checkIntArguments(int n, int Size) {
+    if (n > ((1 << Size) - 1) && Size != Integer.SIZE) {
+      throw new IllegalArgumentException("integer too big");
+    }
+    
+    if (Size < 0 || n < 0) {
+      throw new IllegalArgumentException("none negative arguments required");
+    }    
+  }
+  
+  /*
+   * Validates the arguments used for converting a string to a bit sequence
+   */
+  private static void checkStringArguments(String s, int Size) {
+    if (s.length() * BYTESIZE > Size) {
+      throw new IllegalArgumentException("string too big");
+    }
+        
+    if (Size < 0 || s == null) {
+      throw new IllegalArgumentException("none negative or null arguments required");
+    }    
+  }
+  
+  /*
+   * Number of words needed to hold the given number of bits
+   */
+  private static int wordCount(int bits) {
+    return (bits + WORDSIZE - 1) >>> 6;
+  }
+  
+  /*
+   * Mask for the used bits of a word holding 1 to 64 bits
+   */
+  private static long lastWordMask(int bits) {
+    return bits == WORDSIZE ? -1L : (1L << bits) - 1;
+  }
+  
+  /*
+   * Reads the bit at position i without bounds checking
+   */
+  private int bitAt(int i) {
+    return (int) (words[i >>> 6] >>> i) & 0x1;
+  }
+  
+  /*
+   * Writes the bit at position i without bounds checking
+   */
+  private void setBitAt(int i, int n) {
+    if ((n & 0x1) == 1) {
+      words[i >>> 6] |= 1L << i;
+    } else {
+      words[i >>> 6] &= ~(1L << i);
+    }
+  }
+  
   /**
    * Creates a reverse iterator for this binary value
    * 
    * @return a new reverse iterator
    */
   public InputIterator createReverseIterator() {
-    return new ReverseBinaryIterator(bitArray);
+    return new ReverseBinaryIterator();
   }
 
   /**
@@ -273,21 +497,19 @@ public class Binary {
    * @return a new forward iterator
    */
   public InputIterator createIterator() {
-    return new BinaryIterator(bitArray);
+    return new BinaryIterator();
   }
 
   /**
-   * A reverse iterator
+   * A reverse iterator over the packed bits. Writes go straight to this binary.
    * @author cpp270
    *
    */
   private class ReverseBinaryIterator implements Iterator, InputIterator {
-    private int[] bitArray;
     int position = 0;
     
-    private ReverseBinaryIterator(int[] bitArray) {
-      this.bitArray = bitArray;
-      this.position = bitArray.length;
+    private ReverseBinaryIterator() {
+      this.position = length;
     }
     
     @Override
@@ -298,64 +520,62 @@ public class Binary {
     @Override
     public int next() {
       position--;
-      return bitArray[position];
+      return bitAt(position);
     }
 
     @Override
     public void setNext(int n) {
       position--;
-      bitArray[position] = n;
+      setBitAt(position, n);
     }
 
     @Override
     public void setFirst(int n) {
-      bitArray[0] = n;      
+      setBitAt(0, n);      
     }
 
     @Override
     public void setLast(int n) {
-      bitArray[bitArray.length-1] = n;      
+      setBitAt(length-1, n);      
     }
   }
 
   /**
-   * A forward iterator
+   * A forward iterator over the packed bits. Writes go straight to this binary.
    * 
    * @author cpp270
    *
    */
   private class BinaryIterator implements Iterator, InputIterator {
-    private int[] bitArray;
     int position = 0;
     
-    private BinaryIterator(int[] bitArray) {
-      this.bitArray = bitArray;
+    private BinaryIterator() {
       this.position = 0;
     }
     
     @Override
     public boolean hasNext() {
-      return position < bitArray.length;
+      return position < length;
     }
 
     @Override
     public int next() {
-      return bitArray[position++];
+      return bitAt(position++);
     }
 
     @Override
     public void setNext(int n) {
-      bitArray[position++] = n;
+      setBitAt(position++, n);
     }
 
     @Override
     public void setFirst(int n) {
-      bitArray[0] = n;
+      setBitAt(0, n);
     }
 
     @Override
     public void setLast(int n) {
-      bitArray[bitArray.length-1] = n;      
+      setBitAt(length-1, n);      
     }  
   }
 }
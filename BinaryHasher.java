@@ -0,0 +1,244 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Computes {@link Binary#hash()} incrementally, so the message never has to be materialized as a
+ * bit array or as a single {@link Binary}.
+ *
+ * The hash is the exclusive OR of all {@link Binary#BYTESIZE} bit chunks of the message. The
+ * bytes fed to this hasher are those chunks in order: byte k holds bits 8k to 8k+7, least
+ * significant bit first, which is the byte layout of a {@link Binary}. Whole 64 bit words are
+ * folded at a time and the word is folded down to one byte by {@link #digest()}.
+ *
+ * A {@link Binary} whose length is not a multiple of {@link Binary#BYTESIZE} leaves the message
+ * off a byte boundary; the input after it is rotated into place, so
+ * <code>update(a).update(b).digest()</code> equals <code>Binary.Concatenate(b, a).hash()</code>
+ * for binaries of any length.
+ *
+ * Instances are not thread safe; use one hasher per thread.
+ *
+ * @author cpp270
+ *
+ */
+public class BinaryHasher {
+  private static final int BUFFER_SIZE = 8192;
+
+  // reads 8 bytes of an array as one long; the byte order does not change the fold
+  private static final VarHandle LONGS =
+      MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+  // XOR of everything seen since the last digest
+  private long state;
+
+  // length of the message so far modulo BYTESIZE
+  private int bitOffset;
+
+  // lazily allocated read buffers for streams and channels
+  private byte[] streamBuffer;
+  private ByteBuffer channelBuffer;
+
+  /**
+   * Folds one byte into the hash.
+   *
+   * @param b the next byte of the message
+   * @return this hasher
+   */
+  public BinaryHasher update(byte b) {
+    fold(b & 0xFFL);
+    return this;
+  }
+
+  /**
+   * Folds all bytes of <code>bytes</code> into the hash.
+   *
+   * @param bytes the next bytes of the message
+   * @return this hasher
+   */
+  public BinaryHasher update(byte[] bytes) {
+    if (bytes == null) {
+      throw new NullPointerException("the bytes parameter must be non-null");
+    }
+    return update(bytes, 0, bytes.length);
+  }
+
+  /**
+   * Folds <code>length</code> bytes of <code>bytes</code> starting at <code>offset</code> into
+   * the hash.
+   *
+   * @param bytes the next bytes of the message
+   * @param offset the first byte
+   * @param length the number of bytes
+   * @return this hasher
+   */
+  public BinaryHasher update(byte[] bytes, int offset, int length) {
+    if (bytes == null) {
+      throw new NullPointerException("the bytes parameter must be non-null");
+    }
+    if (offset < 0 || length < 0 || offset > bytes.length - length) {
+      throw new IndexOutOfBoundsException("offset or length out of range");
+    }
+
+    long w = 0;
+    int end = offset + length;
+    int i = offset;
+
+    for (; i <= end - Long.BYTES; i += Long.BYTES) {
+      w ^= (long) LONGS.get(bytes, i);
+    }
+    for (; i < end; i++) {
+      w ^= bytes[i] & 0xFFL;
+    }
+
+    fold(w);
+    return this;
+  }
+
+  /**
+   * Folds the remaining bytes of <code>buffer</code> into the hash. The buffer's position is
+   * moved to its limit.
+   *
+   * @param buffer the next bytes of the message
+   * @return this hasher
+   */
+  public BinaryHasher update(ByteBuffer buffer) {
+    if (buffer == null) {
+      throw new NullPointerException("the buffer parameter must be non-null");
+    }
+
+    if (buffer.hasArray()) {
+      int position = buffer.position();
+      update(buffer.array(), buffer.arrayOffset() + position, buffer.remaining());
+      buffer.position(buffer.limit());
+      return this;
+    }
+
+    long w = 0;
+    while (buffer.remaining() >= Long.BYTES) {
+      w ^= buffer.getLong();
+    }
+    while (buffer.hasRemaining()) {
+      w ^= buffer.get() & 0xFFL;
+    }
+
+    fold(w);
+    return this;
+  }
+
+  /**
+   * Folds the bits of <code>b</code> into the hash. The bits of <code>b</code> follow the
+   * message so far without padding, even when it is not a whole number of bytes long.
+   *
+   * @param b the next bits of the message
+   * @return this hasher
+   */
+  public BinaryHasher update(Binary b) {
+    if (b == null) {
+      throw new NullPointerException("the binary parameter must be non-null");
+    }
+
+    long w = 0;
+    for (long word : b.words()) {
+      w ^= word;
+    }
+
+    fold(w);
+    bitOffset = (bitOffset + b.length()) & (Binary.BYTESIZE - 1);
+    return this;
+  }
+
+  /**
+   * Reads <code>in</code> to its end and folds everything read into the hash. The stream is not
+   * closed.
+   *
+   * @param in the rest of the message
+   * @return this hasher
+   * @throws IOException if reading fails
+   */
+  public BinaryHasher update(InputStream in) throws IOException {
+    if (in == null) {
+      throw new NullPointerException("the input stream parameter must be non-null");
+    }
+    if (streamBuffer == null) {
+      streamBuffer = new byte[BUFFER_SIZE];
+    }
+
+    int n;
+    while ((n = in.read(streamBuffer)) != -1) {
+      update(streamBuffer, 0, n);
+    }
+    return this;
+  }
+
+  /**
+   * Reads <code>channel</code> from its current position to its end and folds everything read
+   * into the hash. The channel is not closed.
+   *
+   * @param channel the rest of the message
+   * @return this hasher
+   * @throws IOException if reading fails
+   */
+  public BinaryHasher update(FileChannel channel) throws IOException {
+    if (channel == null) {
+      throw new NullPointerException("the channel parameter must be non-null");
+    }
+    if (channelBuffer == null) {
+      channelBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    while (channel.read(channelBuffer) != -1) {
+      channelBuffer.flip();
+      update(channelBuffer);
+      channelBuffer.clear();
+    }
+    return this;
+  }
+
+  /**
+   * Completes the hash and resets this hasher.
+   *
+   * @return the hash value, {@link Binary#BYTESIZE} bits long
+   */
+  public Binary digest() {
+    long w = foldToByte(state);
+    reset();
+
+    return Binary.valueOf(new long[] { w }, Binary.BYTESIZE);
+  }
+
+  /**
+   * Discards everything folded in so far.
+   */
+  public void reset() {
+    state = 0;
+    bitOffset = 0;
+  }
+
+  /*
+   * Adds w, the XOR of the words of the next input, to the state. Off a byte boundary every
+   * chunk of the input straddles two chunks of the message, which rotates it within the byte
+   */
+  private void fold(long w) {
+    if (bitOffset == 0) {
+      state ^= w;
+      return;
+    }
+
+    long b = foldToByte(w);
+    state ^= (b << bitOffset | b >>> (Binary.BYTESIZE - bitOffset)) & 0xFFL;
+  }
+
+  /*
+   * XOR of the eight bytes of w
+   */
+  private static long foldToByte(long w) {
+    w ^= w >>> 32;
+    w ^= w >>> 16;
+    w ^= w >>> 8;
+    return w & 0xFFL;
+  }
+}
@@ -0,0 +1,191 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Generates many public/private key pairs at once on a work-stealing fork/join pool.
+ *
+ * A batch of N key pairs is split in halves until every task generates one key pair; idle
+ * workers steal the unfinished halves. Every key pair searches p and then q with a
+ * single-worker {@link PrimeGenerator} on the thread that runs its task, so the cores are spread
+ * over the key pairs rather than over one prime search.
+ *
+ * Instances are immutable and can be shared between threads. Key generation keeps no shared
+ * mutable state and is never traced: every key pair is generated with {@link TraceSink#NONE},
+ * also when the thread calling {@link #generate(int)} runs a task itself and has its own sink.
+ *
+ * @author cpp270
+ *
+ */
+public class BulkKeyGen {
+  private final PrimeGenerator generator;
+  private final int publicExponent;
+  private final ForkJoinPool pool;
+
+  /**
+   * Creates a batch generator on the common fork/join pool with the public exponent
+   * {@link RSAKeyGen#defaultPublicExponent(int)}.
+   *
+   * @param primeBitLength the size of the primes p and q in bits
+   * @param errorProbability the largest acceptable probability that p or q is composite
+   */
+  public BulkKeyGen(int primeBitLength, double errorProbability) {
+    this(primeBitLength, errorProbability, RSAKeyGen.defaultPublicExponent(primeBitLength),
+        ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Creates a batch generator on <code>pool</code>.
+   *
+   * @param primeBitLength the size of the primes p and q in bits
+   * @param errorProbability the largest acceptable probability that p or q is composite
+   * @param publicExponent the fixed public exponent e, or 0 to search for e
+   * @param pool the pool the key pairs are generated on
+   * @throws IllegalArgumentException if the primes are longer than
+   * {@link RSAKeyGen#MAX_PRIME_SIZE} bits or e does not fit the prime size
+   */
+  public BulkKeyGen(int primeBitLength, double errorProbability, int publicExponent,
+      ForkJoinPool pool) {
+    if (pool == null) {
+      throw new NullPointerException("the pool parameter must be non-null");
+    }
+    if (publicExponent != 0) {
+      RSAKeyGen.checkPublicExponent(publicExponent, primeBitLength);
+    } else if (primeBitLength > RSAKeyGen.MAX_PRIME_SIZE) {
+      throw new IllegalArgumentException("prime size too big for integer keys");
+    }
+
+    this.generator = new PrimeGenerator(primeBitLength, errorProbability, pool, 1);
+    this.publicExponent = publicExponent;
+    this.pool = pool;
+  }
+
+  /**
+   * Generates <code>count</code> key pairs and hands each one to <code>consumer</code> as soon
+   * as it is done. The consumer is called on the pool threads, possibly at the same time, so
+   * it has to be thread safe.
+   *
+   * @param count the number of key pairs
+   * @param consumer receives the key pairs in completion order
+   * @return the throughput of the batch
+   */
+  public Report generate(int count, Consumer<RSAKeyGen> consumer) {
+    if (count < 0) {
+      throw new IllegalArgumentException("none negative arguments required");
+    }
+    if (consumer == null) {
+      throw new NullPointerException("the consumer parameter must be non-null");
+    }
+
+    AtomicLong generated = new AtomicLong();
+    long start = System.nanoTime();
+
+    pool.invoke(new Batch(0, count, consumer, generated));
+
+    return new Report(generated.get(), System.nanoTime() - start);
+  }
+
+  /**
+   * Generates <code>count</code> key pairs and returns them once all are done.
+   *
+   * @param count the number of key pairs
+   * @return the key pairs in completion order
+   */
+  public List<RSAKeyGen> generate(int count) {
+    List<RSAKeyGen> keys = Collections.synchronizedList(new ArrayList<RSAKeyGen>(count));
+    generate(count, keys::add);
+    return keys;
+  }
+
+  /*
+   * Generates one key pair on the current thread; p and q are searched for inline, so a leaf
+   * task never blocks a worker waiting for another task. The thread's trace sink is switched
+   * off meanwhile, since the caller of generate may run leaf tasks too
+   */
+  private RSAKeyGen generateOne() {
+    TraceSink previous = RSAMath.setTraceSink(TraceSink.NONE);
+    try {
+      return new RSAKeyGen(generator, publicExponent, false);
+    } finally {
+      RSAMath.setTraceSink(previous);
+    }
+  }
+
+  /*
+   * Key pairs [from, to); splits in halves down to single key pairs
+   */
+  private class Batch extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final int from;
+    private final int to;
+    private final Consumer<RSAKeyGen> consumer;
+    private final AtomicLong generated;
+
+    Batch(int from, int to, Consumer<RSAKeyGen> consumer, AtomicLong generated) {
+      this.from = from;
+      this.to = to;
+      this.consumer = consumer;
+      this.generated = generated;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= 1) {
+        if (to > from) {
+          consumer.accept(generateOne());
+          generated.incrementAndGet();
+        }
+        return;
+      }
+
+      int middle = (from + to) >>> 1;
+      invokeAll(new Batch(from, middle, consumer, generated),
+          new Batch(middle, to, consumer, generated));
+    }
+  }
+
+  /**
+   * Throughput of one batch.
+   */
+  public static final class Report {
+    private final long keys;
+    private final long elapsedNanos;
+
+    Report(long keys, long elapsedNanos) {
+      this.keys = keys;
+      this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return the number of key pairs generated
+     */
+    public long getKeys() {
+      return keys;
+    }
+
+    /**
+     * @return the wall clock time of the batch in nanoseconds
+     */
+    public long getElapsedNanos() {
+      return elapsedNanos;
+    }
+
+    /**
+     * @return key pairs per second
+     */
+    public double getKeysPerSecond() {
+      return elapsedNanos == 0 ? 0 : keys * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%d keys in %.3f s (%.1f keys/s)", keys, elapsedNanos / 1e9,
+          getKeysPerSecond());
+    }
+  }
+}
@@ -0,0 +1,199 @@
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes certificates in their compact binary encoding. {@link CertificateView} reads them
+ * back in place.
+ *
+ * One encoded certificate is laid out as follows, integers big endian whatever the order of
+ * the buffer:
+ *
+ * <pre>
+ * offset  size  field
+ *      0     2  record length in bytes, this field included
+ *      2     1  version, {@link #VERSION}
+ *      3     1  flags; bit 0 set when the certificate is signed
+ *      4     1  digest: 0 for {@link Digest#XOR_FOLD}, 1 for {@link Digest#SHA_256}
+ *      5     1  subject length S
+ *      6     S  subject, UTF-8
+ *    6+S     4  modulus n
+ *   10+S     4  public exponent e
+ *   14+S     1  issuer length I, 0 when unsigned
+ *   15+S     I  issuer, UTF-8
+ * 15+S+I     4  signature s, only when signed
+ * </pre>
+ *
+ * Records follow each other without padding, so a buffer of certificates is read by stepping
+ * from one record length to the next.
+ *
+ * This class contains only static methods.
+ *
+ * @author cpp270
+ *
+ */
+public final class CertificateEncoder {
+  /**
+   * The version of the encoding written by this class.
+   */
+  public static final int VERSION = 1;
+
+  // field offsets and sizes
+  static final int LENGTH_OFFSET = 0;
+  static final int VERSION_OFFSET = 2;
+  static final int FLAGS_OFFSET = 3;
+  static final int DIGEST_OFFSET = 4;
+  static final int SUBJECT_OFFSET = 5;
+  static final int HEADER_SIZE = 6;
+  static final int MAX_STRING_LENGTH = 0xFF;
+
+  static final int FLAG_SIGNED = 0x1;
+
+  static final int DIGEST_XOR_FOLD = 0;
+  static final int DIGEST_SHA_256 = 1;
+
+  /*
+   * Static class; disable constructor
+   */
+  private CertificateEncoder() {
+  }
+
+  /**
+   * Returns the number of bytes {@link #encode(DigitalCertificate, ByteBuffer)} writes for
+   * <code>certificate</code>.
+   *
+   * @param certificate the certificate
+   * @return the length of the encoded certificate in bytes
+   */
+  public static int encodedLength(DigitalCertificate certificate) {
+    if (certificate == null) {
+      throw new NullPointerException("the certificate parameter must be non-null");
+    }
+
+    int length = HEADER_SIZE + utf8Length(certificate.getSubject()) + 2 * Integer.BYTES + 1;
+    if (certificate.getSignatureValue() != null) {
+      length += utf8Length(certificate.getIssuer()) + Integer.BYTES;
+    }
+    return length;
+  }
+
+  /**
+   * Writes <code>certificate</code> at the position of <code>buffer</code> and moves the
+   * position past it. Nothing is written if the certificate does not fit.
+   *
+   * @param certificate the certificate
+   * @param buffer the buffer to write into
+   * @return the number of bytes written
+   * @throws BufferOverflowException if the buffer has less room than the encoded certificate
+   * @throws IllegalArgumentException if the subject or issuer is longer than 255 bytes, or the
+   * digest of the certificate has no encoding
+   */
+  public static int encode(DigitalCertificate certificate, ByteBuffer buffer) {
+    if (certificate == null) {
+      throw new NullPointerException("the certificate parameter must be non-null");
+    }
+    if (buffer == null) {
+      throw new NullPointerException("the buffer parameter must be non-null");
+    }
+
+    boolean signed = certificate.getSignatureValue() != null;
+    byte[] subject = certificate.getSubject().getBytes(StandardCharsets.UTF_8);
+    byte[] issuer = signed ? certificate.getIssuer().getBytes(StandardCharsets.UTF_8) : new byte[0];
+    int digest = digestId(certificate.getDigest());
+
+    if (subject.length > MAX_STRING_LENGTH || issuer.length > MAX_STRING_LENGTH) {
+      throw new IllegalArgumentException("subject or issuer longer than 255 bytes");
+    }
+
+    int length = HEADER_SIZE + subject.length + 2 * Integer.BYTES + 1
+        + (signed ? issuer.length + Integer.BYTES : 0);
+    if (buffer.remaining() < length) {
+      throw new BufferOverflowException();
+    }
+
+    int p = buffer.position();
+    RSAPublicKey key = certificate.getSubjectPublicKey();
+
+    putShort(buffer, p + LENGTH_OFFSET, length);
+    buffer.put(p + VERSION_OFFSET, (byte) VERSION);
+    buffer.put(p + FLAGS_OFFSET, (byte) (signed ? FLAG_SIGNED : 0));
+    buffer.put(p + DIGEST_OFFSET, (byte) digest);
+    buffer.put(p + SUBJECT_OFFSET, (byte) subject.length);
+
+    int i = p + HEADER_SIZE;
+    for (byte b : subject) {
+      buffer.put(i++, b);
+    }
+    putInt(buffer, i, key.getModulus());
+    putInt(buffer, i + Integer.BYTES, key.getPublicExponent());
+    i += 2 * Integer.BYTES;
+
+    buffer.put(i++, (byte) issuer.length);
+    for (byte b : issuer) {
+      buffer.put(i++, b);
+    }
+    if (signed) {
+      putInt(buffer, i, certificate.getSignatureValue().toInt());
+    }
+
+    buffer.position(p + length);
+    return length;
+  }
+
+  /*
+   * The encoding of a digest
+   */
+  static int digestId(Digest digest) {
+    if (digest == Digest.XOR_FOLD) {
+      return DIGEST_XOR_FOLD;
+    }
+    if (digest == Digest.SHA_256) {
+      return DIGEST_SHA_256;
+    }
+    throw new IllegalArgumentException("digest has no encoding");
+  }
+
+  /*
+   * The digest of an encoding
+   */
+  static Digest digest(int id) {
+    switch (id) {
+    case DIGEST_XOR_FOLD:
+      return Digest.XOR_FOLD;
+    case DIGEST_SHA_256:
+      return Digest.SHA_256;
+    default:
+      throw new IllegalArgumentException("unknown digest");
+    }
+  }
+
+  /*
+   * Big endian int at an absolute index, whatever the buffer order
+   */
+  static int getInt(ByteBuffer buffer, int index) {
+    int v = buffer.getInt(index);
+    return buffer.order() == ByteOrder.BIG_ENDIAN ? v : Integer.reverseBytes(v);
+  }
+
+  static void putInt(ByteBuffer buffer, int index, int v) {
+    buffer.putInt(index, buffer.order() == ByteOrder.BIG_ENDIAN ? v : Integer.reverseBytes(v));
+  }
+
+  /*
+   * Big endian unsigned short at an absolute index, whatever the buffer order
+   */
+  static int getShort(ByteBuffer buffer, int index) {
+    short v = buffer.getShort(index);
+    return (buffer.order() == ByteOrder.BIG_ENDIAN ? v : Short.reverseBytes(v)) & 0xFFFF;
+  }
+
+  static void putShort(ByteBuffer buffer, int index, int v) {
+    short s = (short) v;
+    buffer.putShort(index, buffer.order() == ByteOrder.BIG_ENDIAN ? s : Short.reverseBytes(s));
+  }
+
+  private static int utf8Length(String s) {
+    return s.getBytes(StandardCharsets.UTF_8).length;
+  }
+}
@@ -0,0 +1,439 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * An append-only file of certificates, memory mapped and indexed by subject.
+ *
+ * The file starts with a small header followed by certificates in the encoding of
+ * {@link CertificateEncoder}. Storing a certificate appends a record; a later record for the
+ * same subject replaces the earlier one, which stays in the file as garbage until
+ * {@link #compact()} rewrites the file with the live records only.
+ *
+ * The index is an open-addressing hash table (linear probing) from subject to record offset,
+ * held as one int array and rebuilt by scanning the records when the store is opened. A record
+ * torn by a crash ends the scan, and the next record appended overwrites it. No certificate
+ * objects are kept on the heap.
+ *
+ * One thread at a time may write (the writing methods are synchronized); any number of
+ * threads may look up certificates at the same time without locking. The file is limited to
+ * 2 GB, the most one mapping can hold.
+ *
+ * @author cpp270
+ *
+ */
+public class CertificateStore implements AutoCloseable {
+  // header: magic, version, end of the last complete record
+  private static final int MAGIC = 0x52534143;
+  private static final int VERSION = 1;
+  private static final int MAGIC_OFFSET = 0;
+  private static final int VERSION_OFFSET = 4;
+  private static final int END_OFFSET = 8;
+  private static final int HEADER_SIZE = 16;
+
+  private static final int INITIAL_FILE_SIZE = 1 << 20;
+  private static final int INITIAL_TABLE_SIZE = 1 << 10;
+
+  // an empty slot; no record starts inside the header
+  private static final int EMPTY = 0;
+
+  private final Path file;
+  private FileChannel channel;
+
+  // the mapping and the index are replaced together, so readers always see a matching pair
+  private volatile Generation current;
+
+  // written by the writer only
+  private int end;
+  private int count;
+  private long liveBytes;
+
+  /**
+   * Opens the store in <code>file</code>, creating an empty store if the file does not exist.
+   *
+   * @param file the store file
+   * @throws IOException if the file cannot be read or is not a certificate store
+   */
+  public CertificateStore(Path file) throws IOException {
+    if (file == null) {
+      throw new NullPointerException("the file parameter must be non-null");
+    }
+
+    this.file = file;
+    this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+
+    long size = channel.size();
+    MappedByteBuffer buffer;
+
+    if (size == 0) {
+      buffer = map(INITIAL_FILE_SIZE);
+      buffer.putInt(MAGIC_OFFSET, MAGIC);
+      buffer.putInt(VERSION_OFFSET, VERSION);
+      buffer.putLong(END_OFFSET, HEADER_SIZE);
+    } else {
+      // mapping grows the file, so check the header before mapping anything
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+        // until the header is complete or the file ends
+      }
+
+      if (header.hasRemaining() || header.getInt(MAGIC_OFFSET) != MAGIC
+          || header.getInt(VERSION_OFFSET) != VERSION) {
+        channel.close();
+        throw new IOException("not a certificate store: " + file);
+      }
+
+      long committed = header.getLong(END_OFFSET);
+      if (committed < HEADER_SIZE || committed > size) {
+        channel.close();
+        throw new IOException("corrupt certificate store: " + file);
+      }
+
+      buffer = map(Math.max(size, INITIAL_FILE_SIZE));
+    }
+
+    this.current = index(buffer, (int) buffer.getLong(END_OFFSET));
+  }
+
+  /**
+   * Appends <code>certificate</code> and makes it the one returned for its subject.
+   *
+   * @param certificate the certificate
+   * @return the offset of the new record in the file
+   * @throws IllegalStateException if the store would grow past 2 GB
+   */
+  public synchronized int put(DigitalCertificate certificate) {
+    if (certificate == null) {
+      throw new NullPointerException("the certificate parameter must be non-null");
+    }
+    checkOpen();
+
+    int length = CertificateEncoder.encodedLength(certificate);
+    Generation g = current;
+
+    if ((long) end + length > g.buffer.capacity()) {
+      g = grow(g, (long) end + length);
+    }
+
+    // write the record first; readers find it only once the slot is set
+    ByteBuffer w = g.buffer.duplicate();
+    w.position(end);
+    CertificateEncoder.encode(certificate, w);
+
+    int offset = end;
+    end += length;
+    g.buffer.putLong(END_OFFSET, end);
+
+    if (2 * (count + 1) > g.slots.length()) {
+      g = rehash(g, g.slots.length() * 2);
+    }
+    insert(g, offset, length);
+    return offset;
+  }
+
+  /**
+   * Looks up the certificate of <code>subject</code>.
+   *
+   * @param subject the identity of the subject
+   * @return a view of the stored certificate, or null if there is none
+   */
+  public CertificateView get(String subject) {
+    if (subject == null) {
+      throw new NullPointerException("the subject parameter must be non-null");
+    }
+
+    CertificateView view = new CertificateView();
+    return get(subject.getBytes(StandardCharsets.UTF_8), view) ? view : null;
+  }
+
+  /**
+   * Looks up the certificate of <code>subject</code> and points <code>view</code> at it, so
+   * repeated lookups need no new objects.
+   *
+   * @param subject the UTF-8 bytes of the subject
+   * @param view the view to reuse
+   * @return true if the store holds a certificate for the subject
+   */
+  public boolean get(byte[] subject, CertificateView view) {
+    Generation g = current;
+    int mask = g.slots.length() - 1;
+
+    for (int i = hash(subject) & mask; ; i = (i + 1) & mask) {
+      int offset = g.slots.get(i);
+      if (offset == EMPTY) {
+        return false;
+      }
+
+      view.wrap(g.buffer, offset);
+      if (view.subjectEquals(subject)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Returns the number of subjects in the store.
+   *
+   * @return the number of live certificates
+   */
+  public synchronized int size() {
+    return count;
+  }
+
+  /**
+   * Returns the number of bytes taken by replaced records, which {@link #compact()} frees.
+   *
+   * @return the garbage in bytes
+   */
+  public synchronized long getGarbageBytes() {
+    return end - HEADER_SIZE - liveBytes;
+  }
+
+  /**
+   * Writes the appended records to the storage device.
+   */
+  public synchronized void force() {
+    checkOpen();
+    current.buffer.force();
+  }
+
+  /**
+   * Rewrites the file with the live records only. The new file replaces the old one in a single
+   * move; lookups running meanwhile keep reading the old mapping.
+   *
+   * @throws IOException if the new file cannot be written
+   */
+  public synchronized void compact() throws IOException {
+    checkOpen();
+
+    Generation g = current;
+    Path tmp = file.resolveSibling(file.getFileName() + ".compact");
+    long size = Math.max(INITIAL_FILE_SIZE, HEADER_SIZE + liveBytes);
+
+    MappedByteBuffer buffer;
+    try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      buffer = out.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    buffer.putInt(MAGIC_OFFSET, MAGIC);
+    buffer.putInt(VERSION_OFFSET, VERSION);
+
+    int p = HEADER_SIZE;
+    CertificateView view = new CertificateView();
+    for (int i = 0; i < g.slots.length(); i++) {
+      int offset = g.slots.get(i);
+      if (offset == EMPTY) {
+        continue;
+      }
+
+      int length = view.wrap(g.buffer, offset).getEncodedLength();
+      for (int k = 0; k < length; k++) {
+        buffer.put(p + k, g.buffer.get(offset + k));
+      }
+      p += length;
+    }
+    buffer.putLong(END_OFFSET, p);
+    buffer.force();
+
+    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+    channel.close();
+    channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+    current = index(buffer, p);
+  }
+
+  /**
+   * Writes the appended records to the storage device and closes the file. Views handed out
+   * stay readable.
+   *
+   * @throws IOException if closing fails
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (channel.isOpen()) {
+      current.buffer.force();
+      channel.close();
+    }
+  }
+
+  /*
+   * Maps the first size bytes of the file, growing the file if needed
+   */
+  private MappedByteBuffer map(long size) throws IOException {
+    if (size > Integer.MAX_VALUE) {
+      throw new IllegalStateException("certificate store full");
+    }
+    return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+  }
+
+  /*
+   * Remaps a larger part of the file. Offsets do not change, but the index is copied so that
+   * readers of the old mapping never find records past its end.
+   */
+  private Generation grow(Generation g, long needed) {
+    long size = g.buffer.capacity();
+    while (size < needed) {
+      size *= 2;
+    }
+
+    try {
+      AtomicIntegerArray slots = new AtomicIntegerArray(g.slots.length());
+      for (int i = 0; i < slots.length(); i++) {
+        slots.set(i, g.slots.get(i));
+      }
+
+      Generation next = new Generation(map(Math.min(size, Integer.MAX_VALUE)), slots);
+      current = next;
+      return next;
+    } catch (IOException e) {
+      throw new IllegalStateException("cannot grow certificate store", e);
+    }
+  }
+
+  /*
+   * Scans the records up to end and builds a new index over them. Mapped writes may reach the
+   * disk out of order, so after a crash the header can count a record that was never written;
+   * the scan stops at the first record that is not complete and the store goes on from there.
+   */
+  private Generation index(MappedByteBuffer buffer, int end) {
+    Generation g = new Generation(buffer, new AtomicIntegerArray(INITIAL_TABLE_SIZE));
+    count = 0;
+    liveBytes = 0;
+
+    CertificateView view = new CertificateView();
+    int p = HEADER_SIZE;
+    while (p < end) {
+      int length;
+      try {
+        length = view.wrap(buffer, p).getEncodedLength();
+      } catch (IllegalArgumentException e) {
+        break;
+      }
+      if (length > end - p) {
+        break;
+      }
+
+      if (2 * (count + 1) > g.slots.length()) {
+        g = rehash(g, g.slots.length() * 2);
+      }
+      insert(g, p, length);
+      p += length;
+    }
+
+    if (p != end) {
+      buffer.putLong(END_OFFSET, p);
+    }
+    this.end = p;
+    return g;
+  }
+
+  /*
+   * Copies the index into a table of the given size and publishes it
+   */
+  private Generation rehash(Generation g, int tableSize) {
+    AtomicIntegerArray slots = new AtomicIntegerArray(tableSize);
+    int mask = tableSize - 1;
+    CertificateView view = new CertificateView();
+
+    for (int i = 0; i < g.slots.length(); i++) {
+      int offset = g.slots.get(i);
+      if (offset == EMPTY) {
+        continue;
+      }
+
+      view.wrap(g.buffer, offset);
+      int j = hash(g.buffer, view.getSubjectOffset(), view.getSubjectLength()) & mask;
+      while (slots.get(j) != EMPTY) {
+        j = (j + 1) & mask;
+      }
+      slots.set(j, offset);
+    }
+
+    Generation next = new Generation(g.buffer, slots);
+    current = next;
+    return next;
+  }
+
+  /*
+   * Points the slot of the record's subject at the record, replacing an older record
+   */
+  private void insert(Generation g, int offset, int length) {
+    CertificateView record = new CertificateView().wrap(g.buffer, offset);
+    int subject = record.getSubjectOffset();
+    int subjectLength = record.getSubjectLength();
+
+    byte[] bytes = new byte[subjectLength];
+    for (int k = 0; k < subjectLength; k++) {
+      bytes[k] = g.buffer.get(subject + k);
+    }
+
+    int mask = g.slots.length() - 1;
+    CertificateView view = new CertificateView();
+
+    for (int i = hash(bytes) & mask; ; i = (i + 1) & mask) {
+      int old = g.slots.get(i);
+
+      if (old == EMPTY) {
+        count++;
+        liveBytes += length;
+        g.slots.set(i, offset);
+        return;
+      }
+
+      view.wrap(g.buffer, old);
+      if (view.subjectEquals(bytes)) {
+        liveBytes += length - view.getEncodedLength();
+        g.slots.set(i, offset);
+        return;
+      }
+    }
+  }
+
+  private void checkOpen() {
+    if (!channel.isOpen()) {
+      throw new IllegalStateException("certificate store closed");
+    }
+  }
+
+  /*
+   * FNV-1a over the subject bytes, with the high bits mixed into the low ones
+   */
+  private static int hash(byte[] subject) {
+    int h = 0x811C9DC5;
+    for (byte b : subject) {
+      h = (h ^ (b & 0xFF)) * 0x01000193;
+    }
+    return h ^ (h >>> 16);
+  }
+
+  private static int hash(ByteBuffer buffer, int offset, int length) {
+    int h = 0x811C9DC5;
+    for (int i = 0; i < length; i++) {
+      h = (h ^ (buffer.get(offset + i) & 0xFF)) * 0x01000193;
+    }
+    return h ^ (h >>> 16);
+  }
+
+  /*
+   * A mapping of the file together with the index over it
+   */
+  private static final class Generation {
+    final MappedByteBuffer buffer;
+    final AtomicIntegerArray slots;
+
+    Generation(MappedByteBuffer buffer, AtomicIntegerArray slots) {
+      this.buffer = buffer;
+      this.slots = slots;
+    }
+  }
+}
@@ -0,0 +1,241 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Checks certificate signatures against one issuer's public key.
+ *
+ * The issuer key's {@link ExponentiationPlan} holds the reduction constants of the modulus and
+ * the recoded exponent, so every certificate costs one hash and one exponentiation. Unless the
+ * public exponent is tiny, the bulk checks hand whole batches of signatures to
+ * {@link BatchExponentiation}, which runs them side by side. Instances are immutable and can be
+ * shared between threads.
+ *
+ * @author cpp270
+ *
+ */
+public class CertificateVerifier {
+  // certificates per task of the bulk checks
+  private static final int BATCH_SIZE = 1024;
+
+  // shorter public exponents take fewer multiplications than the set up of a batch costs
+  private static final int BATCH_EXPONENT_BITS = 8;
+
+  private final RSAPublicKey issuerKey;
+  private final ExponentiationPlan plan;
+
+  /**
+   * Creates a verifier for certificates signed with the private key matching
+   * <code>issuerKey</code>.
+   *
+   * @param issuerKey the public key of the issuer
+   * @throws NullPointerException if <code>issuerKey</code> is null
+   */
+  public CertificateVerifier(RSAPublicKey issuerKey) {
+    if (issuerKey == null) {
+      throw new NullPointerException("the issuer key parameter must be non-null");
+    }
+
+    this.issuerKey = issuerKey;
+    this.plan = issuerKey.getExponentiationPlan();
+  }
+
+  /**
+   * Returns the issuer's public key.
+   *
+   * @return the issuer's public key
+   */
+  public RSAPublicKey getIssuerKey() {
+    return issuerKey;
+  }
+
+  /**
+   * Checks the signature of <code>certificate</code>.
+   *
+   * @param certificate the certificate to check
+   * @return true if the certificate is signed and E(e, s) = h(r); false otherwise
+   * @throws NullPointerException if <code>certificate</code> is null
+   */
+  public boolean verify(DigitalCertificate certificate) {
+    if (certificate == null) {
+      throw new NullPointerException("the certificate parameter must be non-null");
+    }
+
+    Binary signature = certificate.getSignatureValue();
+    if (signature == null) {
+      return false;
+    }
+
+    int n = plan.getModulus();
+    int s = signature.toInt();
+    if (s >= n) {
+      return false;
+    }
+
+    return plan.modPow(s) == certificate.digestOfSubjectAndKey(n);
+  }
+
+  /**
+   * Checks the signature of an encoded certificate in place, without decoding it into a
+   * {@link DigitalCertificate}.
+   *
+   * @param certificate a view of the encoded certificate
+   * @return true if the certificate is signed and E(e, s) = h(r); false otherwise
+   * @throws NullPointerException if <code>certificate</code> is null
+   */
+  public boolean verify(CertificateView certificate) {
+    if (certificate == null) {
+      throw new NullPointerException("the certificate parameter must be non-null");
+    }
+    if (!certificate.isSigned()) {
+      return false;
+    }
+
+    int n = plan.getModulus();
+    int s = certificate.getSignature();
+    if (s < 0 || s >= n) {
+      return false;
+    }
+
+    return plan.modPow(s) == certificate.digestOfSubjectAndKey(n);
+  }
+
+  /**
+   * Checks all encoded certificates between the position and the limit of <code>buffer</code>
+   * in parallel batches on the common fork/join pool. The buffer's position is not changed.
+   *
+   * @param buffer consecutive certificates in the encoding of {@link CertificateEncoder}
+   * @return a bitmap with bit i set if and only if the i-th certificate verifies
+   * @throws IllegalArgumentException if the buffer does not hold well formed certificates
+   */
+  public BitSet verifyAll(ByteBuffer buffer) {
+    if (buffer == null) {
+      throw new NullPointerException("the buffer parameter must be non-null");
+    }
+
+    // find the records first; each task then wraps its own view
+    int[] offsets = new int[16];
+    int count = 0;
+    CertificateView view = new CertificateView();
+    for (int p = buffer.position(); p < buffer.limit(); p += view.getEncodedLength()) {
+      view.wrap(buffer, p);
+      if (count == offsets.length) {
+        offsets = Arrays.copyOf(offsets, count * 2);
+      }
+      offsets[count++] = p;
+    }
+
+    int[] records = offsets;
+    int size = count;
+    boolean[] verified = new boolean[size];
+    int n = plan.getModulus();
+
+    // each batch is written by one task only
+    IntStream.range(0, (size + BATCH_SIZE - 1) / BATCH_SIZE).parallel().forEach(b -> {
+      int from = b * BATCH_SIZE;
+      int to = Math.min(size, from + BATCH_SIZE);
+      int[] signatures = new int[to - from];
+      int[] digests = new int[to - from];
+
+      CertificateView certificate = new CertificateView();
+      for (int i = from; i < to; i++) {
+        certificate.wrap(buffer, records[i]);
+        if (certificate.isSigned()) {
+          int s = certificate.getSignature();
+          if (s >= 0 && s < n) {
+            signatures[i - from] = s;
+            digests[i - from] = certificate.digestOfSubjectAndKey(n);
+            continue;
+          }
+        }
+        digests[i - from] = -1;
+      }
+
+      verifyBatch(signatures, digests, verified, from);
+    });
+
+    return toBitSet(verified);
+  }
+
+  /**
+   * Checks the signatures of all <code>certificates</code> in parallel batches on the common
+   * fork/join pool.
+   *
+   * @param certificates the certificates to check
+   * @return a bitmap with bit i set if and only if certificate i verifies
+   * @throws NullPointerException if <code>certificates</code> or any of its elements is null
+   */
+  public BitSet verifyAll(List<DigitalCertificate> certificates) {
+    if (certificates == null) {
+      throw new NullPointerException("the certificates parameter must be non-null");
+    }
+
+    int size = certificates.size();
+    // checked up front, since an exception thrown by a pool thread loses its message
+    for (int i = 0; i < size; i++) {
+      if (certificates.get(i) == null) {
+        throw new NullPointerException("certificate " + i + " is null");
+      }
+    }
+
+    boolean[] verified = new boolean[size];
+    int n = plan.getModulus();
+
+    // each batch is written by one task only
+    IntStream.range(0, (size + BATCH_SIZE - 1) / BATCH_SIZE).parallel().forEach(b -> {
+      int from = b * BATCH_SIZE;
+      int to = Math.min(size, from + BATCH_SIZE);
+      int[] signatures = new int[to - from];
+      int[] digests = new int[to - from];
+
+      for (int i = from; i < to; i++) {
+        DigitalCertificate certificate = certificates.get(i);
+        Binary signature = certificate.getSignatureValue();
+        if (signature != null) {
+          int s = signature.toInt();
+          if (s >= 0 && s < n) {
+            signatures[i - from] = s;
+            digests[i - from] = certificate.digestOfSubjectAndKey(n);
+            continue;
+          }
+        }
+        digests[i - from] = -1;
+      }
+
+      verifyBatch(signatures, digests, verified, from);
+    });
+
+    return toBitSet(verified);
+  }
+
+  /*
+   * E(e, s) = h(r) for a batch of signatures; a digest of -1 marks a certificate that already
+   * failed, its signature slot holds 0
+   */
+  private void verifyBatch(int[] signatures, int[] digests, boolean[] verified, int offset) {
+    int e = plan.getExponent();
+    if (Integer.SIZE - Integer.numberOfLeadingZeros(e) >= BATCH_EXPONENT_BITS) {
+      BatchExponentiation.modPow(signatures, e, plan.getModulus(), signatures);
+    } else {
+      for (int i = 0; i < signatures.length; i++) {
+        signatures[i] = plan.modPow(signatures[i]);
+      }
+    }
+
+    for (int i = 0; i < signatures.length; i++) {
+      verified[offset + i] = digests[i] >= 0 && signatures[i] == digests[i];
+    }
+  }
+
+  private static BitSet toBitSet(boolean[] verified) {
+    BitSet result = new BitSet(verified.length);
+    for (int i = 0; i < verified.length; i++) {
+      if (verified[i]) {
+        result.set(i);
+      }
+    }
+    return result;
+  }
+}
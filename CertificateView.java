@@ -0,0 +1,209 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A flyweight over one certificate in the encoding of {@link CertificateEncoder}.
+ *
+ * The view reads every field straight from the buffer, whether it is on the heap, direct or
+ * memory mapped, and copies nothing until a String or a {@link DigitalCertificate} is asked
+ * for. One view can be moved over many records with {@link #wrap(ByteBuffer, int)}.
+ *
+ * A view is not thread safe; use one view per thread over a shared buffer.
+ *
+ * @author cpp270
+ *
+ */
+public final class CertificateView {
+  private ByteBuffer buffer;
+  private int offset;
+
+  // offsets within the buffer, derived from the variable length fields
+  private int subjectLength;
+  private int keyOffset;
+  private int issuerLength;
+
+  /**
+   * Points this view at the record starting at <code>offset</code> of <code>buffer</code>.
+   *
+   * @param buffer the buffer holding the record
+   * @param offset the absolute index of the record
+   * @return this view
+   * @throws IllegalArgumentException if there is no well formed record at <code>offset</code>
+   */
+  public CertificateView wrap(ByteBuffer buffer, int offset) {
+    if (buffer == null) {
+      throw new NullPointerException("the buffer parameter must be non-null");
+    }
+    if (offset < 0 || offset > buffer.limit() - CertificateEncoder.HEADER_SIZE) {
+      throw new IllegalArgumentException("malformed certificate");
+    }
+
+    int length = CertificateEncoder.getShort(buffer, offset + CertificateEncoder.LENGTH_OFFSET);
+    if (buffer.get(offset + CertificateEncoder.VERSION_OFFSET) != CertificateEncoder.VERSION
+        || length > buffer.limit() - offset) {
+      throw new IllegalArgumentException("malformed certificate");
+    }
+
+    int subject = buffer.get(offset + CertificateEncoder.SUBJECT_OFFSET) & 0xFF;
+    int key = offset + CertificateEncoder.HEADER_SIZE + subject;
+    int issuerIndex = key + 2 * Integer.BYTES;
+    if (issuerIndex >= offset + length) {
+      throw new IllegalArgumentException("malformed certificate");
+    }
+
+    int issuer = buffer.get(issuerIndex) & 0xFF;
+    boolean signed = (buffer.get(offset + CertificateEncoder.FLAGS_OFFSET)
+        & CertificateEncoder.FLAG_SIGNED) != 0;
+    int expected = issuerIndex + 1 + (signed ? issuer + Integer.BYTES : 0) - offset;
+    if (length != expected) {
+      throw new IllegalArgumentException("malformed certificate");
+    }
+
+    this.buffer = buffer;
+    this.offset = offset;
+    this.subjectLength = subject;
+    this.keyOffset = key;
+    this.issuerLength = issuer;
+    return this;
+  }
+
+  /**
+   * Returns the absolute index of the record in the buffer.
+   *
+   * @return the offset of the record
+   */
+  public int getOffset() {
+    return offset;
+  }
+
+  /**
+   * Returns the length of the record in bytes; the next record starts right after it.
+   *
+   * @return the encoded length
+   */
+  public int getEncodedLength() {
+    return CertificateEncoder.getShort(buffer, offset + CertificateEncoder.LENGTH_OFFSET);
+  }
+
+  /**
+   * @return true if the certificate carries an issuer and a signature
+   */
+  public boolean isSigned() {
+    return (buffer.get(offset + CertificateEncoder.FLAGS_OFFSET)
+        & CertificateEncoder.FLAG_SIGNED) != 0;
+  }
+
+  /**
+   * @return the digest the certificate is signed with
+   */
+  public Digest getDigest() {
+    return CertificateEncoder.digest(buffer.get(offset + CertificateEncoder.DIGEST_OFFSET) & 0xFF);
+  }
+
+  /**
+   * @return the absolute index of the UTF-8 subject bytes
+   */
+  public int getSubjectOffset() {
+    return offset + CertificateEncoder.HEADER_SIZE;
+  }
+
+  /**
+   * @return the number of UTF-8 subject bytes
+   */
+  public int getSubjectLength() {
+    return subjectLength;
+  }
+
+  /**
+   * Compares the subject with <code>subject</code> in place.
+   *
+   * @param subject UTF-8 bytes of a subject
+   * @return true if the subjects are equal
+   */
+  public boolean subjectEquals(byte[] subject) {
+    if (subject.length != subjectLength) {
+      return false;
+    }
+    int p = getSubjectOffset();
+    for (int i = 0; i < subjectLength; i++) {
+      if (buffer.get(p + i) != subject[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Decodes the subject. Allocates a new String.
+   *
+   * @return the identity of the subject
+   */
+  public String getSubject() {
+    return decode(getSubjectOffset(), subjectLength);
+  }
+
+  /**
+   * @return the modulus n of the subject's public key
+   */
+  public int getModulus() {
+    return CertificateEncoder.getInt(buffer, keyOffset);
+  }
+
+  /**
+   * @return the public exponent e of the subject's public key
+   */
+  public int getPublicExponent() {
+    return CertificateEncoder.getInt(buffer, keyOffset + Integer.BYTES);
+  }
+
+  /**
+   * Decodes the issuer. Allocates a new String.
+   *
+   * @return the identity of the issuer, or null if the certificate is not signed
+   */
+  public String getIssuer() {
+    return isSigned() ? decode(keyOffset + 2 * Integer.BYTES + 1, issuerLength) : null;
+  }
+
+  /**
+   * @return the signature value s
+   * @throws IllegalStateException if the certificate is not signed
+   */
+  public int getSignature() {
+    if (!isSigned()) {
+      throw new IllegalStateException("certificate is not signed");
+    }
+    return CertificateEncoder.getInt(buffer, keyOffset + 2 * Integer.BYTES + 1 + issuerLength);
+  }
+
+  /**
+   * Copies the record into a new certificate object.
+   *
+   * @return the certificate
+   */
+  public DigitalCertificate toCertificate() {
+    RSAPublicKey key = new RSAPublicKey(getModulus(), getPublicExponent());
+    if (!isSigned()) {
+      return new DigitalCertificate(getSubject(), key, getDigest());
+    }
+    return new DigitalCertificate(getSubject(), key, getDigest(), getIssuer(),
+        new Binary(getSignature()));
+  }
+
+  /*
+   * h(r) cut to fit below the modulus, with r built from the buffer in place
+   */
+  int digestOfSubjectAndKey(int modulus) {
+    Binary r = DigitalCertificate.concatenateSubjectAndKey(buffer, getSubjectOffset(),
+        subjectLength, getModulus(), getPublicExponent());
+    return getDigest().digestBelow(r, modulus);
+  }
+
+  private String decode(int index, int length) {
+    byte[] bytes = new byte[length];
+    for (int i = 0; i < length; i++) {
+      bytes[i] = buffer.get(index + i);
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -1,5 +1,4 @@
 import java.util.Random;
-import java.util.logging.ConsoleHandler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -14,21 +13,33 @@ public class DemoApp {
   private static final Logger logger = 
       Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
   
-  private void startDemo() {
+  // Bob remembers the certificates he has already checked
+  private final VerificationCache verifiedCertificates = new VerificationCache(1024);
+  
+  private void startDemo(Digest digest) {
+    // print the traces of the algorithms through our logger
+    TraceSink trace = new LoggerTraceSink(logger, Level.INFO);
+    RSAMath.setTraceSink(trace);
+    
     // generate public/private keys for Alice
     RSAKeyGen Alice = new RSAKeyGen();
     
-    Level lvl = logger.getLevel(); logger.setLevel(Level.OFF); // turn off logging for Trent; its same as for Alice
+    RSAMath.setTraceSink(TraceSink.NONE); // turn off tracing for Trent; its same as for Alice
     
     // generate public/private keys for Trent
     RSAKeyGen Trent = new RSAKeyGen();
     
-    logger.setLevel(lvl); // re-enable logging
+    RSAMath.setTraceSink(trace); // re-enable tracing
     
     // create digital certificate for Alice
-    DigitalCertificate cert = new DigitalCertificate("Alice", Alice.getPublicKey());
+    DigitalCertificate cert = new DigitalCertificate("Alice", Alice.getPublicKey(), digest);
     
     cert.signCertificate("Trent", Trent.getPrivateKey());
+    
+    // Bob checks Trent's signature on the certificate before talking to Alice
+    if (!verifiedCertificates.verify(cert, Trent.getPublicKey())) {
+      throw new IllegalStateException("Failed to verify Alice's certificate");
+    }
 
     /*
      ***  6 Alice authenticates herself to Bob
@@ -36,13 +47,15 @@ public class DemoApp {
     int messageU = sendCertificateToBobAndReceiveMessage(cert);
     
     Binary u = new Binary(messageU);    
-    Binary hashOfU = u.hash();
+    int n = Alice.getPrivateKey().getModulus();
+    int hashOfU = digest.digestBelow(u, n);
     
     /*
      *  Alice signs the message u that Bob sent her by decrypting the hash of u [D(d, h(u))] with her private key
      */
-    int v = RSAMath.FastExponentiation(hashOfU.toInt(), 
-        Binary.toBitArray(Alice.getPrivateKey().getPrivateExponent()), Alice.getPrivateKey().getModulus());
+    int v = SignatureTable.covers(digest, n) 
+        ? Alice.getPrivateKey().getSignatureTable().sign(hashOfU) 
+        : RSAMath.PrivateExponentiation(hashOfU, Alice.getPrivateKey());
     
     /*
      * Alice sends v = D(d, h(u)) to Bob
@@ -54,9 +67,7 @@ public class DemoApp {
     RSAPublicKey alicePublicKey = cert.getSubjectPublicKey();
     
     // Bob encrypts v with Alice's public key using fast exponentiation
-    int Eev = RSAMath.FastExponentiation(v, 
-        Binary.toBitArray(alicePublicKey.getPublicExponent()), 
-        alicePublicKey.getModulus());
+    int Eev = RSAMath.PublicExponentiation(v, alicePublicKey);
     
     /*
      * At this point Bob would calculate his own hash of u (i.e. the hash of the message he initially sent to Alice)
@@ -67,13 +78,14 @@ public class DemoApp {
      * Note: We do not regenerate h(u) since it would be redundant and I do not call another function
      * since all the values that need to be printed are here.
      */
-    if (Eev != hashOfU.toInt()) {
+    if (Eev != hashOfU) {
       throw new IllegalStateException("Failed to authenticate Alice");
     }
     
     logger.info("Line #215");
     logger.info(String.format("u = %20d %s", messageU, u));
-    logger.info(String.format("h(u) = %17d %s", hashOfU.toInt(), hashOfU));
+    logger.info(String.format("h(u) = %17d %s", hashOfU, new Binary(hashOfU, 
+        Math.min(digest.getDigestLength(), Integer.SIZE - 1 - Integer.numberOfLeadingZeros(n)))));
     logger.info(String.format("v = D(d, h(u)) = %7d %s", v, new Binary(v)));
     logger.info(String.format("E(e ,v) = %14d %s", Eev, new Binary(Eev)));
     logger.info(String.format("e = %20d %s", Alice.getPublicKey().getPublicExponent(), 
@@ -84,16 +96,10 @@ public class DemoApp {
         new Binary(Alice.getPrivateKey().getModulus())));
     
     logger.info("Line #219");
-    // re-do the above FastExponentiation with logging ON
-    logger.setLevel(Level.FINE);
-    ConsoleHandler handler = new ConsoleHandler();
-    handler.setLevel(Level.FINE);
-    logger.addHandler(handler);
-    
-    // run it again just to produce the required trace
+    // run the above exponentiation again with FastExponentiation just to produce the required trace
     Eev = RSAMath.FastExponentiation(v, 
         Binary.toBitArray(alicePublicKey.getPublicExponent()), 
-        alicePublicKey.getModulus());    
+        alicePublicKey.getModulus(), trace);    
   }
   
   /*
@@ -156,7 +162,7 @@ public class DemoApp {
   }
     
 	public static void main(String[] args) {
-	  new DemoApp().startDemo();
+	  new DemoApp().startDemo(Digest.XOR_FOLD);
 	}
 
 }
@@ -0,0 +1,60 @@
+/**
+ * A message digest for signing bit sequences with int sized RSA keys.
+ * 
+ * The signed value has to be below the modulus, so callers ask for the leading bits of the 
+ * digest that fit, see {@link #digestBelow(Binary, int)}.
+ * 
+ * The shipped digests keep any working state per thread, so computing a digest creates no 
+ * objects and one instance can be shared by all threads.
+ * 
+ * @author cpp270
+ *
+ */
+public interface Digest {
+  /**
+   * The 8 bit exclusive OR fold of {@link Binary#hash()}.
+   */
+  public static final Digest XOR_FOLD = XorFoldDigest.INSTANCE;
+  
+  /**
+   * SHA-256 of the message bytes, backed by {@link java.security.MessageDigest}.
+   */
+  public static final Digest SHA_256 = Sha256Digest.INSTANCE;
+  
+  /**
+   * 
+   * @return the name of the digest algorithm
+   */
+  public String getAlgorithm();
+  
+  /**
+   * 
+   * @return the length of the full digest in bits
+   */
+  public int getDigestLength();
+  
+  /**
+   * Computes the digest of <code>message</code> and returns its leading bits.
+   * 
+   * @param message the message
+   * @param bits the number of leading bits wanted, 1 to 31
+   * @return the leading min(bits, {@link #getDigestLength()}) bits of the digest
+   * @throws IllegalArgumentException if <code>bits</code> is out of range
+   */
+  public int digest(Binary message, int bits);
+  
+  /**
+   * Computes the digest of <code>message</code> cut to one bit less than the modulus, so the 
+   * result can be signed with a key of modulus <code>modulus</code>.
+   * 
+   * @param message the message
+   * @param modulus the modulus n of the signing key, at least 2
+   * @return the leading bits of the digest, less than n
+   */
+  public default int digestBelow(Binary message, int modulus) {
+    if (modulus < 2) {
+      throw new IllegalArgumentException("modulus is not greater than 1");
+    }
+    return digest(message, Integer.SIZE - 1 - Integer.numberOfLeadingZeros(modulus));
+  }
+}
@@ -1,4 +1,5 @@
-import java.util.logging.Logger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 /**
  * The digital certificate class is used to sign and store subject's identity plus subject's public key.
@@ -11,14 +12,13 @@ import java.util.logging.Logger;
  *
  */
 public class DigitalCertificate {
-  // use a logger instead of System.out.println
-  private static final Logger logger = 
-      Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
-
   private String subject;
   private RSAPublicKey subjectPublicKey;
   private String issuer;
   
+  // how r is hashed before signing
+  private final Digest digest;
+  
   private Binary r = null;
   private Binary signature;
   
@@ -28,7 +28,8 @@ public class DigitalCertificate {
   private static final int EXPONENT_BYTE_SIZE = 4;
 
   /**
-   * Creates an unsigned digital certificate for the specified subject.
+   * Creates an unsigned digital certificate for the specified subject, hashed with 
+   * {@link Digest#XOR_FOLD}.
    * 
    * @param subject the identity of the subject
    * @param subjectPublicKey the public key of the subject
@@ -36,25 +37,55 @@ public class DigitalCertificate {
    * @throws IllegalArgumentException if <code>subject</code> is empty
    */
   public DigitalCertificate(String subject, RSAPublicKey subjectPublicKey){
+    this(subject, subjectPublicKey, Digest.XOR_FOLD);
+  }
+  
+  /**
+   * Creates an unsigned digital certificate for the specified subject.
+   * 
+   * @param subject the identity of the subject
+   * @param subjectPublicKey the public key of the subject
+   * @param digest the digest used to sign and verify the certificate
+   * @throws NullPointerException if any parameter is null
+   * @throws IllegalArgumentException if <code>subject</code> is empty
+   */
+  public DigitalCertificate(String subject, RSAPublicKey subjectPublicKey, Digest digest){
     if (subject == null) {
       throw new NullPointerException("the subject parameter must be non-null");
     }
     if (subjectPublicKey == null) {
       throw new NullPointerException("the subject's public key parameter must be non-null");
     }
+    if (digest == null) {
+      throw new NullPointerException("the digest parameter must be non-null");
+    }
     if (subject.isEmpty()) {
       throw new IllegalArgumentException("the subject parameter must not be empty");
     }
     
     this.subject = subject;
     this.subjectPublicKey = subjectPublicKey;
+    this.digest = digest;
+  }
+  
+  /*
+   * A certificate read back from its encoded form, signed or not
+   */
+  DigitalCertificate(String subject, RSAPublicKey subjectPublicKey, Digest digest, String issuer, 
+      Binary signature) {
+    this(subject, subjectPublicKey, digest);
+    this.issuer = issuer;
+    this.signature = signature;
   }
   
   /**
    * Produces a signature for this certificate. In effect this signs this certificate with the 
    * <code>issuerPrivateKey</code>
    * 
-   * The issuer private key is not retained.
+   * The issuer private key is not retained. With a digest of at most 
+   * {@link SignatureTable#DIGEST_BITS} bits and a modulus of at least 2^8, the 
+   * signature is looked up in the key's {@link SignatureTable}, which is computed on the first 
+   * such signature.
    * 
    * @param issuer the identity who will sign this certificate, i.e. the signatory
    * @param issuerPrivateKey the private key used to sign this certificate
@@ -74,33 +105,103 @@ public class DigitalCertificate {
     
     this.issuer = issuer;
     
-    // convert the subject information into bits/binary format
-    Binary bSubject = new Binary(subject, SUBJECT_BYTE_SIZE * Binary.BYTESIZE);
-    
-    Binary bModulus = new Binary(subjectPublicKey.getModulus(), MODULUS_BYTE_SIZE * Binary.BYTESIZE);
-    
-    Binary bExponent = new Binary(subjectPublicKey.getPublicExponent(), EXPONENT_BYTE_SIZE * Binary.BYTESIZE);
-   
     // Tren creates a concatenation of Subject's Name and Public Key 
-    r = Binary.Concatenate(bSubject, bModulus, bExponent);
+    r = concatenateSubjectAndKey();
     
-    // Tren hashes r
-    Binary hashOfR = r.hash();
+    // Tren hashes r; the hash has to stay below his modulus
+    int n = issuerPrivateKey.getModulus();
+    int hashOfR = digest.digestBelow(r, n);
     
-    // Tren signs it by decrypting the hash with his private key; D(dT, h(Alice||eA))
-    int s = RSAMath.FastExponentiation(hashOfR.toInt(), 
-        Binary.toBitArray(issuerPrivateKey.getPrivateExponent()), issuerPrivateKey.getModulus());
+    // Tren signs it by decrypting the hash with his private key; D(dT, h(Alice||eA)); a short 
+    // hash has few values, so he looks its signature up in his precomputed table
+    int s = SignatureTable.covers(digest, n) 
+        ? issuerPrivateKey.getSignatureTable().sign(hashOfR) 
+        : RSAMath.PrivateExponentiation(hashOfR, issuerPrivateKey);
     
     signature = new Binary(s);
     
-    logger.info("Line #185");    
-    logger.info(String.format("r    = %s", r.toString()));
-    logger.info(String.format("h(r) = %s", hashOfR.toString()));
-    logger.info(String.format("s    = %s", signature.toString()));
-
-    logger.info("Line #187");    
-    logger.info(String.format("h(r) = %d", hashOfR.toInt()));
-    logger.info(String.format("s    = %d", s));
+    TraceSink trace = RSAMath.getTraceSink();
+    if (trace.isEnabled()) {
+      int width = Math.min(digest.getDigestLength(), Integer.SIZE - 1 - Integer.numberOfLeadingZeros(n));
+      
+      trace.message("Line #185");    
+      trace.message(String.format("r    = %s", r.toString()));
+      trace.message(String.format("h(r) = %s", new Binary(hashOfR, width).toString()));
+      trace.message(String.format("s    = %s", signature.toString()));
+  
+      trace.message("Line #187");    
+      trace.message(String.format("h(r) = %d", hashOfR));
+      trace.message(String.format("s    = %d", s));
+    }
+  }
+  
+  /**
+   * Checks the signature of this certificate with the issuer's public key, i.e. that 
+   * E(e, s) = h(r) where r is the concatenation of the subject and the subject's public key.
+   * 
+   * Use a {@link CertificateVerifier} to check many certificates of the same issuer.
+   * 
+   * @param issuerKey the public key of the issuer
+   * @return true if the certificate is signed and the signature matches; false otherwise
+   * @throws NullPointerException if <code>issuerKey</code> is null
+   */
+  public boolean verify(RSAPublicKey issuerKey) {
+    return new CertificateVerifier(issuerKey).verify(this);
+  }
+  
+  /*
+   * h(r) cut to fit below the modulus; recomputed from the subject and its key so a tampered 
+   * field shows up
+   */
+  int digestOfSubjectAndKey(int modulus) {
+    return digest.digestBelow(concatenateSubjectAndKey(), modulus);
+  }
+  
+  /*
+   * r = subject || modulus || exponent
+   */
+  private Binary concatenateSubjectAndKey() {
+    byte[] bytes = subject.getBytes(StandardCharsets.UTF_8);
+    
+    return concatenateSubjectAndKey(ByteBuffer.wrap(bytes), 0, bytes.length, 
+        subjectPublicKey.getModulus(), subjectPublicKey.getPublicExponent());
+  }
+  
+  /*
+   * r = subject || modulus || exponent, read from the subject bytes in place. The last byte of 
+   * the subject goes next to the modulus, the same as Binary(String, int) does.
+   */
+  static Binary concatenateSubjectAndKey(ByteBuffer subject, int offset, int length, 
+      int modulus, int exponent) {
+    if (length * Binary.BYTESIZE > SUBJECT_BYTE_SIZE * Binary.BYTESIZE) {
+      throw new IllegalArgumentException("string too big");
+    }
+    if (modulus < 0 || exponent < 0) {
+      throw new IllegalArgumentException("none negative arguments required");
+    }
+    
+    int exponentBits = EXPONENT_BYTE_SIZE * Binary.BYTESIZE;
+    int keyBits = exponentBits + MODULUS_BYTE_SIZE * Binary.BYTESIZE;
+    long[] words = new long[(keyBits + SUBJECT_BYTE_SIZE * Binary.BYTESIZE + Long.SIZE - 1) / Long.SIZE];
+    
+    // the key fills the first word exactly: exponent below, modulus above
+    words[0] = exponent | (long) modulus << exponentBits;
+    
+    for (int x = 0; x < length; x++) {
+      int bit = keyBits + x * Binary.BYTESIZE;
+      words[bit >>> 6] |= (subject.get(offset + length - 1 - x) & 0xFFL) << (bit & (Long.SIZE - 1));
+    }
+    
+    return Binary.valueOf(words, keyBits + SUBJECT_BYTE_SIZE * Binary.BYTESIZE);
+  }
+  
+  /**
+   * Returns the digest used to sign and verify this certificate.
+   * 
+   * @return the certificate digest
+   */
+  public Digest getDigest() {
+    return digest;
   }
   
   /**
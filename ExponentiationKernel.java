@@ -0,0 +1,26 @@
+/**
+ * The loop of a batch exponentiation, see {@link BatchExponentiation}.
+ *
+ * Every lane i holds its own odd modulus n[i], the Montgomery constant nPrime[i] = -n^-1 mod 2^32
+ * and its base in Montgomery form with R = 2^32. All lanes share the exponent, so every lane
+ * runs the same sequence of squarings and multiplications and the lanes can be computed side by
+ * side.
+ *
+ * @author cpp270
+ *
+ */
+interface ExponentiationKernel {
+  /**
+   * Computes y[i] = base[i]^exponent mod n[i] for from <= i < to. On entry y[i] holds one in
+   * Montgomery form; on return it holds the result in ordinary form.
+   *
+   * @param n the odd moduli, below 2^31
+   * @param nPrime -n^-1 mod 2^32 of every modulus
+   * @param base the bases in Montgomery form
+   * @param y one in Montgomery form; replaced with the results
+   * @param exponent the shared non negative exponent
+   * @param from the first lane
+   * @param to the lane after the last
+   */
+  void modPow(long[] n, long[] nPrime, long[] base, long[] y, int exponent, int from, int to);
+}
@@ -0,0 +1,112 @@
+/**
+ * A precompiled exponentiation a^x mod n for a fixed exponent x and modulus n.
+ *
+ * The modulus constants are computed once and every {@link #modPow(int)} only runs the
+ * multiplications. Long exponents on odd moduli are recoded into sliding window digits and run
+ * in Montgomery form. Short exponents, such as the usual public exponents up to 65537, need too
+ * few multiplications to repay the conversions into and out of Montgomery form; they, and all
+ * exponents on even moduli, which have no Montgomery form, run with Barrett reduction.
+ *
+ * Instances are immutable and can be shared between threads. Keys build their plans on first
+ * use, see {@link RSAPublicKey#getExponentiationPlan()}.
+ *
+ * @author cpp270
+ *
+ */
+public final class ExponentiationPlan {
+  // the longest exponent that runs with Barrett reduction on an odd modulus
+  static final int SHORT_EXPONENT_BITS = 17;
+
+  private final int exponent;
+  private final int modulus;
+
+  // exactly one of context and barrett is set
+  private final MontgomeryContext context;
+  private final WindowRecoding recoding;
+  private final BarrettContext barrett;
+
+  /**
+   * Compiles the plan for x^<code>exponent</code> mod <code>modulus</code>.
+   *
+   * @param exponent the exponent x
+   * @param modulus the modulus n
+   * @throws IllegalArgumentException if <code>exponent</code> is negative or
+   * <code>modulus</code> is less than 2
+   */
+  public ExponentiationPlan(int exponent, int modulus) {
+    this(exponent, checkedModulus(exponent, modulus));
+  }
+
+  /*
+   * Checks the arguments of the int constructor before the context of the modulus is built
+   */
+  private static BarrettContext checkedModulus(int exponent, int modulus) {
+    if (exponent < 0 || modulus < 2) {
+      throw new IllegalArgumentException("exponent is negative or modulus is not greater than 1");
+    }
+    return new BarrettContext(modulus);
+  }
+
+  /**
+   * Compiles the plan for x^<code>exponent</code> mod n, reusing the Barrett constants of n.
+   *
+   * @param exponent the exponent x
+   * @param modulus the Barrett context of the modulus n
+   * @throws IllegalArgumentException if <code>exponent</code> is negative
+   */
+  public ExponentiationPlan(int exponent, BarrettContext modulus) {
+    if (modulus == null) {
+      throw new NullPointerException("the modulus parameter must be non-null");
+    }
+    if (exponent < 0) {
+      throw new IllegalArgumentException("none negative arguments required");
+    }
+
+    this.exponent = exponent;
+    this.modulus = modulus.getModulus();
+
+    boolean shortExponent = Integer.SIZE - Integer.numberOfLeadingZeros(exponent) 
+        <= SHORT_EXPONENT_BITS;
+    if ((this.modulus & 0x1) == 1 && !shortExponent) {
+      this.context = new MontgomeryContext(this.modulus);
+      this.recoding = WindowRecoding.recode(Binary.toBitArray(exponent),
+          ExponentiationStrategy.SLIDING_WINDOW);
+      this.barrett = null;
+    } else {
+      this.context = null;
+      this.recoding = null;
+      this.barrett = modulus;
+    }
+  }
+
+  /**
+   * Returns the exponent x.
+   *
+   * @return the exponent
+   */
+  public int getExponent() {
+    return exponent;
+  }
+
+  /**
+   * Returns the modulus n.
+   *
+   * @return the modulus
+   */
+  public int getModulus() {
+    return modulus;
+  }
+
+  /**
+   * Computes a^x mod n.
+   *
+   * @param a the non negative base
+   * @return a^x mod n
+   */
+  public int modPow(int a) {
+    if (context != null) {
+      return context.modPow(a, recoding);
+    }
+    return barrett.modPow(a, exponent);
+  }
+}
@@ -0,0 +1,22 @@
+/**
+ * The ways an exponent can be scanned during modular exponentiation.
+ * 
+ * @author cpp270
+ *
+ */
+public enum ExponentiationStrategy {
+  /**
+   * Left-to-right square and multiply; one multiplication per set bit of the exponent.
+   */
+  BINARY,
+  
+  /**
+   * Fixed k-ary windows aligned to multiples of k; one multiplication per non zero window.
+   */
+  FIXED_WINDOW,
+  
+  /**
+   * Sliding windows that always start and end on a set bit; one multiplication per window.
+   */
+  SLIDING_WINDOW
+}
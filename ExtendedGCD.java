@@ -0,0 +1,314 @@
+/**
+ * Greatest common divisor and modular inverse engine used for key setup.
+ *
+ * Native words use the binary (Stein) algorithm, which needs only shifts and subtractions.
+ * Multi-limb values use Lehmer's algorithm, which runs most Euclid steps on the leading 31 bits
+ * in single precision and applies them to the full numbers in one matrix step.
+ *
+ * The inverse entry points only track the one Bezout coefficient they need and return the
+ * inverse directly instead of a result object.
+ *
+ * This class contains only static methods.
+ *
+ * @author cpp270
+ *
+ */
+public final class ExtendedGCD {
+  // bits of the leading digits used by the single precision Lehmer steps
+  private static final int LEHMER_DIGIT_BITS = 31;
+
+  /*
+   * Static class; disable constructor
+   */
+  private ExtendedGCD() {
+  }
+
+  /**
+   * Computes gcd(a, b) with the binary algorithm.
+   *
+   * @param a non negative integer a
+   * @param b non negative integer b
+   * @return the greatest common divisor
+   */
+  public static int gcd(int a, int b) {
+    return (int) gcd((long) a, (long) b);
+  }
+
+  /**
+   * Computes gcd(a, b) with the binary algorithm.
+   *
+   * @param a non negative integer a
+   * @param b non negative integer b
+   * @return the greatest common divisor
+   */
+  public static long gcd(long a, long b) {
+    if (a < 0 || b < 0) {
+      throw new IllegalArgumentException("none negative arguments required");
+    }
+    if (a == 0) {
+      return b;
+    }
+    if (b == 0) {
+      return a;
+    }
+
+    // common factors of two
+    int shift = Long.numberOfTrailingZeros(a | b);
+    a >>>= Long.numberOfTrailingZeros(a);
+
+    do {
+      b >>>= Long.numberOfTrailingZeros(b);
+      if (a > b) {
+        long t = a;
+        a = b;
+        b = t;
+      }
+      b -= a;
+    } while (b != 0);
+
+    return a << shift;
+  }
+
+  /**
+   * Computes the multiplicative inverse of <code>a</code> modulo <code>m</code>.
+   *
+   * @param a non negative integer a
+   * @param m the modulus, greater than 1
+   * @return x such that a*x = 1 mod m and 0 < x < m
+   * @throws ArithmeticException if gcd(a, m) is not 1
+   */
+  public static int inverse(int a, int m) {
+    if (a < 0 || m < 2) {
+      throw new IllegalArgumentException("a is negative or m is not greater than 1");
+    }
+    a = a % m;
+
+    if ((m & 0x1) == 1) {
+      return (int) inverseOdd(a, m);
+    }
+    if ((a & 0x1) == 0) {
+      throw new ArithmeticException("not invertible");
+    }
+    if (a == 1) {
+      return 1;
+    }
+
+    // m is even but a is odd: from x = m^-1 mod a we get m*x - 1 = a*k, so a*(-k) = 1 mod m
+    long x = inverseOdd(m % a, a);
+    long k = ((long) m * x - 1) / a;
+    return (int) (m - k);
+  }
+
+  /**
+   * Computes the multiplicative inverse of <code>a</code> modulo <code>m</code>. Odd moduli use
+   * the binary algorithm; even moduli go through {@link #inverse(BigNatural, BigNatural)}.
+   *
+   * @param a non negative integer a
+   * @param m the modulus, greater than 1
+   * @return x such that a*x = 1 mod m and 0 < x < m
+   * @throws ArithmeticException if gcd(a, m) is not 1
+   */
+  public static long inverse(long a, long m) {
+    if (a < 0 || m < 2) {
+      throw new IllegalArgumentException("a is negative or m is not greater than 1");
+    }
+
+    if ((m & 0x1) == 1) {
+      return inverseOdd(a % m, m);
+    }
+    return inverse(BigNatural.valueOf(a), BigNatural.valueOf(m)).longValue();
+  }
+
+  /*
+   * Binary inverse of a modulo an odd m, 0 <= a < m. Keeps u = x1*a and v = x2*a modulo m and
+   * halves or subtracts until one of them is 1.
+   */
+  private static long inverseOdd(long a, long m) {
+    long u = a;
+    long v = m;
+    long x1 = 1;
+    long x2 = 0;
+
+    while (u != 1 && v != 1) {
+      if (u == 0 || v == 0) {
+        throw new ArithmeticException("not invertible");
+      }
+
+      while ((u & 0x1) == 0) {
+        u >>>= 1;
+        // halve x1 modulo m; x1 + m is even when x1 is odd and fits in 64 unsigned bits
+        x1 = (x1 & 0x1) == 0 ? x1 >>> 1 : (x1 + m) >>> 1;
+      }
+      while ((v & 0x1) == 0) {
+        v >>>= 1;
+        x2 = (x2 & 0x1) == 0 ? x2 >>> 1 : (x2 + m) >>> 1;
+      }
+
+      if (u >= v) {
+        u -= v;
+        x1 -= x2;
+        if (x1 < 0) {
+          x1 += m;
+        }
+      } else {
+        v -= u;
+        x2 -= x1;
+        if (x2 < 0) {
+          x2 += m;
+        }
+      }
+    }
+
+    return u == 1 ? x1 : x2;
+  }
+
+  /**
+   * Computes gcd(a, b) with Lehmer's algorithm.
+   *
+   * @param a natural number a
+   * @param b natural number b
+   * @return the greatest common divisor
+   */
+  public static BigNatural gcd(BigNatural a, BigNatural b) {
+    if (a.compareTo(b) < 0) {
+      BigNatural t = a;
+      a = b;
+      b = t;
+    }
+    if (b.isZero()) {
+      return a;
+    }
+    return lehmer(a, b, false);
+  }
+
+  /**
+   * Computes the multiplicative inverse of <code>b</code> modulo <code>a</code> with Lehmer's
+   * algorithm, tracking only the Bezout coefficient of <code>b</code>.
+   *
+   * @param b natural number b
+   * @param a the modulus, greater than 1
+   * @return x such that b*x = 1 mod a and 0 < x < a
+   * @throws ArithmeticException if gcd(a, b) is not 1
+   */
+  public static BigNatural inverse(BigNatural b, BigNatural a) {
+    if (a.compareTo(BigNatural.ONE) <= 0) {
+      throw new IllegalArgumentException("m is not greater than 1");
+    }
+
+    b = b.mod(a);
+    if (b.isZero()) {
+      throw new ArithmeticException("not invertible");
+    }
+    return lehmer(a, b, true);
+  }
+
+  /*
+   * Lehmer's extended Euclid (Knuth, TAOCP vol. 2, algorithm L) for a > b > 0.
+   *
+   * The remainders are r(i) = s(i)*a + t(i)*b. The signs of t(i) alternate, t(i) having the
+   * sign of (-1)^(i+1), so only the magnitudes t0 = |t(i)| and t1 = |t(i+1)| are kept together
+   * with the step count i. Returns the gcd, or the inverse of b when inverse is set.
+   */
+  private static BigNatural lehmer(BigNatural a, BigNatural b, boolean inverse) {
+    BigNatural r0 = a;
+    BigNatural r1 = b;
+    BigNatural t0 = BigNatural.ZERO;
+    BigNatural t1 = BigNatural.ONE;
+    long i = 0;
+
+    while (!r1.isZero()) {
+      if (r0.bitLength() < Long.SIZE - 1) {
+        // the rest fits in a long: plain Euclid steps in single precision
+        long x = r0.longValue();
+        long y = r1.longValue();
+        while (y != 0) {
+          long q = x / y;
+          long r = x - q * y;
+          x = y;
+          y = r;
+          if (inverse) {
+            BigNatural t = t0.add(t1.multiply(BigNatural.valueOf(q)));
+            t0 = t1;
+            t1 = t;
+          }
+          i++;
+        }
+        r0 = BigNatural.valueOf(x);
+        r1 = BigNatural.ZERO;
+        break;
+      }
+
+      // simulate Euclid on the leading digits while the quotients are certain
+      int shift = r0.bitLength() - LEHMER_DIGIT_BITS;
+      long x = r0.shiftRight(shift).longValue();
+      long y = r1.shiftRight(shift).longValue();
+      long A = 1, B = 0, C = 0, D = 1;
+      long steps = 0;
+
+      while (y + C != 0 && y + D != 0) {
+        long q = Math.floorDiv(x + A, y + C);
+        if (q != Math.floorDiv(x + B, y + D)) {
+          break;
+        }
+        long T = A - q * C;
+        A = C;
+        C = T;
+        T = B - q * D;
+        B = D;
+        D = T;
+        T = x - q * y;
+        x = y;
+        y = T;
+        steps++;
+      }
+
+      if (B == 0) {
+        // no step was certain; do one full precision division step
+        BigNatural[] qr = r0.divideAndRemainder(r1);
+        r0 = r1;
+        r1 = qr[1];
+        if (inverse) {
+          BigNatural t = t0.add(qr[0].multiply(t1));
+          t0 = t1;
+          t1 = t;
+        }
+        i++;
+      } else {
+        BigNatural n0 = combine(A, B, r0, r1);
+        BigNatural n1 = combine(C, D, r0, r1);
+        r0 = n0;
+        r1 = n1;
+        if (inverse) {
+          // each row has entries of opposite sign, as do t(i) and t(i+1), so magnitudes add
+          BigNatural m0 = t0.multiply(BigNatural.valueOf(Math.abs(A)))
+              .add(t1.multiply(BigNatural.valueOf(Math.abs(B))));
+          BigNatural m1 = t0.multiply(BigNatural.valueOf(Math.abs(C)))
+              .add(t1.multiply(BigNatural.valueOf(Math.abs(D))));
+          t0 = m0;
+          t1 = m1;
+        }
+        i += steps;
+      }
+    }
+
+    if (!inverse) {
+      return r0;
+    }
+    if (!r0.equals(BigNatural.ONE)) {
+      throw new ArithmeticException("not invertible");
+    }
+
+    // t(i) is negative when i is even
+    return (i & 0x1) == 1 ? t0 : a.subtract(t0);
+  }
+
+  /*
+   * Computes X*u + Y*v where X and Y have opposite signs (or one is zero) and the result is
+   * known to be non negative
+   */
+  private static BigNatural combine(long X, long Y, BigNatural u, BigNatural v) {
+    BigNatural xu = u.multiply(BigNatural.valueOf(Math.abs(X)));
+    BigNatural yv = v.multiply(BigNatural.valueOf(Math.abs(Y)));
+    return X >= 0 && Y <= 0 ? xu.subtract(yv) : yv.subtract(xu);
+  }
+}
@@ -0,0 +1,217 @@
+import java.util.Random;
+
+/**
+ * Searches for probable primes of a given bit length by stepping through odd numbers from one
+ * random odd start point.
+ * 
+ * The search keeps the residues of the current candidate modulo the first 
+ * {@link #SMALL_PRIME_COUNT} primes. Moving to the next candidate only adds 2 to each residue, 
+ * and any candidate with a zero residue is rejected without running Miller-Rabin.
+ * 
+ * Instances are not thread safe.
+ * 
+ * @author cpp270
+ *
+ */
+public class IncrementalPrimeSearch {
+  // number of small primes in the residue table
+  public static final int SMALL_PRIME_COUNT = 2048;
+  
+  // the first SMALL_PRIME_COUNT primes, 2 included
+  static final int[] SMALL_PRIMES = generateSmallPrimes(SMALL_PRIME_COUNT);
+  
+  private final int bitLength;
+  private final Random random;
+  
+  // odd small primes that are smaller than every candidate
+  private final int[] primes;
+  private final int[] residues;
+  
+  private BigNatural start;
+  // candidate = start + delta; delta may not exceed room
+  private int delta;
+  private int room;
+  private boolean fresh;
+  
+  // statistics
+  private long candidatesSieved = 0;
+  private long candidatesTested = 0;
+  
+  /**
+   * Creates a search for primes of exactly <code>bitLength</code> bits.
+   * 
+   * @param bitLength the bit length of the primes, at least 2
+   * @param random source of randomness for the start points and the Miller-Rabin witnesses
+   */
+  public IncrementalPrimeSearch(int bitLength, Random random) {
+    if (bitLength < 2) {
+      throw new IllegalArgumentException("bit length of at least 2 required");
+    }
+    if (random == null) {
+      throw new NullPointerException("the random parameter must be non-null");
+    }
+    
+    this.bitLength = bitLength;
+    this.random = random;
+    
+    // every candidate is at least 2^(bitLength-1), so only primes below that can divide one
+    int count = 0;
+    for (int i = 1; i < SMALL_PRIMES.length; i++) {
+      if (bitLength > Integer.SIZE || SMALL_PRIMES[i] < (1L << (bitLength - 1))) {
+        count++;
+      }
+    }
+    this.primes = new int[count];
+    System.arraycopy(SMALL_PRIMES, 1, primes, 0, count);
+    this.residues = new int[count];
+    
+    restart();
+  }
+  
+  /*
+   * Picks a new random odd start point with the top bit set and computes its residues
+   */
+  private void restart() {
+    BigNatural r = BigNatural.random(bitLength - 1, random);
+    start = r.add(BigNatural.ONE.shiftLeft(bitLength - 1));
+    if (!start.isOdd()) {
+      start = start.add(BigNatural.ONE);
+    }
+    
+    for (int i = 0; i < primes.length; i++) {
+      residues[i] = start.mod(primes[i]);
+    }
+    
+    // how far we can step before the candidate gets one bit longer
+    BigNatural max = BigNatural.ONE.shiftLeft(bitLength).subtract(BigNatural.ONE).subtract(start);
+    room = max.bitLength() >= Integer.SIZE - 1 ? Integer.MAX_VALUE - 1 : max.intValue();
+    
+    delta = 0;
+    fresh = true;
+  }
+  
+  /**
+   * Returns the next candidate that is not divisible by any of the small primes.
+   * 
+   * @return an odd candidate of exactly the requested bit length
+   */
+  public BigNatural nextCandidate() {
+    while (true) {
+      if (!fresh) {
+        delta += 2;
+        for (int i = 0; i < primes.length; i++) {
+          int r = residues[i] + 2;
+          if (r >= primes[i]) {
+            r -= primes[i];
+          }
+          residues[i] = r;
+        }
+      }
+      fresh = false;
+      
+      if (delta > room) {
+        restart();
+      }
+      
+      candidatesSieved++;
+      
+      boolean composite = false;
+      for (int i = 0; i < primes.length && !composite; i++) {
+        composite = residues[i] == 0;
+      }
+      
+      if (!composite) {
+        return delta == 0 ? start : start.add(BigNatural.valueOf(delta));
+      }
+    }
+  }
+  
+  /**
+   * Returns the next candidate that passes the sieve and <code>numberOfTests</code> rounds of 
+   * Miller-Rabin with random witnesses.
+   * 
+   * @param numberOfTests the number of Miller-Rabin rounds
+   * @return a probable prime of exactly the requested bit length
+   */
+  public BigNatural nextProbablePrime(int numberOfTests) {
+    while (true) {
+      BigNatural n = nextCandidate();
+      
+      if (isProbablePrime(n, numberOfTests)) {
+        return n;
+      }
+    }
+  }
+  
+  /**
+   * Runs <code>numberOfTests</code> rounds of Miller-Rabin with random witnesses on a candidate
+   * returned by {@link #nextCandidate()}. Candidates below 2^63 get the deterministic test 
+   * instead.
+   * 
+   * @param n the candidate
+   * @param numberOfTests the number of Miller-Rabin rounds
+   * @return true if <code>n</code> is perhaps a prime
+   */
+  public boolean isProbablePrime(BigNatural n, int numberOfTests) {
+    candidatesTested++;
+    
+    // below 2^63 the answer can be exact with a fixed witness set
+    if (n.bitLength() < Long.SIZE) {
+      return RSAMath.DeterministicPrimalityTesting(n.longValue());
+    }
+    
+    BigNatural range = n.subtract(BigNatural.valueOf(3));
+    
+    for (int i = 0; i < numberOfTests; i++) {
+      // witness a in 2 <= a <= n - 2
+      BigNatural a = BigNatural.random(bitLength, random).mod(range).add(BigNatural.TWO);
+      
+      if (!RSAMath.PrimalityTesting(a, n)) {
+        return false;
+      }
+    }
+    return true;
+  }
+  
+  /**
+   * 
+   * @return the number of candidates looked at by the sieve so far
+   */
+  public long getCandidatesSieved() {
+    return candidatesSieved;
+  }
+  
+  /**
+   * 
+   * @return the number of candidates that made it through the sieve to Miller-Rabin so far
+   */
+  public long getCandidatesTested() {
+    return candidatesTested;
+  }
+  
+  /*
+   * Sieve of Eratosthenes, growing the bound until it holds enough primes
+   */
+  private static int[] generateSmallPrimes(int count) {
+    int bound = 16 * count;
+    while (true) {
+      boolean[] composite = new boolean[bound];
+      int[] result = new int[count];
+      int found = 0;
+      
+      for (int i = 2; i < bound && found < count; i++) {
+        if (!composite[i]) {
+          result[found++] = i;
+          for (long j = (long) i * i; j < bound; j += i) {
+            composite[(int) j] = true;
+          }
+        }
+      }
+      
+      if (found == count) {
+        return result;
+      }
+      bound *= 2;
+    }
+  }
+}
@@ -0,0 +1,67 @@
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A trace sink that prints tables through a {@link Logger}, one log record per line.
+ * 
+ * @author cpp270
+ *
+ */
+public class LoggerTraceSink implements TraceSink {
+  private final Logger logger;
+  private final Level level;
+  
+  // width of each column of the current table
+  private int[] widths = new int[0];
+  
+  /**
+   * Creates a sink writing to <code>logger</code> at <code>level</code>.
+   * 
+   * @param logger the logger
+   * @param level the level of every record
+   */
+  public LoggerTraceSink(Logger logger, Level level) {
+    if (logger == null || level == null) {
+      throw new NullPointerException("the logger and level parameters must be non-null");
+    }
+    this.logger = logger;
+    this.level = level;
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return logger.isLoggable(level);
+  }
+
+  @Override
+  public void message(String text) {
+    logger.log(level, text);
+  }
+
+  @Override
+  public void beginTable(String title, String... columns) {
+    logger.log(level, ">> " + title);
+    
+    widths = new int[columns.length];
+    StringBuilder b = new StringBuilder();
+    for (int i = 0; i < columns.length; i++) {
+      widths[i] = Math.max(columns[i].length(), 5) + 1;
+      b.append(String.format("%" + widths[i] + "s", columns[i]));
+    }
+    logger.log(level, b.toString());
+  }
+
+  @Override
+  public void row(long... values) {
+    StringBuilder b = new StringBuilder();
+    for (int i = 0; i < values.length; i++) {
+      b.append(String.format("%" + (i < widths.length ? widths[i] : 6) + "d", values[i]));
+    }
+    logger.log(level, b.toString());
+  }
+
+  @Override
+  public void endTable(String summary) {
+    logger.log(level, "<< " + summary);
+  }
+}
@@ -0,0 +1,167 @@
+/**
+ * Montgomery arithmetic modulo a fixed odd modulus that fits in a long.
+ *
+ * Values are kept in Montgomery form a*R mod n with R = 2^64. A modular multiplication is a
+ * 128 bit product, taken as its two halves with {@link Math#multiplyHigh(long, long)}, followed
+ * by one more high product and at most one correction; there is no division and no overflow
+ * for any modulus below 2^63.
+ *
+ * Instances are immutable and can be shared between threads.
+ *
+ * @author cpp270
+ *
+ * @see MontgomeryContext
+ */
+public final class LongMontgomeryContext {
+  private final long modulus;
+  // n^-1 mod 2^64
+  private final long nInverse;
+  // R mod n, i.e. one in Montgomery form
+  private final long one;
+  // R^2 mod n, used to convert into Montgomery form
+  private final long rSquared;
+
+  /**
+   * Creates a context for the odd modulus <code>n</code>.
+   *
+   * @param n the modulus
+   * @throws IllegalArgumentException if <code>n</code> is not a positive odd number
+   */
+  public LongMontgomeryContext(long n) {
+    if (n <= 0 || (n & 0x1) == 0) {
+      throw new IllegalArgumentException("odd positive modulus required");
+    }
+
+    this.modulus = n;
+    this.nInverse = inverseModWord(n);
+    // 2^64 mod n, with 2^64 - n read as an unsigned number
+    this.one = Long.remainderUnsigned(-n, n);
+
+    // R^2 mod n by doubling R mod n another 64 times
+    long r = one;
+    for (int i = 0; i < Long.SIZE; i++) {
+      r = addMod(r, r);
+    }
+    this.rSquared = r;
+  }
+
+  /**
+   * Computes n^-1 mod 2^64 for odd n with Newton's iteration; each step doubles the number of
+   * correct low bits, starting from the 3 bits that n itself gets right.
+   *
+   * @param n an odd number
+   * @return the inverse of n modulo 2^64
+   */
+  static long inverseModWord(long n) {
+    long inv = n;
+    for (int i = 0; i < 5; i++) {
+      inv *= 2 - n * inv;
+    }
+    return inv;
+  }
+
+  /**
+   *
+   * @return the modulus n
+   */
+  public long getModulus() {
+    return modulus;
+  }
+
+  /**
+   *
+   * @return one in Montgomery form, i.e. R mod n
+   */
+  public long getOne() {
+    return one;
+  }
+
+  /**
+   * Converts <code>a</code> into Montgomery form.
+   *
+   * @param a a non negative value
+   * @return a*R mod n
+   */
+  public long toMontgomery(long a) {
+    if (a < 0) {
+      throw new IllegalArgumentException("none negative arguments required");
+    }
+    return multiply(a % modulus, rSquared);
+  }
+
+  /**
+   * Converts <code>a</code> out of Montgomery form.
+   *
+   * @param a a value in Montgomery form
+   * @return a*R^-1 mod n
+   */
+  public long fromMontgomery(long a) {
+    return multiply(a, 1);
+  }
+
+  /**
+   * Montgomery product of two values in Montgomery form.
+   *
+   * With t = a*b and m = t*n^-1 mod 2^64 the low halves of t and m*n are equal, so
+   * (t - m*n) / 2^64 is the difference of the high halves, which lies in -n < u < n.
+   *
+   * @param a value less than n
+   * @param b value less than n
+   * @return a*b*R^-1 mod n
+   */
+  public long multiply(long a, long b) {
+    long high = Math.multiplyHigh(a, b);
+    long m = a * b * nInverse;
+    // unsigned high half of m*n; m may have its top bit set, n never does
+    long mnHigh = Math.multiplyHigh(m, modulus) + ((m >> 63) & modulus);
+
+    long u = high - mnHigh;
+    return u < 0 ? u + modulus : u;
+  }
+
+  /**
+   * Raises a value in Montgomery form to the power <code>x</code> scanning the exponent right
+   * to left. The result stays in Montgomery form.
+   *
+   * @param a value in Montgomery form
+   * @param x non negative exponent
+   * @return a^x in Montgomery form
+   */
+  public long power(long a, long x) {
+    long y = one;
+
+    while (x != 0) {
+      if ((x & 0x1) == 1) {
+        y = multiply(y, a);
+      }
+      x >>>= 1;
+      if (x != 0) {
+        a = multiply(a, a);
+      }
+    }
+
+    return y;
+  }
+
+  /**
+   * Computes a^x mod n.
+   *
+   * @param a the base, non negative
+   * @param x the exponent, non negative
+   * @return a^x mod n
+   */
+  public long modPow(long a, long x) {
+    if (x < 0) {
+      throw new IllegalArgumentException("none negative arguments required");
+    }
+    return fromMontgomery(power(toMontgomery(a), x));
+  }
+
+  /*
+   * a + b mod n for a, b < n < 2^63; the sum fits in 64 unsigned bits
+   */
+  private long addMod(long a, long b) {
+    long s = a + b;
+    return Long.compareUnsigned(s, modulus) >= 0 ? s - modulus : s;
+  }
+}
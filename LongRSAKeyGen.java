@@ -0,0 +1,112 @@
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * This class generates public/private key pairs with moduli of up to 62 bits.
+ *
+ * The keys are longs, so every key operation stays on primitive arithmetic; see
+ * {@link LongMontgomeryContext}. The private key carries its CRT form.
+ *
+ * @author cpp270
+ *
+ * @see RSAKeyGen
+ */
+public class LongRSAKeyGen {
+  // the primes stay ints, so n = p*q stays below 2^62
+  public static final int MAX_PRIME_SIZE = 31;
+
+  private final LongRSAPublicKey publicKey;
+  private final LongRSAPrivateCrtKey privateKey;
+
+  /**
+   * Creates a new public/private key pair from primes found by <code>generator</code> with the
+   * public exponent {@link RSAKeyGen#DEFAULT_PUBLIC_EXPONENT}.
+   *
+   * @param generator the prime generator
+   * @throws NullPointerException if <code>generator</code> is null
+   * @throws IllegalArgumentException if the primes are longer than {@link #MAX_PRIME_SIZE} bits
+   * or too short for the public exponent
+   */
+  public LongRSAKeyGen(PrimeGenerator generator) {
+    this(generator, RSAKeyGen.DEFAULT_PUBLIC_EXPONENT);
+  }
+
+  /**
+   * Creates a new public/private key pair from primes found by <code>generator</code> with the
+   * fixed public exponent <code>publicExponent</code>.
+   *
+   * The primes are chosen so that gcd(e, p-1) = gcd(e, q-1) = 1, so d is found with a single
+   * inversion. p and q are searched for at the same time.
+   *
+   * @param generator the prime generator
+   * @param publicExponent the public exponent e, odd and at least 3
+   * @throws NullPointerException if <code>generator</code> is null
+   * @throws IllegalArgumentException if the primes are longer than {@link #MAX_PRIME_SIZE} bits,
+   * if e is even or less than 3, if e is not below phi(n) for every pair of primes, or if fewer
+   * than two primes p of the size have gcd(e, p-1) = 1
+   */
+  public LongRSAKeyGen(PrimeGenerator generator, long publicExponent) {
+    if (generator == null) {
+      throw new NullPointerException("the generator parameter must be non-null");
+    }
+    checkPublicExponent(publicExponent, generator.getBitLength());
+
+    // search for p in the background while this thread searches for q
+    CompletableFuture<Prime> futureP = generator.generateAsync(publicExponent);
+    Prime q = generator.generate(publicExponent);
+    Prime p = futureP.join();
+
+    q = RSAKeyGen.drawDistinctPrime(generator, publicExponent, p, q);
+
+    int pInt = p.getAsInt();
+    int qInt = q.getAsInt();
+    long n = (long) pInt * qInt;
+    long phiN = (long) (pInt - 1) * (qInt - 1);
+
+    // e is relatively prime with p-1 and q-1, hence with phi(n)
+    long d = ExtendedGCD.inverse(publicExponent, phiN);
+
+    int dP = (int) (d % (pInt - 1));
+    int dQ = (int) (d % (qInt - 1));
+    int qInv = ExtendedGCD.inverse(qInt, pInt);
+
+    this.publicKey = new LongRSAPublicKey(n, publicExponent);
+    this.privateKey = new LongRSAPrivateCrtKey(n, d, pInt, qInt, dP, dQ, qInv);
+  }
+
+  /*
+   * Checks the prime size and the fixed public exponent e for primes of primeBitLength bits
+   */
+  static void checkPublicExponent(long publicExponent, int primeBitLength) {
+    if (primeBitLength > MAX_PRIME_SIZE) {
+      throw new IllegalArgumentException("prime size too big for long keys");
+    }
+    if (publicExponent < 3 || (publicExponent & 0x1) == 0) {
+      throw new IllegalArgumentException("public exponent must be odd and at least 3");
+    }
+    // phi(n) >= 2^(2*(bits-1)), so e is below it when it has fewer bits than that
+    if (Long.SIZE - Long.numberOfLeadingZeros(publicExponent) > 2 * (primeBitLength - 1)) {
+      throw new IllegalArgumentException("public exponent too big for the prime size");
+    }
+    if (!PrimeGenerator.hasDistinctPrimes(primeBitLength, publicExponent)) {
+      throw new IllegalArgumentException("public exponent leaves fewer than two primes of the size");
+    }
+  }
+
+  /**
+   *
+   * @return RSA public key
+   */
+  public LongRSAPublicKey getPublicKey() {
+    return publicKey;
+  }
+
+  /**
+   * The returned key carries its CRT form, so private key operations can use
+   * {@link RSAMath#PrivateExponentiation(long, LongRSAPrivateKey)}.
+   *
+   * @return RSA private key
+   */
+  public LongRSAPrivateKey getPrivateKey() {
+    return privateKey;
+  }
+}
@@ -0,0 +1,113 @@
+/**
+ * An immutable private key for moduli of up to 62 bits that, in addition to the modulus n and 
+ * private exponent d, keeps the Chinese Remainder Theorem form of the key: the primes p and q, 
+ * the exponents d mod (p-1) and d mod (q-1), and the coefficient q^-1 mod p.
+ * 
+ * The primes are below 2^31, so the two half size exponentiations run on the int 
+ * {@link ExponentiationPlan}s.
+ * 
+ * @author cpp270
+ *
+ * @see RSAPrivateCrtKey
+ */
+public class LongRSAPrivateCrtKey extends LongRSAPrivateKey {
+  private final int primeP;
+  private final int primeQ;
+  private final int primeExponentP;
+  private final int primeExponentQ;
+  private final int crtCoefficient;
+  
+  // a^dP mod p and a^dQ mod q; built on first use like the context of n
+  private volatile ExponentiationPlan planP;
+  private volatile ExponentiationPlan planQ;
+  
+  /**
+   * Creates a new CRT private key object.
+   * 
+   * @param modulus the public modulus n
+   * @param privateExponent the private exponent d
+   * @param primeP the prime p
+   * @param primeQ the prime q
+   * @param primeExponentP d mod (p-1)
+   * @param primeExponentQ d mod (q-1)
+   * @param crtCoefficient q^-1 mod p
+   */
+  public LongRSAPrivateCrtKey(long modulus, long privateExponent, int primeP, int primeQ, 
+      int primeExponentP, int primeExponentQ, int crtCoefficient) {
+    super(modulus, privateExponent);
+    this.primeP = primeP;
+    this.primeQ = primeQ;
+    this.primeExponentP = primeExponentP;
+    this.primeExponentQ = primeExponentQ;
+    this.crtCoefficient = crtCoefficient;
+  }
+
+  /**
+   * Returns the prime p.
+   *
+   * @return the prime p.
+   */
+  public int getPrimeP() {
+    return primeP;
+  }
+
+  /**
+   * Returns the prime q.
+   *
+   * @return the prime q.
+   */
+  public int getPrimeQ() {
+    return primeQ;
+  }
+
+  /**
+   * Returns the exponent d mod (p-1).
+   *
+   * @return the prime exponent for p.
+   */
+  public int getPrimeExponentP() {
+    return primeExponentP;
+  }
+
+  /**
+   * Returns the exponent d mod (q-1).
+   *
+   * @return the prime exponent for q.
+   */
+  public int getPrimeExponentQ() {
+    return primeExponentQ;
+  }
+
+  /**
+   * Returns the coefficient q^-1 mod p.
+   *
+   * @return the CRT coefficient.
+   */
+  public int getCrtCoefficient() {
+    return crtCoefficient;
+  }
+  
+  /*
+   * The plan for a^dP mod p
+   */
+  ExponentiationPlan getExponentiationPlanP() {
+    ExponentiationPlan p = planP;
+    if (p == null) {
+      p = new ExponentiationPlan(primeExponentP, primeP);
+      planP = p;
+    }
+    return p;
+  }
+  
+  /*
+   * The plan for a^dQ mod q
+   */
+  ExponentiationPlan getExponentiationPlanQ() {
+    ExponentiationPlan p = planQ;
+    if (p == null) {
+      p = new ExponentiationPlan(primeExponentQ, primeQ);
+      planQ = p;
+    }
+    return p;
+  }
+}
@@ -0,0 +1,62 @@
+/**
+ * An immutable container class that contains private exponent d and modulus n information for
+ * moduli of up to 63 bits.
+ * 
+ * The key builds its {@link LongMontgomeryContext} on first use and keeps it.
+ * 
+ * @author cpp270
+ *
+ * @see RSAPrivateKey
+ */
+public class LongRSAPrivateKey {
+  private final long privateExponent;
+  private final long modulus;
+  
+  // built on first use; racing threads build equal contexts, so no lock is needed
+  private volatile LongMontgomeryContext context;
+  
+  /**
+   * Creates a new private key object.
+   * 
+   * @param modulus the public modulus n, odd
+   * @param privateExponent the private exponent d
+   */
+  public LongRSAPrivateKey(long modulus, long privateExponent){
+    this.modulus = modulus;
+    this.privateExponent = privateExponent;
+  }
+
+  /**
+   * Returns the modulus n.
+   *
+   * @return the modulus.
+   */
+  public long getModulus() {
+    return modulus;
+  }
+  
+  /**
+   * Returns the private exponent d.
+   *
+   * @return the private exponent.
+   */
+  public long getPrivateExponent() {
+    return privateExponent;
+  }
+  
+  /**
+   * Returns the Montgomery context of the modulus, building it on the first call.
+   * 
+   * @return the Montgomery context of n
+   * @throws IllegalArgumentException if the modulus is not a positive odd number
+   */
+  public LongMontgomeryContext getMontgomeryContext() {
+    LongMontgomeryContext c = context;
+    if (c == null) {
+      c = new LongMontgomeryContext(modulus);
+      context = c;
+    }
+    return c;
+  }
+
+}
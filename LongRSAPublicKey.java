@@ -0,0 +1,61 @@
+/**
+ * An immutable container class that contains public exponent e and modulus n information for 
+ * moduli of up to 63 bits.
+ * 
+ * The key builds its {@link LongMontgomeryContext} on first use and keeps it.
+ * 
+ * @author cpp270
+ *
+ * @see RSAPublicKey
+ */
+public class LongRSAPublicKey {
+  private final long publicExponent;
+  private final long modulus;
+  
+  // built on first use; racing threads build equal contexts, so no lock is needed
+  private volatile LongMontgomeryContext context;
+  
+  /**
+   * Creates a new public key object.
+   * 
+   * @param modulus the public modulus n, odd
+   * @param publicExponent the public exponent e
+   */
+  public LongRSAPublicKey(long modulus, long publicExponent){
+    this.modulus = modulus;
+    this.publicExponent = publicExponent;
+  }
+
+  /**
+   * Returns the modulus n.
+   *
+   * @return the modulus.
+   */
+  public long getModulus() {
+    return modulus;
+  }
+
+  /**
+   * Returns the public exponent e.
+   *
+   * @return the public exponent.
+   */
+  public long getPublicExponent() {
+    return publicExponent;
+  }
+  
+  /**
+   * Returns the Montgomery context of the modulus, building it on the first call.
+   * 
+   * @return the Montgomery context of n
+   * @throws IllegalArgumentException if the modulus is not a positive odd number
+   */
+  public LongMontgomeryContext getMontgomeryContext() {
+    LongMontgomeryContext c = context;
+    if (c == null) {
+      c = new LongMontgomeryContext(modulus);
+      context = c;
+    }
+    return c;
+  }
+}
@@ -0,0 +1,221 @@
+/**
+ * Montgomery arithmetic modulo a fixed odd modulus that fits in an int.
+ * 
+ * Values are kept in Montgomery form a*R mod n with R = 2^32, so a modular multiplication is a
+ * 64 bit product followed by a shift and at most one subtraction; there is no division.
+ * The modulus has to be below 2^31 so that the intermediate sum t + m*n stays below 2^64.
+ * 
+ * Instances are immutable and can be shared between threads.
+ * 
+ * @author cpp270
+ *
+ */
+public final class MontgomeryContext {
+  private static final long MASK = 0xFFFFFFFFL;
+  
+  private final long modulus;
+  // -n^-1 mod 2^32
+  private final long nPrime;
+  // R mod n, i.e. one in Montgomery form
+  private final long one;
+  // R^2 mod n, used to convert into Montgomery form
+  private final long rSquared;
+  
+  /**
+   * Creates a context for the odd modulus <code>n</code>.
+   * 
+   * @param n the modulus
+   * @throws IllegalArgumentException if <code>n</code> is not a positive odd number
+   */
+  public MontgomeryContext(int n) {
+    if (n <= 0 || (n & 0x1) == 0) {
+      throw new IllegalArgumentException("odd positive modulus required");
+    }
+    
+    this.modulus = n;
+    this.nPrime = (-inverseModWord(n)) & MASK;
+    this.one = (1L << 32) % modulus;
+    this.rSquared = (one * one) % modulus;
+  }
+  
+  /**
+   * Computes n^-1 mod 2^32 for odd n with Newton's iteration; each step doubles the number of 
+   * correct low bits, starting from the 3 bits that n itself gets right.
+   * 
+   * @param n an odd number
+   * @return the inverse of n modulo 2^32
+   */
+  static int inverseModWord(int n) {
+    int inv = n;
+    for (int i = 0; i < 4; i++) {
+      inv *= 2 - n * inv;
+    }
+    return inv;
+  }
+  
+  /**
+   * 
+   * @return the modulus n
+   */
+  public int getModulus() {
+    return (int) modulus;
+  }
+  
+  /**
+   * 
+   * @return one in Montgomery form, i.e. R mod n
+   */
+  public long getOne() {
+    return one;
+  }
+  
+  /**
+   * Raises a value in Montgomery form to the power <code>x</code> scanning the exponent right 
+   * to left. The result stays in Montgomery form.
+   * 
+   * @param a value in Montgomery form
+   * @param x non negative exponent
+   * @return a^x in Montgomery form
+   */
+  public long power(long a, long x) {
+    long y = one;
+    
+    while (x != 0) {
+      if ((x & 0x1) == 1) {
+        y = multiply(y, a);
+      }
+      x >>>= 1;
+      if (x != 0) {
+        a = multiply(a, a);
+      }
+    }
+    
+    return y;
+  }
+  
+  /**
+   * Converts <code>a</code> into Montgomery form.
+   * 
+   * @param a a non negative value
+   * @return a*R mod n
+   */
+  public long toMontgomery(int a) {
+    if (a < 0) {
+      throw new IllegalArgumentException("none negative arguments required");
+    }
+    return multiply(a % modulus, rSquared);
+  }
+  
+  /**
+   * Converts <code>a</code> out of Montgomery form.
+   * 
+   * @param a a value in Montgomery form
+   * @return a*R^-1 mod n
+   */
+  public int fromMontgomery(long a) {
+    return (int) multiply(a, 1);
+  }
+  
+  /**
+   * Montgomery product of two values in Montgomery form.
+   * 
+   * @param a value less than n
+   * @param b value less than n
+   * @return a*b*R^-1 mod n
+   */
+  public long multiply(long a, long b) {
+    long t = a * b;
+    long m = ((t & MASK) * nPrime) & MASK;
+    long u = (t + m * modulus) >>> 32;
+    
+    return u >= modulus ? u - modulus : u;
+  }
+  
+  /**
+   * Computes a^x mod n with sliding windows.
+   * 
+   * @param a the base
+   * @param x the exponent converted to binary
+   * @return a^x mod n
+   * @see RSAMath#FastExponentiation(int, int[], int)
+   */
+  public int modPow(int a, int[] x) {
+    return modPow(a, x, ExponentiationStrategy.SLIDING_WINDOW);
+  }
+  
+  /**
+   * Computes a^x mod n scanning the exponent with the given strategy.
+   * 
+   * @param a the base
+   * @param x the exponent converted to binary
+   * @param strategy how to scan the exponent
+   * @return a^x mod n
+   */
+  public int modPow(int a, int[] x, ExponentiationStrategy strategy) {
+    if (strategy == ExponentiationStrategy.BINARY) {
+      return modPowBinary(a, x);
+    }
+    return modPow(a, WindowRecoding.recode(x, strategy));
+  }
+  
+  /**
+   * Computes a^x mod n for an already recoded exponent. The odd powers of the base are 
+   * precomputed, then every digit costs one multiplication.
+   * 
+   * The base is converted into Montgomery form once, the loop works entirely in Montgomery 
+   * form, and the result is converted back once.
+   * 
+   * @param a the base
+   * @param x the recoded exponent
+   * @return a^x mod n
+   */
+  public int modPow(int a, WindowRecoding x) {
+    int count = x.getDigitCount();
+    if (count == 0) {
+      return fromMontgomery(one);
+    }
+    
+    // odd powers a, a^3, a^5, ...
+    long[] table = new long[x.getTableSize()];
+    table[0] = toMontgomery(a);
+    if (table.length > 1) {
+      long square = multiply(table[0], table[0]);
+      for (int i = 1; i < table.length; i++) {
+        table[i] = multiply(table[i-1], square);
+      }
+    }
+    
+    long y = table[x.getValue(0) >>> 1];
+    for (int k = 1; k < count; k++) {
+      for (int i = x.getPosition(k-1) - x.getPosition(k); i > 0; i--) {
+        y = multiply(y, y);
+      }
+      y = multiply(y, table[x.getValue(k) >>> 1]);
+    }
+    for (int i = x.getPosition(count-1); i > 0; i--) {
+      y = multiply(y, y);
+    }
+    
+    return fromMontgomery(y);
+  }
+  
+  /*
+   * Plain left-to-right square and multiply in Montgomery form
+   */
+  private int modPowBinary(int a, int[] x) {
+    long base = toMontgomery(a);
+    long y = one;
+    
+    for (int i = x.length-1; i >= 0; i--) {
+      // squaring
+      y = multiply(y, y);
+      
+      if (x[i] == 1) {
+        // multiplying
+        y = multiply(y, base);
+      }
+    }
+    
+    return fromMontgomery(y);
+  }
+}
@@ -0,0 +1,37 @@
+/**
+ * A trace sink that discards everything. {@link #isEnabled()} is constant so guarded trace 
+ * code is removed by the JIT.
+ * 
+ * @author cpp270
+ *
+ */
+public final class NullTraceSink implements TraceSink {
+  /**
+   * The only instance; also available as {@link TraceSink#NONE}.
+   */
+  public static final NullTraceSink INSTANCE = new NullTraceSink();
+  
+  private NullTraceSink() {
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return false;
+  }
+
+  @Override
+  public void message(String text) {
+  }
+
+  @Override
+  public void beginTable(String title, String... columns) {
+  }
+
+  @Override
+  public void row(long... values) {
+  }
+
+  @Override
+  public void endTable(String summary) {
+  }
+}
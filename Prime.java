@@ -1,16 +1,10 @@
 import java.util.Random;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 /**
  * Utility class responsible for generating prime numbers of size {@link #SIZE}
  * @author cpp270
  *
  */
 public class Prime {
-  // use a logger instead of System.out.println
-  private static final Logger logger = 
-      Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
-  
   // size of the prime in bits
   private final static int SIZE = 7;
 
@@ -32,10 +26,11 @@ public class Prime {
     if (perhapsPrime) {
       // We got a prime on the first try so we need to pick a number thats not a prime and    
       // run the test till it returns false. This is done in order to generate the required trace printout.
-      // Should be on the first try.
-      
-      Binary bNotPrime = new Binary(48, 7);
-      while(TestIfPrime(bNotPrime, NUMTESTS));
+      // Should be on the first try. Without a trace there is nothing to show, so skip it.
+      if (RSAMath.getTraceSink().isEnabled()) {
+        Binary bNotPrime = new Binary(48, 7);
+        while(TestIfPrime(bNotPrime, NUMTESTS));
+      }
     } else {
       // we did not find a prime on the first try so we need to keep looking for a prime
       while(!perhapsPrime) {
@@ -49,14 +44,55 @@ public class Prime {
     bitPrime = new Binary(b);
   }
   
+  /**
+   * Creates a new prime number of exactly <code>Size</code> bits with the probability of 
+   * 1 - 1 / 2^{@link #NUMTESTS}.
+   * 
+   * Unlike {@link #Prime()} the candidates are not drawn at random one by one: the search 
+   * starts at one random odd number and steps through the following odd numbers, rejecting 
+   * those with a small prime factor before running Miller-Rabin.
+   * 
+   * @param Size the size of the prime in bits
+   * @see IncrementalPrimeSearch
+   */
+  public Prime(int Size) {
+    this(new IncrementalPrimeSearch(Size, new Random()).nextProbablePrime(NUMTESTS));
+  }
+  
+  /*
+   * Wraps an already found prime
+   */
+  Prime(BigNatural value) {
+    bitPrime = value.toBinary();
+  }
+  
   /**
    * Returns a 32 bit integer value of the prime.
    * 
    * @return the prime number as integer
+   * @throws IllegalArgumentException if the prime does not fit in an integer
    */
   public int getAsInt() {
     return bitPrime.toInt();
   }
+  
+  /**
+   * Returns the value of the prime as a natural number of any size.
+   * 
+   * @return the prime number
+   */
+  public BigNatural getAsBigNatural() {
+    return BigNatural.valueOf(bitPrime);
+  }
+  
+  /**
+   * Returns the size of the prime in bits.
+   * 
+   * @return the bit length
+   */
+  public int bitLength() {
+    return bitPrime.length();
+  }
 
   /**
    * Generates a random odd integer of the specified size.
@@ -76,8 +112,12 @@ public class Prime {
     bitArray[0] = 1;
     bitArray[Size-1] = 1;
     
-    logger.info("Line #104");
-    logger.info(String.format("%s %30s", "Random Number", "Least Significant Bit"));
+    TraceSink trace = RSAMath.getTraceSink();
+    boolean tracing = trace.isEnabled();
+    if (tracing) {
+      trace.message("Line #104");
+      trace.beginTable("Random odd number", "Random Number", "Least Significant Bit");
+    }
 
     for (int i = 1; i < Size - 1; i++) {
       randomNumber = r.nextInt();
@@ -85,10 +125,16 @@ public class Prime {
       
       bitArray[i] = leastSignificantBit;
       
-      logger.info(String.format("%13d %30d", randomNumber, leastSignificantBit));
+      if (tracing) {
+        trace.row(randomNumber, leastSignificantBit);
+      }
     }
     
-    return new Binary(bitArray);
+    Binary b = new Binary(bitArray);
+    if (tracing) {
+      trace.endTable(String.format("%d %s", b.toInt(), b));
+    }
+    return b;
   }
   
   /**
@@ -101,7 +147,12 @@ public class Prime {
    * @return true if the number <code>b</code> is perhaps a prime or false otherwise
    */
   private boolean TestIfPrime(Binary b, int numberOfTestRuns) {
-    Level lvl = logger.getLevel();
+    TraceSink trace = RSAMath.getTraceSink();
+    if (!trace.isEnabled()) {
+      // nothing to show, so give the exact answer with a fixed number of tests
+      return RSAMath.DeterministicPrimalityTesting(b.toInt());
+    }
+    
     NonNegRandom r = new NonNegRandom();
     
     // our random number a which has to be  0 < a < n
@@ -110,32 +161,27 @@ public class Prime {
     int n = b.toInt();
     boolean perhapsPrime = true;
     
-    // turn logging off so we dont print every test
-    logger.setLevel(Level.OFF);
-    
+    // do not trace every test
     while (numberOfTestRuns > 0 && perhapsPrime) {
       // get a random number and "cut it down to size"
       a = RSAMath.mod(r.nextNonNegative(), n);
       
       // ignore a that is zero
       if (a != 0) {
-        perhapsPrime = RSAMath.PrimalityTesting(a, b);                
+        perhapsPrime = RSAMath.PrimalityTesting(a, b, TraceSink.NONE);                
         numberOfTestRuns--;
       }
     }
 
-    // restore the logging level
-    logger.setLevel(lvl);
-    
     if (!perhapsPrime) {
       // print not a prime
-      logger.info("Line #119");
+      trace.message("Line #119");
     } else {
       // print perhaps prime
-      logger.info("Line #123");
+      trace.message("Line #123");
     }
-    // re-run the last test, which can be prime or not prime, with printing enabled
-    RSAMath.PrimalityTesting(a, b);      
+    // re-run the last test, which can be prime or not prime, with tracing enabled
+    RSAMath.PrimalityTesting(a, b, trace);      
         
     return perhapsPrime;
   }
@@ -155,7 +201,7 @@ public class Prime {
       return false;
     }
     Prime p = (Prime) o;
-    return p.bitPrime.toInt() == bitPrime.toInt();
+    return p.getAsBigNatural().equals(getAsBigNatural());
   }
   
   /**
@@ -166,7 +212,7 @@ public class Prime {
   @Override 
   public int hashCode() {
     int result = 17;
-    result = 31 * result + bitPrime.toInt();
+    result = 31 * result + getAsBigNatural().hashCode();
     return result;
   }  
   
@@ -180,7 +226,7 @@ public class Prime {
    */
   @Override 
   public String toString() {
-    return String.format("%d %s", getAsInt(), bitPrime.toString());
+    return String.format("%s %s", getAsBigNatural(), bitPrime.toString());
   }
 
   /**
@@ -0,0 +1,207 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Generates probable primes of a configurable bit length and error probability, searching on
+ * several threads at once.
+ * 
+ * Every worker runs its own {@link IncrementalPrimeSearch} from its own random start point. 
+ * The first worker to find a probable prime publishes it and the others stop before their next 
+ * candidate.
+ * 
+ * Instances are immutable and can be shared between threads.
+ * 
+ * @author cpp270
+ *
+ */
+public class PrimeGenerator {
+  private final int bitLength;
+  private final int numberOfTests;
+  private final ForkJoinPool pool;
+  private final int parallelism;
+  
+  /**
+   * Creates a generator that searches on the common fork/join pool with one worker per core.
+   * 
+   * @param bitLength the size of the primes in bits, at least 3
+   * @param errorProbability the largest acceptable probability that a returned number is 
+   * composite, 0 < errorProbability < 1
+   */
+  public PrimeGenerator(int bitLength, double errorProbability) {
+    this(bitLength, errorProbability, ForkJoinPool.commonPool(), 
+        Runtime.getRuntime().availableProcessors());
+  }
+  
+  /**
+   * Creates a generator that searches on <code>pool</code> with <code>parallelism</code> workers.
+   * 
+   * @param bitLength the size of the primes in bits, at least 3
+   * @param errorProbability the largest acceptable probability that a returned number is 
+   * composite, 0 < errorProbability < 1
+   * @param pool the pool the workers run on
+   * @param parallelism the number of workers per search
+   */
+  public PrimeGenerator(int bitLength, double errorProbability, ForkJoinPool pool, int parallelism) {
+    if (bitLength < 3) {
+      throw new IllegalArgumentException("bit length of at least 3 required");
+    }
+    if (!(errorProbability > 0 && errorProbability < 1)) {
+      throw new IllegalArgumentException("error probability is not in 0 < p < 1");
+    }
+    if (pool == null) {
+      throw new NullPointerException("the pool parameter must be non-null");
+    }
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("at least one worker required");
+    }
+    
+    this.bitLength = bitLength;
+    this.numberOfTests = numberOfTests(errorProbability);
+    this.pool = pool;
+    this.parallelism = parallelism;
+  }
+  
+  /**
+   * Computes the number of Miller-Rabin rounds needed for the error probability. A composite 
+   * passes one round with a random witness with a probability of at most 1/4.
+   * 
+   * @param errorProbability the largest acceptable error probability
+   * @return the number of rounds k such that 4^-k <= errorProbability
+   */
+  public static int numberOfTests(double errorProbability) {
+    return Math.max(1, (int) Math.ceil(Math.log(1 / errorProbability) / Math.log(4)));
+  }
+  
+  /*
+   * Tells whether there are at least two primes p of bitLength bits with gcd(e, p-1) = 1, so that
+   * a key generator can find p != q. The primes are counted up to 16 bits; longer ones are far too
+   * many for an e below phi(n) to rule out all but one
+   */
+  static boolean hasDistinctPrimes(int bitLength, long publicExponent) {
+    if (bitLength > 16) {
+      return true;
+    }
+    
+    int found = 0;
+    for (int p = 1 << (bitLength - 1); p < 1 << bitLength; p++) {
+      if (RSAMath.DeterministicPrimalityTesting(p)
+          && (publicExponent == 0 || ExtendedGCD.gcd(publicExponent, p - 1) == 1)
+          && ++found == 2) {
+        return true;
+      }
+    }
+    return false;
+  }
+  
+  /**
+   * 
+   * @return the size of the generated primes in bits
+   */
+  public int getBitLength() {
+    return bitLength;
+  }
+  
+  /**
+   * 
+   * @return the number of Miller-Rabin rounds run on each candidate that passes the sieve
+   */
+  public int getNumberOfTests() {
+    return numberOfTests;
+  }
+  
+  /**
+   * Searches for a probable prime on all workers and returns the first one found.
+   * 
+   * @return a probable prime of exactly {@link #getBitLength()} bits
+   */
+  public Prime generate() {
+    return generate(0);
+  }
+  
+  /**
+   * Searches for a probable prime p with gcd(e, p-1) = 1 on all workers and returns the first
+   * one found. Candidates that fail the gcd condition are skipped before Miller-Rabin.
+   * 
+   * @param publicExponent the public exponent e, or 0 for no condition
+   * @return a probable prime of exactly {@link #getBitLength()} bits
+   */
+  public Prime generate(final long publicExponent) {
+    if (publicExponent < 0) {
+      throw new IllegalArgumentException("none negative arguments required");
+    }
+    
+    final AtomicReference<BigNatural> found = new AtomicReference<BigNatural>();
+    
+    List<Callable<Void>> workers = new ArrayList<Callable<Void>>(parallelism);
+    for (int i = 0; i < parallelism; i++) {
+      workers.add(new Callable<Void>() {
+        @Override
+        public Void call() {
+          search(found, publicExponent);
+          return null;
+        }
+      });
+    }
+    
+    if (parallelism == 1) {
+      search(found, publicExponent);
+    } else {
+      // returns once every worker has seen the result and stopped
+      pool.invokeAll(workers);
+    }
+    
+    return new Prime(found.get());
+  }
+  
+  /**
+   * Starts a search in the background.
+   * 
+   * @return a future completed with the prime
+   */
+  public CompletableFuture<Prime> generateAsync() {
+    return generateAsync(0);
+  }
+  
+  /**
+   * Starts a search for a probable prime p with gcd(e, p-1) = 1 in the background.
+   * 
+   * @param publicExponent the public exponent e, or 0 for no condition
+   * @return a future completed with the prime
+   */
+  public CompletableFuture<Prime> generateAsync(final long publicExponent) {
+    return CompletableFuture.supplyAsync(() -> generate(publicExponent), pool);
+  }
+  
+  /*
+   * One worker: steps through its own candidates until any worker has found a prime
+   */
+  private void search(AtomicReference<BigNatural> found, long publicExponent) {
+    IncrementalPrimeSearch search = new IncrementalPrimeSearch(bitLength, new Random());
+    
+    while (found.get() == null) {
+      BigNatural n = search.nextCandidate();
+      
+      if (publicExponent != 0 && !isCoprimeWithPredecessor(n, publicExponent)) {
+        continue;
+      }
+      
+      if (search.isProbablePrime(n, numberOfTests)) {
+        found.compareAndSet(null, n);
+      }
+    }
+  }
+  
+  /*
+   * gcd(e, n-1) = 1, computed as gcd(e, (n-1) mod e)
+   */
+  private static boolean isCoprimeWithPredecessor(BigNatural n, long e) {
+    long r = e <= Integer.MAX_VALUE ? n.mod((int) e) : n.mod(BigNatural.valueOf(e)).longValue();
+    long nMinusOneModE = r == 0 ? e - 1 : r - 1;
+    return ExtendedGCD.gcd(e, nMinusOneModE) == 1;
+  }
+}
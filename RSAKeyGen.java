@@ -1,4 +1,4 @@
-import java.util.logging.Logger;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This class generates public/private key pair.
@@ -7,10 +7,24 @@ import java.util.logging.Logger;
  *
  */
 public class RSAKeyGen {
-  // use a logger instead of System.out.println
-  private static final Logger logger = 
-      Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
-
+  // the keys are ints, so n = p*q has to stay below 2^31
+  public static final int MAX_PRIME_SIZE = 15;
+  
+  // the usual fixed public exponent, 2^16 + 1
+  public static final int DEFAULT_PUBLIC_EXPONENT = 65537;
+  
+  // searches for a q different from p before giving up
+  static final int MAX_PRIME_DRAWS = 64;
+  
+  // generates p and q; null for the classroom primes of Prime()
+  private final PrimeGenerator generator;
+  
+  // the fixed public exponent e, or 0 when e is searched for
+  private final int fixedPublicExponent;
+  
+  // whether p is searched for in the background while this thread searches for q
+  private final boolean searchInParallel;
+  
   private Prime p;
   private Prime q;
   
@@ -18,10 +32,138 @@ public class RSAKeyGen {
   private int privateKeyD;
   private int modulus;
   
+  // CRT form of the private key
+  private int exponentP;
+  private int exponentQ;
+  private int coefficientQInv;
+  
+  // built once, so the plans and tables the keys cache are shared by all callers
+  private RSAPublicKey publicKey;
+  private RSAPrivateKey privateKey;
+  
   /**
    * Creates a new public/private key pair
    */
   public RSAKeyGen() {
+    this.generator = null;
+    this.fixedPublicExponent = 0;
+    this.searchInParallel = false;
+    generateKeys();
+  }
+  
+  /**
+   * Creates a new public/private key pair from primes found by <code>generator</code>. 
+   * The primes p and q are searched for at the same time.
+   * 
+   * The public exponent is {@link #DEFAULT_PUBLIC_EXPONENT} when it fits the prime size, which
+   * takes primes of at least 10 bits. For smaller primes e is searched for, starting at 3.
+   * 
+   * @param generator the prime generator
+   * @throws NullPointerException if <code>generator</code> is null
+   * @throws IllegalArgumentException if the primes are longer than {@link #MAX_PRIME_SIZE} bits
+   * @see #defaultPublicExponent(int)
+   */
+  public RSAKeyGen(PrimeGenerator generator) {
+    if (generator == null) {
+      throw new NullPointerException("the generator parameter must be non-null");
+    }
+    if (generator.getBitLength() > MAX_PRIME_SIZE) {
+      throw new IllegalArgumentException("prime size too big for integer keys");
+    }
+    
+    this.generator = generator;
+    this.fixedPublicExponent = defaultPublicExponent(generator.getBitLength());
+    this.searchInParallel = true;
+    generateKeys();
+  }
+  
+  /**
+   * Creates a new public/private key pair with the fixed public exponent <code>publicExponent</code>,
+   * usually {@link #DEFAULT_PUBLIC_EXPONENT}.
+   * 
+   * The primes are chosen so that gcd(e, p-1) = gcd(e, q-1) = 1, so e never has to be rejected
+   * and d is found with a single inversion.
+   * 
+   * @param generator the prime generator
+   * @param publicExponent the public exponent e, odd and at least 3
+   * @throws NullPointerException if <code>generator</code> is null
+   * @throws IllegalArgumentException if the primes are longer than {@link #MAX_PRIME_SIZE} bits,
+   * if e is even or less than 3, if e is not below phi(n) for every pair of primes, or if fewer
+   * than two primes p of the size have gcd(e, p-1) = 1
+   */
+  public RSAKeyGen(PrimeGenerator generator, int publicExponent) {
+    if (generator == null) {
+      throw new NullPointerException("the generator parameter must be non-null");
+    }
+    checkPublicExponent(publicExponent, generator.getBitLength());
+    
+    this.generator = generator;
+    this.fixedPublicExponent = publicExponent;
+    this.searchInParallel = true;
+    generateKeys();
+  }
+  
+  /*
+   * Creates a key pair from arguments the caller has already checked, with e = 0 to search for
+   * e. p and q are searched for one after the other on the calling thread, for callers that
+   * already run many key generations side by side
+   */
+  RSAKeyGen(PrimeGenerator generator, int publicExponent, boolean searchInParallel) {
+    this.generator = generator;
+    this.fixedPublicExponent = publicExponent;
+    this.searchInParallel = searchInParallel;
+    generateKeys();
+  }
+  
+  /**
+   * Returns the public exponent used for primes of <code>primeBitLength</code> bits when none
+   * is given: {@link #DEFAULT_PUBLIC_EXPONENT} if it is below phi(n) for every pair of primes,
+   * otherwise 0, which means e is searched for.
+   * 
+   * @param primeBitLength the size of the primes p and q in bits
+   * @return 65537, or 0 for primes shorter than 10 bits
+   */
+  public static int defaultPublicExponent(int primeBitLength) {
+    // 65537 is prime and above every p-1 of MAX_PRIME_SIZE bits, so gcd(e, p-1) = 1 always
+    int bits = Integer.SIZE - Integer.numberOfLeadingZeros(DEFAULT_PUBLIC_EXPONENT);
+    return bits <= 2 * (primeBitLength - 1) ? DEFAULT_PUBLIC_EXPONENT : 0;
+  }
+  
+  /*
+   * Checks the prime size and the fixed public exponent e for primes of primeBitLength bits
+   */
+  static void checkPublicExponent(int publicExponent, int primeBitLength) {
+    if (primeBitLength > MAX_PRIME_SIZE) {
+      throw new IllegalArgumentException("prime size too big for integer keys");
+    }
+    if (publicExponent < 3 || (publicExponent & 0x1) == 0) {
+      throw new IllegalArgumentException("public exponent must be odd and at least 3");
+    }
+    // phi(n) >= 2^(2*(bits-1)), so e is below it when it has fewer bits than that
+    if (Integer.SIZE - Integer.numberOfLeadingZeros(publicExponent) > 2 * (primeBitLength - 1)) {
+      throw new IllegalArgumentException("public exponent too big for the prime size");
+    }
+    if (!PrimeGenerator.hasDistinctPrimes(primeBitLength, publicExponent)) {
+      throw new IllegalArgumentException("public exponent leaves fewer than two primes of the size");
+    }
+  }
+  
+  /**
+   * Takes a ready key pair from <code>pool</code>, or generates one on the calling thread with 
+   * the pool's generator and public exponent when the pool is empty.
+   * 
+   * @param pool the key pool
+   * @return a key pair
+   */
+  public static RSAKeyGen fromPool(RSAKeyPool pool) {
+    RSAKeyGen k = pool.poll();
+    return k != null ? k : new RSAKeyGen(pool.getGenerator(), pool.getPublicExponent(), true);
+  }
+  
+  /*
+   * Generates p, q, n, e, d and the CRT form of d
+   */
+  private void generateKeys() {
     // generate two different primes p and q
     generatePandQPrimes();
     
@@ -31,16 +173,23 @@ public class RSAKeyGen {
       generatePandQPrimes();
     }
     
-    logger.info("Line #156");
-    logger.info(String.format("p = %5d %s", p.getAsInt(), new Binary(p.getAsInt())));
+    publicKey = new RSAPublicKey(modulus, publicKeyE);
+    privateKey = new RSAPrivateCrtKey(modulus, privateKeyD, p.getAsInt(), q.getAsInt(), 
+        exponentP, exponentQ, coefficientQInv);
     
-    logger.info(String.format("q = %5d %s", q.getAsInt(), new Binary(q.getAsInt())));
-
-    logger.info(String.format("n = %5d %s", modulus, new Binary(modulus)));
-
-    logger.info(String.format("e = %5d %s", publicKeyE, new Binary(publicKeyE)));
-
-    logger.info(String.format("d = %5d %s", privateKeyD, new Binary(privateKeyD)));
+    TraceSink trace = RSAMath.getTraceSink();
+    if (trace.isEnabled()) {
+      trace.message("Line #156");
+      trace.message(String.format("p = %5d %s", p.getAsInt(), new Binary(p.getAsInt())));
+      
+      trace.message(String.format("q = %5d %s", q.getAsInt(), new Binary(q.getAsInt())));
+  
+      trace.message(String.format("n = %5d %s", modulus, new Binary(modulus)));
+  
+      trace.message(String.format("e = %5d %s", publicKeyE, new Binary(publicKeyE)));
+  
+      trace.message(String.format("d = %5d %s", privateKeyD, new Binary(privateKeyD)));
+    }
   }
   
   /**
@@ -48,21 +197,38 @@ public class RSAKeyGen {
    * @return RSA public key
    */
   public RSAPublicKey getPublicKey() {
-    return new RSAPublicKey(modulus, publicKeyE);
+    return publicKey;
   }
   
   /**
+   * The returned key carries its CRT form, so private key operations can use 
+   * {@link RSAMath#PrivateExponentiation(int, RSAPrivateKey)}.
    * 
    * @return RSA private key
    */
   public RSAPrivateKey getPrivateKey() {
-    return new RSAPrivateKey(modulus, privateKeyD);
+    return privateKey;
   }
   
   /*
    * Generates the primes p and q. Also ensures that p and q are distinct for each other.
    */
   private void generatePandQPrimes() {
+    if (generator != null) {
+      if (searchInParallel) {
+        // search for p in the background while this thread searches for q
+        CompletableFuture<Prime> futureP = generator.generateAsync(fixedPublicExponent);
+        q = generator.generate(fixedPublicExponent);
+        p = futureP.join();
+      } else {
+        p = generator.generate(fixedPublicExponent);
+        q = generator.generate(fixedPublicExponent);
+      }
+      
+      q = drawDistinctPrime(generator, fixedPublicExponent, p, q);
+      return;
+    }
+    
     // really easy
     p = new Prime();
     q = new Prime();
@@ -73,6 +239,20 @@ public class RSAKeyGen {
     }
   }
   
+  /*
+   * Searches again while q equals p; the size checks leave at least two candidates, so running
+   * out of draws means the generator keeps finding the same prime
+   */
+  static Prime drawDistinctPrime(PrimeGenerator generator, long publicExponent, Prime p, Prime q) {
+    for (int i = 0; p.equals(q); i++) {
+      if (i == MAX_PRIME_DRAWS) {
+        throw new IllegalStateException("no prime different from p found");
+      }
+      q = generator.generate(publicExponent);
+    }
+    return q;
+  }
+  
   /*
    * Computes the number of positive integers smaller than n that are relatively prime with n
    * Where phi(n) = (p - 1)(q - 1)
@@ -115,28 +295,73 @@ public class RSAKeyGen {
     boolean isRelativelyPrime = false;
     ExtendedEuclidResults r = null;
     
+    TraceSink trace = RSAMath.getTraceSink();
+    boolean tracing = trace.isEnabled();
+    
+    if (fixedPublicExponent != 0) {
+      // the primes were picked so that e is relatively prime with p-1 and q-1, hence with phi(n)
+      modulus = n;
+      publicKeyE = fixedPublicExponent;
+      privateKeyD = ExtendedGCD.inverse(publicKeyE, phiN);
+      
+      if (tracing) {
+        trace.message(String.format("d = %d is the multiplicative inverse of %d [=e] modulo phi(%d) [=%d]", 
+            privateKeyD, publicKeyE, modulus, phiN));      
+      }
+      
+      genCRTParameters(p, q);
+      return true;
+    }
+    
     // e has to be relatively prime with phi(n) and between 3 < e < phi(n)
     while (e < phiN && !isRelativelyPrime) {
       e++;
       
-      logger.info("Line #142");
-      r = RSAMath.ExtendedEuclid(phiN, e);
+      if (!tracing) {
+        // nothing to show; a binary gcd is enough to reject e
+        isRelativelyPrime = ExtendedGCD.gcd(phiN, e) == 1;
+        continue;
+      }
+      
+      trace.message("Line #142");
+      r = RSAMath.ExtendedEuclid(phiN, e, trace);
             
       isRelativelyPrime = r.getGCD() == 1;
-      logger.info(String.format("e = %d is %srelatively prime with phi(%d) = %d. gcd(%d, %d) = %d", 
+      trace.message(String.format("e = %d is %srelatively prime with phi(%d) = %d. gcd(%d, %d) = %d", 
           e, isRelativelyPrime ? "" : "not ", n, phiN, phiN, e, r.getGCD()));
     }
     
     if (isRelativelyPrime) {
       modulus = n;
       publicKeyE = e;
-      privateKeyD = r.getPositiveMultInverseOfBModA();
+      // one inversion for the e that was picked
+      privateKeyD = tracing ? r.getPositiveMultInverseOfBModA() : ExtendedGCD.inverse(e, phiN);
+      
+      if (tracing) {
+        trace.message("Line #152");
+        trace.message(String.format("d = %d is the multiplicative inverse of %d [=e] modulo phi(%d) [=%d]", 
+            privateKeyD, publicKeyE, modulus, phiN));      
+      }
       
-      logger.info("Line #152");
-      logger.info(String.format("d = %d is the multiplicative inverse of %d [=e] modulo phi(%d) [=%d]", 
-          privateKeyD, publicKeyE, modulus, phiN));      
+      genCRTParameters(p, q);
     }    
     
     return isRelativelyPrime;
   }
+  
+  /*
+   * Computes the CRT form of the private key: dP = d mod (p-1), dQ = d mod (q-1) and 
+   * qInv = q^-1 mod p.
+   * 
+   * @param p prime number
+   * @param q prime number
+   */
+  private void genCRTParameters(Prime p, Prime q) {
+    int pInt = p.getAsInt();
+    int qInt = q.getAsInt();
+    
+    exponentP = RSAMath.mod(privateKeyD, pInt - 1);
+    exponentQ = RSAMath.mod(privateKeyD, qInt - 1);
+    coefficientQInv = ExtendedGCD.inverse(qInt, pInt);
+  }
 }
@@ -0,0 +1,280 @@
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A bounded pool of ready key pairs that background workers keep filled.
+ * 
+ * When taking a key pair leaves fewer than the low-water mark in the pool, the workers wake up
+ * and generate key pairs until the pool is full again. The time from dropping below the
+ * low-water mark until getting back to it is reported as the refill lag.
+ * 
+ * Use {@link RSAKeyGen#fromPool(RSAKeyPool)} to take a key pair with a fall back to generating
+ * one on the calling thread.
+ * 
+ * @author cpp270
+ *
+ */
+public class RSAKeyPool implements AutoCloseable {
+  private static final Logger logger = Logger.getLogger(RSAKeyPool.class.getName());
+  
+  private final PrimeGenerator generator;
+  private final int publicExponent;
+  private final BlockingQueue<RSAKeyGen> keys;
+  private final int capacity;
+  private final int lowWaterMark;
+  private final Thread[] workers;
+  
+  private final Object refillSignal = new Object();
+  private volatile boolean running = true;
+  // key pairs being generated, guarded by refillSignal
+  private int pending = 0;
+  
+  // metrics
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong belowLowWaterSince = new AtomicLong(0);
+  private volatile long lastRefillLag = 0;
+  private final AtomicLong maxRefillLag = new AtomicLong(0);
+  
+  /**
+   * Creates a pool and starts its background workers, which start filling it right away. The
+   * key pairs use {@link RSAKeyGen#defaultPublicExponent(int)}.
+   * 
+   * @param generator generates the primes of every key pair
+   * @param capacity the most key pairs the pool holds
+   * @param lowWaterMark refilling starts when fewer than this many key pairs are left
+   * @param numberOfWorkers the number of background threads
+   * @throws NullPointerException if <code>generator</code> is null
+   * @throws IllegalArgumentException if the primes are longer than 
+   * {@link RSAKeyGen#MAX_PRIME_SIZE} bits, or if the sizes are out of range
+   */
+  public RSAKeyPool(PrimeGenerator generator, int capacity, int lowWaterMark, int numberOfWorkers) {
+    this(generator, defaultPublicExponent(generator), capacity, lowWaterMark, numberOfWorkers);
+  }
+  
+  /**
+   * Creates a pool of key pairs with the public exponent <code>publicExponent</code> and starts
+   * its background workers, which start filling it right away.
+   * 
+   * @param generator generates the primes of every key pair
+   * @param publicExponent the fixed public exponent e, or 0 to search for e
+   * @param capacity the most key pairs the pool holds
+   * @param lowWaterMark refilling starts when fewer than this many key pairs are left
+   * @param numberOfWorkers the number of background threads
+   * @throws NullPointerException if <code>generator</code> is null
+   * @throws IllegalArgumentException if the primes are longer than 
+   * {@link RSAKeyGen#MAX_PRIME_SIZE} bits, if e does not fit the prime size, or if the sizes 
+   * are out of range
+   */
+  public RSAKeyPool(PrimeGenerator generator, int publicExponent, int capacity, int lowWaterMark, 
+      int numberOfWorkers) {
+    if (generator == null) {
+      throw new NullPointerException("the generator parameter must be non-null");
+    }
+    // checked here, since the workers would only find out one failed key pair at a time
+    if (publicExponent != 0) {
+      RSAKeyGen.checkPublicExponent(publicExponent, generator.getBitLength());
+    } else if (generator.getBitLength() > RSAKeyGen.MAX_PRIME_SIZE) {
+      throw new IllegalArgumentException("prime size too big for integer keys");
+    }
+    if (capacity < 1 || lowWaterMark < 1 || lowWaterMark > capacity) {
+      throw new IllegalArgumentException("low-water mark is not in 0 < mark <= capacity");
+    }
+    if (numberOfWorkers < 1) {
+      throw new IllegalArgumentException("at least one worker required");
+    }
+    
+    this.generator = generator;
+    this.publicExponent = publicExponent;
+    this.capacity = capacity;
+    this.lowWaterMark = lowWaterMark;
+    this.keys = new ArrayBlockingQueue<RSAKeyGen>(capacity);
+    this.belowLowWaterSince.set(System.nanoTime());
+    
+    this.workers = new Thread[numberOfWorkers];
+    for (int i = 0; i < numberOfWorkers; i++) {
+      workers[i] = new Thread(this::refill, "RSAKeyPool-refill-" + i);
+      workers[i].setDaemon(true);
+      workers[i].start();
+    }
+  }
+  
+  /*
+   * The default public exponent for the generator's prime size; a null generator is reported
+   * by the constructor
+   */
+  private static int defaultPublicExponent(PrimeGenerator generator) {
+    return generator == null ? 0 : RSAKeyGen.defaultPublicExponent(generator.getBitLength());
+  }
+  
+  /**
+   * Takes a key pair out of the pool.
+   * 
+   * @return a key pair, or null if the pool is empty
+   */
+  public RSAKeyGen poll() {
+    RSAKeyGen k = keys.poll();
+    
+    if (k == null) {
+      misses.incrementAndGet();
+    } else {
+      hits.incrementAndGet();
+    }
+    
+    if (keys.size() < lowWaterMark) {
+      belowLowWaterSince.compareAndSet(0, System.nanoTime());
+      synchronized (refillSignal) {
+        refillSignal.notifyAll();
+      }
+    }
+    
+    return k;
+  }
+  
+  /*
+   * Background worker: sleeps until the pool drops below the low-water mark, then fills it up.
+   * A failed key pair is logged and the worker waits for the next poll before trying again
+   */
+  private void refill() {
+    boolean failed = false;
+    while (running) {
+      synchronized (refillSignal) {
+        while (running && (failed || keys.size() >= lowWaterMark)) {
+          try {
+            refillSignal.wait();
+          } catch (InterruptedException e) {
+            return;
+          }
+          failed = false;
+        }
+      }
+      
+      while (running && reserveSlot()) {
+        RSAKeyGen k = null;
+        try {
+          k = new RSAKeyGen(generator, publicExponent, true);
+        } catch (RuntimeException e) {
+          logger.log(Level.WARNING, "refilling the key pool failed", e);
+        } finally {
+          synchronized (refillSignal) {
+            // the slot was reserved, so there is room
+            if (k != null) {
+              keys.offer(k);
+            }
+            pending--;
+          }
+        }
+        
+        if (k == null) {
+          failed = true;
+          break;
+        }
+        
+        if (keys.size() >= lowWaterMark) {
+          long since = belowLowWaterSince.getAndSet(0);
+          if (since != 0) {
+            long lag = System.nanoTime() - since;
+            lastRefillLag = lag;
+            maxRefillLag.accumulateAndGet(lag, Math::max);
+          }
+        }
+      }
+    }
+  }
+  
+  /*
+   * Claims room for one more key pair, so that no worker generates one the pool cannot take
+   */
+  private boolean reserveSlot() {
+    synchronized (refillSignal) {
+      if (keys.size() + pending >= capacity) {
+        return false;
+      }
+      pending++;
+      return true;
+    }
+  }
+  
+  /**
+   * Stops the background workers. Key pairs already in the pool can still be taken.
+   */
+  @Override
+  public void close() {
+    running = false;
+    synchronized (refillSignal) {
+      refillSignal.notifyAll();
+    }
+    for (Thread t : workers) {
+      t.interrupt();
+    }
+  }
+  
+  /**
+   * 
+   * @return the generator used for refilling and for the synchronous fall back
+   */
+  public PrimeGenerator getGenerator() {
+    return generator;
+  }
+  
+  /**
+   * 
+   * @return the public exponent of the pooled key pairs, or 0 if e is searched for
+   */
+  public int getPublicExponent() {
+    return publicExponent;
+  }
+  
+  /**
+   * 
+   * @return the number of key pairs currently in the pool
+   */
+  public int size() {
+    return keys.size();
+  }
+  
+  /**
+   * 
+   * @return the number of polls that got a key pair
+   */
+  public long getHits() {
+    return hits.get();
+  }
+  
+  /**
+   * 
+   * @return the number of polls that found the pool empty
+   */
+  public long getMisses() {
+    return misses.get();
+  }
+  
+  /**
+   * 
+   * @return hits / (hits + misses), or 0 before the first poll
+   */
+  public double getHitRate() {
+    long h = hits.get();
+    long total = h + misses.get();
+    return total == 0 ? 0 : (double) h / total;
+  }
+  
+  /**
+   * 
+   * @return nanoseconds the most recent refill took to get back to the low-water mark
+   */
+  public long getLastRefillLag() {
+    return lastRefillLag;
+  }
+  
+  /**
+   * 
+   * @return the longest refill lag seen so far in nanoseconds
+   */
+  public long getMaxRefillLag() {
+    return maxRefillLag.get();
+  }
+}
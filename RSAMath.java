@@ -1,5 +1,3 @@
-import java.util.logging.Logger;
-
 /**
  * Utility class that contains the general algorithms necessary to implement a basic RSA system.
  * 
@@ -9,9 +7,17 @@ import java.util.logging.Logger;
  *
  */
 public class RSAMath {
-  // use a logger instead of System.out.println
-  private static final Logger logger = 
-      Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+  // witness sets that make Miller-Rabin deterministic below 2^32 and 2^64
+  private static final int[] WITNESSES_32 = { 2, 7, 61 };
+  private static final long[] WITNESSES_64 = { 2, 325, 9375, 28178, 450775, 9780504, 1795265022 };
+  
+  // where the step by step traces go; each thread has its own sink and none by default
+  private static final ThreadLocal<TraceSink> traceSink = new ThreadLocal<TraceSink>() {
+    @Override
+    protected TraceSink initialValue() {
+      return TraceSink.NONE;
+    }
+  };
 
   /*
    * Static class; disable constructor
@@ -19,6 +25,32 @@ public class RSAMath {
   private RSAMath() {
   }
   
+  /**
+   * Returns the trace sink of the current thread.
+   * 
+   * @return the current trace sink, {@link TraceSink#NONE} unless one was set
+   */
+  public static TraceSink getTraceSink() {
+    return traceSink.get();
+  }
+  
+  /**
+   * Sets the trace sink of the current thread. The traced algorithms of this class, 
+   * {@link Prime}, {@link RSAKeyGen} and {@link DigitalCertificate} report to it.
+   * 
+   * @param sink the new trace sink
+   * @return the previous trace sink, so that it can be restored
+   * @throws NullPointerException if <code>sink</code> is null
+   */
+  public static TraceSink setTraceSink(TraceSink sink) {
+    if (sink == null) {
+      throw new NullPointerException("the sink parameter must be non-null");
+    }
+    TraceSink previous = traceSink.get();
+    traceSink.set(sink);
+    return previous;
+  }
+  
   /**
    * Computes the remainder of the division of a by n
    * 
@@ -50,6 +82,54 @@ public class RSAMath {
     return RSAMath.remainder(a, n);
   }
   
+  /**
+   * Computes a modulo n with the precomputed Barrett constants of n; no divisor check and no
+   * division.
+   * 
+   * @param a non negative dividend
+   * @param n the Barrett context of the divisor
+   * @return remainder
+   * @see BarrettContext#reduce(long)
+   */
+  public static int mod(long a, BarrettContext n) {
+    if (a < 0) {
+      throw new IllegalArgumentException("none negative arguments required");
+    }
+    return n.reduce(a);
+  }
+  
+  /**
+   * Computes the remainder of the division of a by n
+   * 
+   * a modulo n
+   * 
+   * @param a dividend
+   * @param n divisor
+   * @return remainder
+   * @see #remainder(int, int)
+   */
+  public static long remainder(long a, long n) {
+    if ( n <= 0) {
+      throw new IllegalArgumentException("invalid divisor");
+    }
+
+    long q = a / n; // integer devision so result is automatically floored
+    return a - n*q;
+  }
+  
+  /**
+   * Computes the remainder of the division of a by n
+   * 
+   * a modulo n
+   * 
+   * @param a dividend
+   * @param n divisor
+   * @return remainder
+   */
+  public static long mod(long a, long n) {
+    return RSAMath.remainder(a, n);
+  }
+  
   /**
    * Computes a^x mod n
    * 
@@ -59,39 +139,379 @@ public class RSAMath {
    * @return
    */
   public static int FastExponentiation(int a, int[] x, int n) {
-    logger.fine(String.format(">> Fast Exponentiation: computing %d^%d mod %d", a, Binary.toInt(x), n));
-    logger.fine(String.format("%21s %24s", "Squaring", "Multiplying"));
-    logger.fine(String.format("%2s %5s %5s %21s", "i", "xi", "y", "y"));
-
-    String out;
+    return RSAMath.FastExponentiation(a, x, n, RSAMath.getTraceSink());
+  }
+  
+  /**
+   * Computes a^x mod n, reporting every step to <code>trace</code>
+   * 
+   * @param a the base
+   * @param x the exponent converted to binary 
+   * @param n the modulus
+   * @param trace where the steps are reported
+   * @return a^x mod n
+   */
+  public static int FastExponentiation(int a, int[] x, int n, TraceSink trace) {
+    if (n <= 0) {
+      throw new IllegalArgumentException("invalid divisor");
+    }
+    
+    boolean tracing = trace.isEnabled();
+    if (tracing) {
+      trace.beginTable(String.format("Fast Exponentiation: computing %d^%d mod %d", a, Binary.toInt(x), n),
+          "i", "xi", "y", "y^2 mod n", "y*a mod n");
+    }
     
     int y = 1;
+    int y0;
+    int y1;
     
     for (int i = x.length-1; i >= 0; i--) {
+      y0 = y; // for printing only
       
-      out = String.format("%2d %5d %5d^2 mod %d = ", i, x[i], y, n);
-      
-      // squaring
-      y = RSAMath.mod( y * y, n);
+      // squaring; the product needs 64 bits once n is past 2^15
+      y = (int) (((long) y * y) % n);
       
-      out = out + String.format("%d", y);
+      y1 = y; // for printing only
       
       if (x[i] == 1) {
-        out = out + String.format("%7d x %d mod %d =", y, a, n);
-
         // multiplying
-        y = RSAMath.mod( a * y, n);        
+        y = (int) (((long) a * y) % n);        
       }
       
-      out = out + String.format(x[i] == 1 ? "%3d" : "%7d", y);
-      logger.fine(out);
+      if (tracing) {
+        trace.row(i, x[i], y0, y1, y);
+      }
     }
     
-    logger.fine(String.format("<< Fast Exponentiation: computed %d^%d mod %d = %d", a, Binary.toInt(x), n, y));
+    if (tracing) {
+      trace.endTable(String.format("Fast Exponentiation: computed %d^%d mod %d = %d", a, Binary.toInt(x), n, y));
+    }
 
     return y;
   }
   
+  /**
+   * Computes a^x mod n with the precomputed Barrett constants of n. Worth it over Montgomery 
+   * form for short exponents, and for even moduli, which have no Montgomery form.
+   * 
+   * @param a the base
+   * @param x the exponent converted to binary 
+   * @param n the Barrett context of the modulus
+   * @return a^x mod n
+   * @see #FastExponentiation(int, int[], int)
+   */
+  public static int FastExponentiation(int a, int[] x, BarrettContext n) {
+    return n.modPow(a, x);
+  }
+  
+  /**
+   * Computes a^x mod n for moduli up to 63 bits without overflow.
+   * 
+   * Odd moduli are handled in Montgomery form by a {@link LongMontgomeryContext} built for the 
+   * call, which costs an inversion, a remainder and 64 doublings before the first 
+   * multiplication. Callers with a fixed modulus keep the context and use 
+   * {@link #FastExponentiation(long, long, LongMontgomeryContext)}; the keys hand out theirs with
+   * {@link LongRSAPublicKey#getMontgomeryContext()}. Even moduli have no Montgomery form; they 
+   * square and multiply with {@link #multiplyMod(long, long, long)}.
+   * 
+   * @param a the base, non negative
+   * @param x the exponent, non negative
+   * @param n the modulus
+   * @return a^x mod n
+   */
+  public static long FastExponentiation(long a, long x, long n) {
+    if (n <= 0) {
+      throw new IllegalArgumentException("invalid divisor");
+    }
+    if (a < 0 || x < 0) {
+      throw new IllegalArgumentException("none negative arguments required");
+    }
+    if ((n & 0x1) == 1) {
+      return new LongMontgomeryContext(n).modPow(a, x);
+    }
+    
+    a %= n;
+    long y = 1 % n;
+    
+    for (int i = Long.SIZE - 1 - Long.numberOfLeadingZeros(x); i >= 0; i--) {
+      // squaring
+      y = RSAMath.multiplyMod(y, y, n);
+      
+      if (((x >>> i) & 0x1) == 1) {
+        // multiplying
+        y = RSAMath.multiplyMod(y, a, n);
+      }
+    }
+    
+    return y;
+  }
+  
+  /**
+   * Computes a^x mod n with the precomputed Montgomery constants of the odd modulus n, without 
+   * allocating.
+   * 
+   * @param a the base, non negative
+   * @param x the exponent, non negative
+   * @param n the Montgomery context of the modulus
+   * @return a^x mod n
+   * @see #FastExponentiation(long, long, long)
+   */
+  public static long FastExponentiation(long a, long x, LongMontgomeryContext n) {
+    return n.modPow(a, x);
+  }
+  
+  /**
+   * Computes a*b mod n for any modulus up to 63 bits. The 128 bit product is taken with 
+   * {@link Math#multiplyHigh(long, long)} and its high half is reduced one bit at a time, so 
+   * nothing overflows.
+   * 
+   * @param a value less than n
+   * @param b value less than n
+   * @param n the modulus
+   * @return a*b mod n
+   */
+  public static long multiplyMod(long a, long b, long n) {
+    long high = Math.multiplyHigh(a, b);
+    long low = a * b;
+    
+    if (high == 0) {
+      return Long.remainderUnsigned(low, n);
+    }
+    
+    // r = high*2^64 + low mod n, shifting the bits of low in from the top; r < n < 2^63 so 
+    // 2r + 1 fits in 64 unsigned bits
+    long r = high % n;
+    for (int i = Long.SIZE - 1; i >= 0; i--) {
+      r = (r << 1) | ((low >>> i) & 0x1);
+      if (Long.compareUnsigned(r, n) >= 0) {
+        r -= n;
+      }
+    }
+    return r;
+  }
+  
+  /**
+   * Computes a^x mod n on arbitrary-precision natural numbers.
+   * 
+   * Uses the same left-to-right square and multiply as {@link #FastExponentiation(int, int[], int)}.
+   * All intermediate values live in scratch arrays owned by one reducer, so the loop does not 
+   * allocate.
+   * 
+   * @param a the base
+   * @param x the exponent
+   * @param n the modulus
+   * @return a^x mod n
+   */
+  public static BigNatural FastExponentiation(BigNatural a, BigNatural x, BigNatural n) {
+    if (n.isZero()) {
+      throw new IllegalArgumentException("invalid divisor");
+    }
+    
+    BigNatural.Reducer reducer = new BigNatural.Reducer(n);
+    int k = reducer.size();
+    
+    int[] base = new int[k];
+    reducer.reduce(a.limbs(), a.limbCount(), base);
+    
+    int[] y = new int[k];
+    reducer.reduce(BigNatural.ONE.limbs(), 1, y);
+    
+    for (int i = x.bitLength() - 1; i >= 0; i--) {
+      // squaring
+      reducer.multiply(y, y, y);
+      
+      if (x.testBit(i)) {
+        // multiplying
+        reducer.multiply(y, base, y);
+      }
+    }
+    
+    return BigNatural.fromLimbs(y, k);
+  }
+  
+  /**
+   * Computes a^x mod n using Montgomery multiplication.
+   * 
+   * The base is converted into Montgomery form once per call and the square and multiply loop
+   * reduces without division. Even moduli have no Montgomery form and fall back to
+   * {@link #FastExponentiation(int, int[], int)}.
+   * 
+   * @param a the base
+   * @param x the exponent converted to binary 
+   * @param n the modulus
+   * @return a^x mod n
+   * @see MontgomeryContext
+   */
+  public static int MontgomeryExponentiation(int a, int[] x, int n) {
+    if ((n & 0x1) == 0) {
+      return RSAMath.FastExponentiation(a, x, n);
+    }
+    return new MontgomeryContext(n).modPow(a, x);
+  }
+  
+  /**
+   * Computes a^x mod n using Montgomery multiplication, scanning the exponent with the given 
+   * strategy. Even moduli fall back to {@link #FastExponentiation(int, int[], int)}.
+   * 
+   * @param a the base
+   * @param x the exponent converted to binary 
+   * @param n the modulus
+   * @param strategy how to scan the exponent
+   * @return a^x mod n
+   * @see WindowRecoding
+   */
+  public static int MontgomeryExponentiation(int a, int[] x, int n, ExponentiationStrategy strategy) {
+    if ((n & 0x1) == 0) {
+      return RSAMath.FastExponentiation(a, x, n);
+    }
+    return new MontgomeryContext(n).modPow(a, x, strategy);
+  }
+  
+  /**
+   * Computes a^x mod n on arbitrary-precision natural numbers using Montgomery multiplication.
+   * 
+   * Even moduli fall back to {@link #FastExponentiation(BigNatural, BigNatural, BigNatural)}.
+   * 
+   * @param a the base
+   * @param x the exponent
+   * @param n the modulus
+   * @return a^x mod n
+   * @see BigMontgomeryContext
+   */
+  public static BigNatural MontgomeryExponentiation(BigNatural a, BigNatural x, BigNatural n) {
+    if (!n.isOdd()) {
+      return RSAMath.FastExponentiation(a, x, n);
+    }
+    return new BigMontgomeryContext(n).modPow(a, x);
+  }
+  
+  /**
+   * Computes a^x mod n on arbitrary-precision natural numbers using Montgomery multiplication,
+   * scanning the exponent with the given strategy. Even moduli fall back to 
+   * {@link #FastExponentiation(BigNatural, BigNatural, BigNatural)}.
+   * 
+   * @param a the base
+   * @param x the exponent
+   * @param n the modulus
+   * @param strategy how to scan the exponent
+   * @return a^x mod n
+   * @see WindowRecoding
+   */
+  public static BigNatural MontgomeryExponentiation(BigNatural a, BigNatural x, BigNatural n, 
+      ExponentiationStrategy strategy) {
+    if (!n.isOdd()) {
+      return RSAMath.FastExponentiation(a, x, n);
+    }
+    return new BigMontgomeryContext(n).modPow(a, x, strategy);
+  }
+  
+  /**
+   * Computes a^e mod n for the public key with the key's cached {@link ExponentiationPlan}.
+   * 
+   * @param a the base
+   * @param key the public key
+   * @return a^e mod n
+   */
+  public static int PublicExponentiation(int a, RSAPublicKey key) {
+    return key.getExponentiationPlan().modPow(a);
+  }
+  
+  /**
+   * Computes a^d mod n for the private key. Keys that carry their CRT form are handled by
+   * {@link #CRTExponentiation(int, RSAPrivateCrtKey)}, all others by the key's cached 
+   * {@link ExponentiationPlan}.
+   * 
+   * @param a the base
+   * @param key the private key
+   * @return a^d mod n
+   */
+  public static int PrivateExponentiation(int a, RSAPrivateKey key) {
+    if (key instanceof RSAPrivateCrtKey) {
+      return RSAMath.CRTExponentiation(a, (RSAPrivateCrtKey) key);
+    }
+    return key.getExponentiationPlan().modPow(a);
+  }
+  
+  /**
+   * Computes a^d mod n with the Chinese Remainder Theorem.
+   * 
+   * Two half size exponentiations m1 = a^dP mod p and m2 = a^dQ mod q are recombined with 
+   * Garner's formula: h = qInv * (m1 - m2) mod p, a^d = m2 + h * q.
+   * 
+   * @param a the base
+   * @param key the private key in CRT form
+   * @return a^d mod n
+   */
+  public static int CRTExponentiation(int a, RSAPrivateCrtKey key) {
+    int p = key.getPrimeP();
+    int q = key.getPrimeQ();
+    
+    int m1 = key.getExponentiationPlanP().modPow(a);
+    int m2 = key.getExponentiationPlanQ().modPow(a);
+    
+    // m1 - m2 can be negative; bring it back into 0..p-1 first
+    long diff = Math.floorMod(m1 - m2, p);
+    long h = (key.getCrtCoefficient() * diff) % p;
+    
+    return (int) (m2 + h * q);
+  }
+  
+  /**
+   * Computes a^e mod n for a public key of up to 63 bits with the key's cached 
+   * {@link LongMontgomeryContext}.
+   * 
+   * @param a the base
+   * @param key the public key
+   * @return a^e mod n
+   */
+  public static long PublicExponentiation(long a, LongRSAPublicKey key) {
+    return key.getMontgomeryContext().modPow(a, key.getPublicExponent());
+  }
+  
+  /**
+   * Computes a^d mod n for a private key of up to 63 bits. Keys that carry their CRT form are 
+   * handled by {@link #CRTExponentiation(long, LongRSAPrivateCrtKey)}, all others by the key's 
+   * cached {@link LongMontgomeryContext}.
+   * 
+   * @param a the base
+   * @param key the private key
+   * @return a^d mod n
+   */
+  public static long PrivateExponentiation(long a, LongRSAPrivateKey key) {
+    if (key instanceof LongRSAPrivateCrtKey) {
+      return RSAMath.CRTExponentiation(a, (LongRSAPrivateCrtKey) key);
+    }
+    return key.getMontgomeryContext().modPow(a, key.getPrivateExponent());
+  }
+  
+  /**
+   * Computes a^d mod n with the Chinese Remainder Theorem. The primes fit in an int, so both 
+   * half size exponentiations run on int plans and only the recombination needs 64 bits.
+   * 
+   * @param a the base
+   * @param key the private key in CRT form
+   * @return a^d mod n
+   * @see #CRTExponentiation(int, RSAPrivateCrtKey)
+   */
+  public static long CRTExponentiation(long a, LongRSAPrivateCrtKey key) {
+    if (a < 0) {
+      throw new IllegalArgumentException("none negative arguments required");
+    }
+    
+    int p = key.getPrimeP();
+    int q = key.getPrimeQ();
+    
+    int m1 = key.getExponentiationPlanP().modPow((int) (a % p));
+    int m2 = key.getExponentiationPlanQ().modPow((int) (a % q));
+    
+    // m1 - m2 can be negative; bring it back into 0..p-1 first
+    long diff = Math.floorMod(m1 - m2, p);
+    long h = (key.getCrtCoefficient() * diff) % p;
+    
+    return m2 + h * q;
+  }
+  
   /**
    * Computes greatest common divisor of integers a and b
    * Computes Bezout's coefficients s and t such that a*s + b*t = gcd(a,b)
@@ -103,6 +523,20 @@ public class RSAMath {
    * @return object containing results
    */
   public static ExtendedEuclidResults ExtendedEuclid(int a, int b) {
+    return RSAMath.ExtendedEuclid(a, b, RSAMath.getTraceSink());
+  }
+  
+  /**
+   * Computes greatest common divisor of integers a and b and Bezout's coefficients, reporting 
+   * every step to <code>trace</code>
+   * 
+   * @param a integer a
+   * @param b integer b less than a
+   * @param trace where the steps are reported
+   * @return object containing results
+   * @see #ExtendedEuclid(int, int)
+   */
+  public static ExtendedEuclidResults ExtendedEuclid(int a, int b, TraceSink trace) {
     if (b > a) {
       throw new IllegalArgumentException("b is greater than a");
     }
@@ -121,8 +555,11 @@ public class RSAMath {
     int tempS;
     int tempT;
     
-    logger.info(String.format(">> Extended Euclidean algorithm for %d and %d", a, b));
-    logger.info(String.format("%s %5s %5s %5s %5s %5s %5s", "i", "qi", "ri", "ri+1", "ri+2", "si", "ti"));
+    boolean tracing = trace.isEnabled();
+    if (tracing) {
+      trace.beginTable(String.format("Extended Euclidean algorithm for %d and %d", a, b),
+          "i", "qi", "ri", "ri+1", "ri+2", "si", "ti");
+    }
     
     while (r2 != 0) {
       i++;
@@ -132,7 +569,9 @@ public class RSAMath {
       q = r / r1;
       r2 = r - r1*q;
             
-      logger.info(String.format("%d %5d %5d %5d %5d %5d %5d", i, q, r, r1, r2, s, t));
+      if (tracing) {
+        trace.row(i, q, r, r1, r2, s, t);
+      }
       
       // save the values before recalculating
       tempS = s;
@@ -145,11 +584,70 @@ public class RSAMath {
       t1 = tempT;
     }
     
-    logger.info(String.format("<< Extended Euclidean algorithm for %d and %d", a, b));
+    if (tracing) {
+      trace.endTable(String.format("Extended Euclidean algorithm for %d and %d", a, b));
+    }
     // need to return r1 = gcd and the multiplicative inverses
     return new RSAMath().new ExtendedEuclid(r1, s1, t1, a, b);
   }
   
+  /**
+   * Computes greatest common divisor of natural numbers a and b
+   * Computes Bezout's coefficients s and t such that a*s + b*t = gcd(a,b)
+   * 
+   * The coefficients alternate in sign from one step to the next, so only their magnitudes are
+   * kept and the sign is recovered from the number of steps.
+   * 
+   * @param a natural number a
+   * @param b natural number b less than a
+   * @return object containing results
+   * @see #ExtendedEuclid(int, int)
+   */
+  public static BigExtendedEuclidResults ExtendedEuclid(BigNatural a, BigNatural b) {
+    if (b.compareTo(a) > 0) {
+      throw new IllegalArgumentException("b is greater than a");
+    }
+    
+    int i = 0;
+    BigNatural r;
+    BigNatural r1 = a;
+    BigNatural r2 = b;
+    BigNatural[] qr;
+    
+    // magnitudes of the coefficients
+    BigNatural s = BigNatural.ZERO;
+    BigNatural s1 = BigNatural.ONE;
+    BigNatural t = BigNatural.ONE;
+    BigNatural t1 = BigNatural.ZERO;
+    
+    BigNatural tempS;
+    BigNatural tempT;
+    
+    while (!r2.isZero()) {
+      i++;
+      
+      r = r1;
+      r1 = r2;
+      qr = r.divideAndRemainder(r1);
+      r2 = qr[1];
+      
+      // save the values before recalculating
+      tempS = s;
+      tempT = t;
+      s = s1.add(qr[0].multiply(s));
+      t = t1.add(qr[0].multiply(t));
+      
+      // set the old t and s values
+      s1 = tempS;
+      t1 = tempT;
+    }
+    
+    // after i steps s has the sign (-1)^i and t the opposite sign
+    boolean sNegative = (i & 0x1) == 1;
+    
+    return new RSAMath().new BigExtendedEuclid(r1, s1, sNegative, t1, !sNegative, a, b);
+  }
+  
   /**
    * Helper class for returning results from Extended Euclidean algorithm
    * @author cpp270
@@ -191,6 +689,51 @@ public class RSAMath {
     }
   }
   
+  /**
+   * Helper class for returning results from Extended Euclidean algorithm on natural numbers
+   * @author cpp270
+   *
+   */
+  private class BigExtendedEuclid implements BigExtendedEuclidResults {
+    private BigNatural gcd;
+    private BigNatural sBezoutCoefficient;
+    private BigNatural tBezoutCoefficient;
+    private boolean sNegative, tNegative;
+    private BigNatural a, b;
+    
+    private BigExtendedEuclid(BigNatural gcd, BigNatural s, boolean sNegative, 
+        BigNatural t, boolean tNegative, BigNatural a, BigNatural b) {
+      this.gcd = gcd;
+      this.sBezoutCoefficient = s;
+      this.sNegative = sNegative;
+      this.tBezoutCoefficient = t;
+      this.tNegative = tNegative;
+      this.a = a;
+      this.b = b;
+    }
+    
+    @Override
+    public BigNatural getGCD(){
+      return gcd;
+    }
+
+    @Override
+    public BigNatural getPositiveMultInverseOfAModB() {
+      if (sNegative && !sBezoutCoefficient.isZero()) {
+        return b.subtract(sBezoutCoefficient);
+      }
+      return sBezoutCoefficient;
+    }
+
+    @Override
+    public BigNatural getPositiveMultInverseOfBModA() {
+      if (tNegative && !tBezoutCoefficient.isZero()) {
+        return a.subtract(tBezoutCoefficient);
+      }
+      return tBezoutCoefficient;
+    }
+  }
+  
   /**
    * Miller-Rabin primality test
    * 
@@ -201,6 +744,19 @@ public class RSAMath {
    * @return false if the number is not a prime or true if the number is maybe a prime
    */
   public static boolean PrimalityTesting(int a, Binary x) {
+    return RSAMath.PrimalityTesting(a, x, RSAMath.getTraceSink());
+  }
+  
+  /**
+   * Miller-Rabin primality test, reporting every step to <code>trace</code>
+   * 
+   * @param a a random value such that 0 < a < x
+   * @param x the number to be tested for primality
+   * @param trace where the steps are reported
+   * @return false if the number is not a prime or true if the number is maybe a prime
+   * @see #PrimalityTesting(int, Binary)
+   */
+  public static boolean PrimalityTesting(int a, Binary x, TraceSink trace) {
     int n = x.toInt();
     x = new Binary(n-1, x.length());
     
@@ -220,35 +776,231 @@ public class RSAMath {
     int y1;
     int xi;
 
-    logger.info(String.format(">> Miller-Rabin for n = %d and a = %d", n, a));
-    logger.info(String.format("%s %5s %5s %5s %5s", "i", "xi", "z", "y", "y"));
+    boolean tracing = trace.isEnabled();
+    if (tracing) {
+      trace.beginTable(String.format("Miller-Rabin for n = %d and a = %d", n, a), 
+          "i", "xi", "z", "y", "y");
+    }
 
     while (it.hasNext()) {
        z = y;
-       y = RSAMath.mod( y * y, n);
+       y = (int) RSAMath.mod((long) y * y, n);
        
        y1 = y; // for printing only
        i--; // for printing only
        
        if (y == 1 && z != 1 && z != (n - 1)) {
-         logger.info(String.format("<< Miller-Rabin says: %d is not a prime.", n));
+         if (tracing) {
+           trace.endTable(String.format("Miller-Rabin says: %d is not a prime.", n));
+         }
          return false;
        }
        
        xi = it.next();
        if (xi == 1) {
-         y = RSAMath.mod( y * a, n);
+         y = (int) RSAMath.mod((long) y * a, n);
        }
        
-       logger.info(String.format("%d %5d %5d %5d %5d", i, xi, z, y1, y));
+       if (tracing) {
+         trace.row(i, xi, z, y1, y);
+       }
     }
     
     if ( y != 1 ) {
-      logger.info(String.format("<< Miller-Rabin says: %d is not a prime.", n));
+      if (tracing) {
+        trace.endTable(String.format("Miller-Rabin says: %d is not a prime.", n));
+      }
       return false;
     }
         
-    logger.info(String.format("<< Miller-Rabin says: %d is perhaps a prime.", n));
+    if (tracing) {
+      trace.endTable(String.format("Miller-Rabin says: %d is perhaps a prime.", n));
+    }
     return true;
   }
+  
+  /**
+   * Miller-Rabin primality test with the precomputed Barrett constants of the candidate, so 
+   * several witnesses against the same number share them.
+   * 
+   * @param a a random value such that 0 < a < x
+   * @param x the Barrett context of the number to be tested for primality
+   * @return false if the number is not a prime or true if the number is maybe a prime
+   * @see #PrimalityTesting(int, Binary)
+   */
+  public static boolean PrimalityTesting(int a, BarrettContext x) {
+    int n = x.getModulus();
+    int e = n - 1;
+    
+    if (a < 0 || a > n) {
+      throw new IllegalArgumentException("a is not in 0 < a < x");
+    }
+    
+    int y = 1;
+    int z;
+    
+    for (int i = Integer.SIZE - 1 - Integer.numberOfLeadingZeros(e); i >= 0; i--) {
+      z = y;
+      y = x.multiply(y, y);
+      
+      // a nontrivial square root of 1 proves n composite
+      if (y == 1 && z != 1 && z != e) {
+        return false;
+      }
+      
+      if (((e >>> i) & 0x1) == 1) {
+        y = x.multiply(y, a);
+      }
+    }
+    
+    return y == 1;
+  }
+  
+  /**
+   * Deterministic Miller-Rabin primality test for int values.
+   * 
+   * Writes n - 1 = 2^s * d with d odd and checks the witnesses 2, 7 and 61, which together 
+   * have no strong pseudoprime below 4,759,123,141. The arithmetic is done in Montgomery form.
+   * 
+   * @param n the number to be tested for primality
+   * @return true if and only if <code>n</code> is a prime
+   */
+  public static boolean DeterministicPrimalityTesting(int n) {
+    if (n < 2) {
+      return false;
+    }
+    if (n < 4) {
+      return true;
+    }
+    if ((n & 0x1) == 0) {
+      return false;
+    }
+    
+    int s = Integer.numberOfTrailingZeros(n - 1);
+    int d = (n - 1) >>> s;
+    
+    MontgomeryContext m = new MontgomeryContext(n);
+    long one = m.getOne();
+    long minusOne = n - one;
+    
+    for (int a : WITNESSES_32) {
+      a = a % n;
+      if (a == 0) {
+        continue;
+      }
+      
+      long x = m.power(m.toMontgomery(a), d);
+      if (x == one || x == minusOne) {
+        continue;
+      }
+      
+      boolean composite = true;
+      for (int r = 1; r < s && composite; r++) {
+        x = m.multiply(x, x);
+        composite = x != minusOne;
+      }
+      
+      if (composite) {
+        return false;
+      }
+    }
+    return true;
+  }
+  
+  /**
+   * Deterministic Miller-Rabin primality test for long values.
+   * 
+   * Writes n - 1 = 2^s * d with d odd and checks Sinclair's seven witnesses 2, 325, 9375, 
+   * 28178, 450775, 9780504 and 1795265022, which together have no strong pseudoprime below 2^64.
+   * The arithmetic is done in Montgomery form with a {@link LongMontgomeryContext}.
+   * 
+   * @param n the number to be tested for primality
+   * @return true if and only if <code>n</code> is a prime
+   */
+  public static boolean DeterministicPrimalityTesting(long n) {
+    if (n <= Integer.MAX_VALUE) {
+      return n >= 0 && RSAMath.DeterministicPrimalityTesting((int) n);
+    }
+    if ((n & 0x1) == 0) {
+      return false;
+    }
+    
+    int s = Long.numberOfTrailingZeros(n - 1);
+    long d = (n - 1) >>> s;
+    
+    LongMontgomeryContext m = new LongMontgomeryContext(n);
+    long one = m.getOne();
+    long minusOne = n - one;
+    
+    for (long a : WITNESSES_64) {
+      a = a % n;
+      if (a == 0) {
+        continue;
+      }
+      
+      long x = m.power(m.toMontgomery(a), d);
+      if (x == one || x == minusOne) {
+        continue;
+      }
+      
+      boolean composite = true;
+      for (int r = 1; r < s && composite; r++) {
+        x = m.multiply(x, x);
+        composite = x != minusOne;
+      }
+      
+      if (composite) {
+        return false;
+      }
+    }
+    return true;
+  }
+  
+  /**
+   * Miller-Rabin primality test on arbitrary-precision natural numbers
+   * 
+   * a^(x-1) != 1 mod x then x is not a prime
+   * 
+   * @param a a random value such that 0 < a < x
+   * @param x the number to be tested for primality
+   * @return false if the number is not a prime or true if the number is maybe a prime
+   * @see #PrimalityTesting(int, Binary)
+   */
+  public static boolean PrimalityTesting(BigNatural a, BigNatural x) {
+    if (a.compareTo(x) > 0) {
+      throw new IllegalArgumentException("a is not in 0 < a < x");
+    }
+    
+    BigNatural.Reducer reducer = new BigNatural.Reducer(x);
+    int k = reducer.size();
+    BigNatural e = x.subtract(BigNatural.ONE);
+    
+    int[] one = new int[k];
+    BigNatural.ONE.copyLimbsTo(one);
+    int[] minusOne = new int[k];
+    e.copyLimbsTo(minusOne);
+    int[] base = new int[k];
+    reducer.reduce(a.limbs(), a.limbCount(), base);
+    
+    int[] y = new int[k];
+    reducer.reduce(one, k, y);
+    int[] z = new int[k];
+    
+    for (int i = e.bitLength() - 1; i >= 0; i--) {
+      System.arraycopy(y, 0, z, 0, k);
+      reducer.multiply(y, y, y);
+      
+      if (BigNatural.compare(y, k, one, k) == 0 
+          && BigNatural.compare(z, k, one, k) != 0 
+          && BigNatural.compare(z, k, minusOne, k) != 0) {
+        return false;
+      }
+      
+      if (e.testBit(i)) {
+        reducer.multiply(y, base, y);
+      }
+    }
+    
+    return BigNatural.compare(y, k, one, k) == 0;
+  }
 }
@@ -1,6 +1,10 @@
 /**
  * An immutable container class that contains private exponent d and modulus n information.
  * 
+ * The key builds the {@link BarrettContext} of its modulus and compiles its 
+ * {@link ExponentiationPlan} on first use and keeps them, and likewise its
+ * {@link SignatureTable} when it first signs a short digest.
+ * 
  * @author cpp270
  *
  */
@@ -8,6 +12,11 @@ public class RSAPrivateKey {
   private final int privateExponent;
   private final int modulus;
   
+  // built on first use; racing threads build equal plans, so no lock is needed
+  private volatile ExponentiationPlan plan;
+  private volatile BarrettContext barrett;
+  private volatile SignatureTable signatureTable;
+  
   /**
    * Creates a new private key object.
    * 
@@ -36,5 +45,48 @@ public class RSAPrivateKey {
   public int getPrivateExponent() {
     return privateExponent;
   }
+  
+  /**
+   * Returns the Barrett reduction context of the modulus, building it on the first call.
+   * 
+   * @return the Barrett context of n
+   * @throws IllegalArgumentException if the modulus is less than 2
+   */
+  public BarrettContext getBarrettContext() {
+    BarrettContext b = barrett;
+    if (b == null) {
+      b = new BarrettContext(modulus);
+      barrett = b;
+    }
+    return b;
+  }
+  
+  /**
+   * Returns the plan for computing a^d mod n, compiling it on the first call.
+   * 
+   * @return the exponentiation plan of this key
+   */
+  public ExponentiationPlan getExponentiationPlan() {
+    ExponentiationPlan p = plan;
+    if (p == null) {
+      p = new ExponentiationPlan(privateExponent, getBarrettContext());
+      plan = p;
+    }
+    return p;
+  }
+  
+  /**
+   * Returns the signatures of all short digest values, computing them on the first call.
+   * 
+   * @return the signature table of this key
+   */
+  public SignatureTable getSignatureTable() {
+    SignatureTable t = signatureTable;
+    if (t == null) {
+      t = new SignatureTable(this);
+      signatureTable = t;
+    }
+    return t;
+  }
 
 }
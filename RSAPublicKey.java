@@ -1,6 +1,9 @@
 /**
  * An immutable container class that contains public exponent e and modulus n information.
  * 
+ * The key builds the {@link BarrettContext} of its modulus and compiles its 
+ * {@link ExponentiationPlan} on first use and keeps them.
+ * 
  * @author cpp270
  *
  */
@@ -8,6 +11,10 @@ public class RSAPublicKey {
   private final int publicExponent;
   private final int modulus;
   
+  // built on first use; racing threads build equal plans, so no lock is needed
+  private volatile ExponentiationPlan plan;
+  private volatile BarrettContext barrett;
+  
   /**
    * Creates a new public key object.
    * 
@@ -36,4 +43,33 @@ public class RSAPublicKey {
   public int getPublicExponent() {
     return publicExponent;
   }
+  
+  /**
+   * Returns the Barrett reduction context of the modulus, building it on the first call.
+   * 
+   * @return the Barrett context of n
+   * @throws IllegalArgumentException if the modulus is less than 2
+   */
+  public BarrettContext getBarrettContext() {
+    BarrettContext b = barrett;
+    if (b == null) {
+      b = new BarrettContext(modulus);
+      barrett = b;
+    }
+    return b;
+  }
+  
+  /**
+   * Returns the plan for computing a^e mod n, compiling it on the first call.
+   * 
+   * @return the exponentiation plan of this key
+   */
+  public ExponentiationPlan getExponentiationPlan() {
+    ExponentiationPlan p = plan;
+    if (p == null) {
+      p = new ExponentiationPlan(publicExponent, getBarrettContext());
+      plan = p;
+    }
+    return p;
+  }
 }
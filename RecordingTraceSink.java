@@ -0,0 +1,195 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A trace sink that keeps everything in memory as structured tables, e.g. for printing the
+ * classroom tables after the fact or for inspecting them in a program.
+ * 
+ * Instances are not thread safe.
+ * 
+ * @author cpp270
+ *
+ */
+public class RecordingTraceSink implements TraceSink {
+  private final List<String> messages = new ArrayList<String>();
+  private final List<Table> tables = new ArrayList<Table>();
+  private Table current = null;
+
+  @Override
+  public boolean isEnabled() {
+    return true;
+  }
+
+  @Override
+  public void message(String text) {
+    messages.add(text);
+  }
+
+  @Override
+  public void beginTable(String title, String... columns) {
+    current = new Table(title, columns);
+    tables.add(current);
+  }
+
+  @Override
+  public void row(long... values) {
+    if (current == null) {
+      throw new IllegalStateException("no table has been started");
+    }
+    current.rows.add(values.clone());
+  }
+
+  @Override
+  public void endTable(String summary) {
+    if (current == null) {
+      throw new IllegalStateException("no table has been started");
+    }
+    current.summary = summary;
+    current = null;
+  }
+  
+  /**
+   * 
+   * @return the recorded free form lines in order
+   */
+  public List<String> getMessages() {
+    return Collections.unmodifiableList(messages);
+  }
+  
+  /**
+   * 
+   * @return the recorded tables in order
+   */
+  public List<Table> getTables() {
+    return Collections.unmodifiableList(tables);
+  }
+  
+  /**
+   * Discards everything recorded so far.
+   */
+  public void clear() {
+    messages.clear();
+    tables.clear();
+    current = null;
+  }
+  
+  /**
+   * This method returns all recorded tables formatted with right aligned columns.
+   * 
+   * @return the tables as text
+   */
+  @Override
+  public String toString() {
+    StringBuilder b = new StringBuilder();
+    for (Table t : tables) {
+      b.append(t).append(System.lineSeparator());
+    }
+    return b.toString();
+  }
+
+  /**
+   * One recorded table.
+   * 
+   * @author cpp270
+   *
+   */
+  public static class Table {
+    private final String title;
+    private final String[] columns;
+    private final List<long[]> rows = new ArrayList<long[]>();
+    private String summary;
+    
+    private Table(String title, String[] columns) {
+      this.title = title;
+      this.columns = columns.clone();
+    }
+    
+    /**
+     * 
+     * @return what the table shows
+     */
+    public String getTitle() {
+      return title;
+    }
+    
+    /**
+     * 
+     * @return the number of columns
+     */
+    public int getColumnCount() {
+      return columns.length;
+    }
+    
+    /**
+     * 
+     * @param i column index
+     * @return the heading of column <code>i</code>
+     */
+    public String getColumn(int i) {
+      return columns[i];
+    }
+    
+    /**
+     * 
+     * @return the number of rows
+     */
+    public int getRowCount() {
+      return rows.size();
+    }
+    
+    /**
+     * 
+     * @param row row index
+     * @param column column index
+     * @return the value at the given row and column
+     */
+    public long getValue(int row, int column) {
+      return rows.get(row)[column];
+    }
+    
+    /**
+     * 
+     * @return the outcome shown below the table, or null if the table was not ended
+     */
+    public String getSummary() {
+      return summary;
+    }
+    
+    /**
+     * This method returns the table formatted with right aligned columns.
+     * 
+     * @return the table as text
+     */
+    @Override
+    public String toString() {
+      int[] widths = new int[columns.length];
+      for (int i = 0; i < columns.length; i++) {
+        widths[i] = columns[i].length();
+      }
+      for (long[] r : rows) {
+        for (int i = 0; i < r.length && i < widths.length; i++) {
+          widths[i] = Math.max(widths[i], Long.toString(r[i]).length());
+        }
+      }
+      
+      String nl = System.lineSeparator();
+      StringBuilder b = new StringBuilder();
+      b.append(title).append(nl);
+      for (int i = 0; i < columns.length; i++) {
+        b.append(String.format("%" + (widths[i] + 1) + "s", columns[i]));
+      }
+      b.append(nl);
+      for (long[] r : rows) {
+        for (int i = 0; i < r.length; i++) {
+          b.append(String.format("%" + ((i < widths.length ? widths[i] : 0) + 1) + "d", r[i]));
+        }
+        b.append(nl);
+      }
+      if (summary != null) {
+        b.append(summary).append(nl);
+      }
+      return b.toString();
+    }
+  }
+}
@@ -0,0 +1,52 @@
+/**
+ * The portable {@link ExponentiationKernel}: every step of the exponent over all lanes in turn,
+ * with the same 64 bit Montgomery product as {@link MontgomeryContext#multiply(long, long)}.
+ *
+ * @author cpp270
+ *
+ */
+final class ScalarExponentiationKernel implements ExponentiationKernel {
+  static final ScalarExponentiationKernel INSTANCE = new ScalarExponentiationKernel();
+
+  private static final long MASK = 0xFFFFFFFFL;
+
+  private ScalarExponentiationKernel() {
+  }
+
+  @Override
+  public void modPow(long[] n, long[] nPrime, long[] base, long[] y, int exponent, int from,
+      int to) {
+    int top = Integer.SIZE - 1 - Integer.numberOfLeadingZeros(exponent);
+
+    // bit by bit over all lanes, so the products of neighbouring lanes overlap in the pipeline
+    for (int k = top; k >= 0; k--) {
+      boolean multiplying = ((exponent >>> k) & 0x1) == 1;
+
+      for (int i = from; i < to; i++) {
+        // squaring
+        long yi = multiply(y[i], y[i], n[i], nPrime[i]);
+
+        if (multiplying) {
+          // multiplying
+          yi = multiply(yi, base[i], n[i], nPrime[i]);
+        }
+        y[i] = yi;
+      }
+    }
+
+    for (int i = from; i < to; i++) {
+      y[i] = multiply(y[i], 1, n[i], nPrime[i]);
+    }
+  }
+
+  /*
+   * a*b*R^-1 mod n
+   */
+  static long multiply(long a, long b, long n, long nPrime) {
+    long t = a * b;
+    long m = ((t & MASK) * nPrime) & MASK;
+    long u = (t + m * n) >>> 32;
+
+    return u >= n ? u - n : u;
+  }
+}
@@ -0,0 +1,97 @@
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 of the message bytes. Byte k of the message holds bits 8k to 8k+7, least 
+ * significant bit first, the same layout that {@link BinaryHasher} reads; a last partial byte 
+ * is padded with zeros.
+ * 
+ * Every thread keeps its own {@link MessageDigest} and buffers, so no objects are created per
+ * digest once the buffers have grown to the message size.
+ * 
+ * @author cpp270
+ *
+ */
+public final class Sha256Digest implements Digest {
+  /**
+   * The only instance; also available as {@link Digest#SHA_256}.
+   */
+  public static final Sha256Digest INSTANCE = new Sha256Digest();
+  
+  private static final String ALGORITHM = "SHA-256";
+  private static final int DIGEST_BYTES = 32;
+  private static final int INITIAL_BUFFER_SIZE = 64;
+  
+  private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+  
+  private Sha256Digest() {
+  }
+
+  @Override
+  public String getAlgorithm() {
+    return ALGORITHM;
+  }
+
+  @Override
+  public int getDigestLength() {
+    return DIGEST_BYTES * Binary.BYTESIZE;
+  }
+
+  @Override
+  public int digest(Binary message, int bits) {
+    if (message == null) {
+      throw new NullPointerException("the message parameter must be non-null");
+    }
+    if (bits < 1 || bits >= Integer.SIZE) {
+      throw new IllegalArgumentException("bits is not in 0 < bits < 32");
+    }
+    
+    State state = STATE.get();
+    
+    long[] words = message.words();
+    int length = (message.length() + Binary.BYTESIZE - 1) / Binary.BYTESIZE;
+    byte[] in = state.input(length);
+    
+    for (int i = 0; i < length; i++) {
+      in[i] = (byte) (words[i >>> 3] >>> ((i & 0x7) << 3));
+    }
+    
+    byte[] out = state.output;
+    try {
+      state.md.update(in, 0, length);
+      state.md.digest(out, 0, DIGEST_BYTES);
+    } catch (DigestException e) {
+      throw new IllegalStateException("digest failed", e);
+    }
+    
+    // the leading 32 bits, first byte most significant
+    int lead = (out[0] & 0xFF) << 24 | (out[1] & 0xFF) << 16 | (out[2] & 0xFF) << 8 | (out[3] & 0xFF);
+    return lead >>> (Integer.SIZE - bits);
+  }
+  
+  /*
+   * The digest and buffers of one thread
+   */
+  private static final class State {
+    private final MessageDigest md;
+    private final byte[] output = new byte[DIGEST_BYTES];
+    private byte[] input = new byte[INITIAL_BUFFER_SIZE];
+    
+    State() {
+      try {
+        md = MessageDigest.getInstance(ALGORITHM);
+      } catch (NoSuchAlgorithmException e) {
+        // every Java platform has to support SHA-256
+        throw new IllegalStateException(ALGORITHM + " not available", e);
+      }
+    }
+    
+    byte[] input(int length) {
+      if (input.length < length) {
+        input = new byte[Math.max(length, input.length * 2)];
+      }
+      return input;
+    }
+  }
+}
@@ -0,0 +1,104 @@
+import java.util.stream.IntStream;
+
+/**
+ * All signatures a private key can produce over a digest of at most {@link #DIGEST_BITS} bits.
+ *
+ * {@link Digest#XOR_FOLD} yields one of only 2^{@link Binary#BYTESIZE} values, so an issuer
+ * signing with it only ever computes the same 256 exponentiations. The table computes them all
+ * once, in parallel, and signing becomes a hash and an array lookup.
+ *
+ * Instances are immutable and can be shared between threads. Keys build their table on first
+ * use, see {@link RSAPrivateKey#getSignatureTable()}.
+ *
+ * @author cpp270
+ *
+ */
+public final class SignatureTable {
+  /**
+   * The longest digest covered by a table.
+   */
+  public static final int DIGEST_BITS = Binary.BYTESIZE;
+
+  private final int modulus;
+
+  // signatures[h] = h^d mod n
+  private final int[] signatures;
+
+  /**
+   * Computes the signatures of every digest value below min(2^{@link #DIGEST_BITS}, n) with
+   * <code>key</code>.
+   *
+   * @param key the private key
+   */
+  public SignatureTable(RSAPrivateKey key) {
+    if (key == null) {
+      throw new NullPointerException("the key parameter must be non-null");
+    }
+
+    this.modulus = key.getModulus();
+
+    int size = (int) Math.min(1L << DIGEST_BITS, modulus);
+    int[] table = new int[size];
+    IntStream.range(0, size).parallel()
+        .forEach(h -> table[h] = RSAMath.PrivateExponentiation(h, key));
+
+    this.signatures = table;
+  }
+
+  /**
+   * Tells whether signatures over <code>digest</code> can be looked up in a table.
+   *
+   * @param digest the digest
+   * @return true if the digest is at most {@link #DIGEST_BITS} bits long
+   */
+  public static boolean covers(Digest digest) {
+    return digest.getDigestLength() <= DIGEST_BITS;
+  }
+
+  /**
+   * Tells whether signatures over <code>digest</code> with a key of modulus <code>modulus</code>
+   * are looked up in a table. A modulus below 2^{@link #DIGEST_BITS} cuts the digest to fewer
+   * bits, and a private exponentiation with it costs a handful of multiplications, so such keys
+   * sign directly.
+   *
+   * @param digest the digest
+   * @param modulus the modulus n of the signing key
+   * @return true if the digest is at most {@link #DIGEST_BITS} bits long and n is at least
+   * 2^{@link #DIGEST_BITS}
+   */
+  public static boolean covers(Digest digest, int modulus) {
+    return covers(digest) && modulus >= 1 << DIGEST_BITS;
+  }
+
+  /**
+   * Returns the signature h^d mod n.
+   *
+   * @param h the digest value
+   * @return the signature of <code>h</code>
+   * @throws IllegalArgumentException if <code>h</code> is outside the table
+   */
+  public int sign(int h) {
+    if (h < 0 || h >= signatures.length) {
+      throw new IllegalArgumentException("digest value is not in the table");
+    }
+    return signatures[h];
+  }
+
+  /**
+   * Returns the modulus n of the key the table was computed with.
+   *
+   * @return the modulus
+   */
+  public int getModulus() {
+    return modulus;
+  }
+
+  /**
+   * Returns the number of digest values in the table.
+   *
+   * @return the table size
+   */
+  public int size() {
+    return signatures.length;
+  }
+}
@@ -0,0 +1,51 @@
+/**
+ * Receives the step by step traces of the algorithms in {@link RSAMath}, {@link Prime}, 
+ * {@link RSAKeyGen} and {@link DigitalCertificate}, e.g. the tables shown in class.
+ * 
+ * Callers check {@link #isEnabled()} before building any trace data, so with the 
+ * {@link #NONE} sink the loops do no formatting and no allocation.
+ * 
+ * @author cpp270
+ *
+ */
+public interface TraceSink {
+  /**
+   * A sink that discards everything. It is the default for every thread.
+   */
+  public static final TraceSink NONE = NullTraceSink.INSTANCE;
+  
+  /**
+   * 
+   * @return true if this sink wants traces; false means callers may skip tracing altogether
+   */
+  public boolean isEnabled();
+  
+  /**
+   * Records a free form line, e.g. a section marker.
+   * 
+   * @param text the line
+   */
+  public void message(String text);
+  
+  /**
+   * Starts a new table.
+   * 
+   * @param title what the table shows
+   * @param columns the column headings
+   */
+  public void beginTable(String title, String... columns);
+  
+  /**
+   * Adds a row to the current table.
+   * 
+   * @param values one value per column
+   */
+  public void row(long... values);
+  
+  /**
+   * Ends the current table.
+   * 
+   * @param summary the outcome shown below the table
+   */
+  public void endTable(String summary);
+}
@@ -0,0 +1,71 @@
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The {@link ExponentiationKernel} on the incubating Vector API: as many lanes as the preferred
+ * vector holds longs, e.g. 8 with AVX-512, run every Montgomery product at once. The exponent
+ * is shared, so all lanes take the same branch and no lane masks are needed; the lanes left
+ * over after the last whole vector go through {@link ScalarExponentiationKernel}.
+ *
+ * This class needs Java 16 or later with <code>--add-modules jdk.incubator.vector</code>; it is
+ * compiled by the <code>vector</code> profile and only loaded when the module is present, see
+ * {@link BatchExponentiation#isVectorized()}.
+ *
+ * @author cpp270
+ *
+ */
+final class VectorExponentiationKernel implements ExponentiationKernel {
+  private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+  private static final long MASK = 0xFFFFFFFFL;
+
+  @Override
+  public void modPow(long[] n, long[] nPrime, long[] base, long[] y, int exponent, int from,
+      int to) {
+    int top = Integer.SIZE - 1 - Integer.numberOfLeadingZeros(exponent);
+    int bound = from + SPECIES.loopBound(to - from);
+    int step = SPECIES.length();
+
+    // bit by bit over all vectors, so the products of neighbouring vectors overlap in the
+    // pipeline instead of waiting on each other
+    for (int k = top; k >= 0; k--) {
+      boolean multiplying = ((exponent >>> k) & 0x1) == 1;
+
+      for (int i = from; i < bound; i += step) {
+        LongVector vn = LongVector.fromArray(SPECIES, n, i);
+        LongVector vp = LongVector.fromArray(SPECIES, nPrime, i);
+        LongVector vy = LongVector.fromArray(SPECIES, y, i);
+
+        // squaring
+        vy = multiply(vy, vy, vn, vp);
+
+        if (multiplying) {
+          // multiplying
+          vy = multiply(vy, LongVector.fromArray(SPECIES, base, i), vn, vp);
+        }
+        vy.intoArray(y, i);
+      }
+    }
+
+    LongVector one = LongVector.broadcast(SPECIES, 1);
+    for (int i = from; i < bound; i += step) {
+      LongVector vn = LongVector.fromArray(SPECIES, n, i);
+      LongVector vp = LongVector.fromArray(SPECIES, nPrime, i);
+      multiply(LongVector.fromArray(SPECIES, y, i), one, vn, vp).intoArray(y, i);
+    }
+
+    ScalarExponentiationKernel.INSTANCE.modPow(n, nPrime, base, y, exponent, bound, to);
+  }
+
+  /*
+   * a*b*R^-1 mod n in every lane; t + m*n may reach 2^63, so the shift is unsigned
+   */
+  private static LongVector multiply(LongVector a, LongVector b, LongVector n, LongVector nPrime) {
+    LongVector t = a.mul(b);
+    LongVector m = t.and(MASK).mul(nPrime).and(MASK);
+    LongVector u = t.add(m.mul(n)).lanewise(VectorOperators.LSHR, 32);
+
+    return u.sub(n, u.compare(VectorOperators.GE, n));
+  }
+}
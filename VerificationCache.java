@@ -0,0 +1,365 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache of certificate verification results, so a certificate presented again is
+ * answered without an exponentiation.
+ *
+ * Entries are keyed by what the signature covers: the subject, the subject's key, the digest
+ * and the signature value, together with the issuer key. A 64 bit fingerprint of these picks
+ * the stripe and the table slot, and the fields themselves are compared on a hit, so a
+ * fingerprint collision can never return the result of another certificate.
+ *
+ * The cache is split into stripes, each with its own lock, LRU order and frequency sketch.
+ * When a stripe is full, a new entry is admitted only if it has been asked for more often
+ * than the least recently used entry it would evict (TinyLFU admission), so a burst of
+ * one-off certificates does not flush the ones presented over and over. Entries can expire
+ * after a fixed time to live.
+ *
+ * @author cpp270
+ *
+ */
+public class VerificationCache {
+  private static final int STRIPES = 16;
+
+  private final Stripe[] stripes = new Stripe[STRIPES];
+  private final long timeToLiveNanos;
+
+  // metrics
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  /**
+   * Creates a cache of at most <code>capacity</code> results that never expire.
+   *
+   * @param capacity the most results held, rounded up to a multiple of 16 stripes
+   */
+  public VerificationCache(int capacity) {
+    this(capacity, 0, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Creates a cache of at most <code>capacity</code> results that expire
+   * <code>timeToLive</code> after they were stored.
+   *
+   * @param capacity the most results held, rounded up to a multiple of 16 stripes
+   * @param timeToLive how long a result stays valid, or 0 for ever
+   * @param unit the unit of <code>timeToLive</code>
+   */
+  public VerificationCache(int capacity, long timeToLive, TimeUnit unit) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity of at least 1 required");
+    }
+    if (timeToLive < 0) {
+      throw new IllegalArgumentException("none negative arguments required");
+    }
+    if (unit == null) {
+      throw new NullPointerException("the unit parameter must be non-null");
+    }
+
+    this.timeToLiveNanos = unit.toNanos(timeToLive);
+
+    int perStripe = (capacity + STRIPES - 1) / STRIPES;
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new Stripe(perStripe);
+    }
+  }
+
+  /**
+   * Verifies <code>certificate</code> with <code>issuerKey</code>, answering from the cache
+   * when the same certificate was verified with the same key before.
+   *
+   * @param certificate the certificate to check
+   * @param issuerKey the public key of the issuer
+   * @return true if the certificate is signed and the signature matches; false otherwise
+   * @see DigitalCertificate#verify(RSAPublicKey)
+   */
+  public boolean verify(DigitalCertificate certificate, RSAPublicKey issuerKey) {
+    if (certificate == null) {
+      throw new NullPointerException("the certificate parameter must be non-null");
+    }
+    if (issuerKey == null) {
+      throw new NullPointerException("the issuer key parameter must be non-null");
+    }
+
+    Key key = new Key(certificate, issuerKey);
+    Stripe stripe = stripes[(int) (key.fingerprint >>> 60) & (STRIPES - 1)];
+    long now = timeToLiveNanos == 0 ? 0 : System.nanoTime();
+
+    Boolean cached = stripe.get(key, now);
+    if (cached != null) {
+      hits.incrementAndGet();
+      return cached;
+    }
+
+    misses.incrementAndGet();
+    boolean verified = certificate.verify(issuerKey);
+
+    if (stripe.put(key, verified, now + timeToLiveNanos)) {
+      evictions.incrementAndGet();
+    }
+    return verified;
+  }
+
+  /**
+   * Removes all results.
+   */
+  public void clear() {
+    for (Stripe s : stripes) {
+      s.clear();
+    }
+  }
+
+  /**
+   * Returns the number of results held.
+   *
+   * @return the number of results
+   */
+  public int size() {
+    int size = 0;
+    for (Stripe s : stripes) {
+      size += s.size();
+    }
+    return size;
+  }
+
+  /**
+   * Returns the number of verifications answered from the cache.
+   *
+   * @return the number of hits
+   */
+  public long getHits() {
+    return hits.get();
+  }
+
+  /**
+   * Returns the number of verifications that had to be computed.
+   *
+   * @return the number of misses
+   */
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * Returns the number of results dropped to make room for others.
+   *
+   * @return the number of evictions
+   */
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  /**
+   * Returns the fraction of verifications answered from the cache.
+   *
+   * @return hits / (hits + misses), or 0 before the first verification
+   */
+  public double getHitRate() {
+    long h = hits.get();
+    long total = h + misses.get();
+    return total == 0 ? 0 : (double) h / total;
+  }
+
+  /*
+   * One lock, one LRU map and one frequency sketch
+   */
+  private static final class Stripe {
+    private final int capacity;
+    private final LinkedHashMap<Key, Entry> entries;
+    private final FrequencySketch sketch;
+
+    Stripe(int capacity) {
+      this.capacity = capacity;
+      this.entries = new LinkedHashMap<Key, Entry>(capacity * 2, 0.75f, true);
+      this.sketch = new FrequencySketch(capacity);
+    }
+
+    synchronized Boolean get(Key key, long now) {
+      sketch.increment(key.fingerprint);
+
+      Entry e = entries.get(key);
+      if (e == null) {
+        return null;
+      }
+      if (e.expires != 0 && now - e.expires >= 0) {
+        entries.remove(key);
+        return null;
+      }
+      return e.verified;
+    }
+
+    /*
+     * Returns true if an entry was evicted to make room
+     */
+    synchronized boolean put(Key key, boolean verified, long expires) {
+      if (entries.size() >= capacity && !entries.containsKey(key)) {
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        Key victim = eldest.next().getKey();
+
+        // TinyLFU admission: keep the victim unless the newcomer is asked for more often
+        if (sketch.frequency(key.fingerprint) <= sketch.frequency(victim.fingerprint)) {
+          return false;
+        }
+        eldest.remove();
+        entries.put(key, new Entry(verified, expires));
+        return true;
+      }
+
+      entries.put(key, new Entry(verified, expires));
+      return false;
+    }
+
+    synchronized void clear() {
+      entries.clear();
+    }
+
+    synchronized int size() {
+      return entries.size();
+    }
+  }
+
+  /*
+   * Count-min sketch of 4 bit counters, four per key, halved every 10 * capacity increments so
+   * old popularity fades. The fingerprint is mixed again before it is cut into indices, since
+   * its top bits pick the stripe and are the same for every key of a sketch
+   */
+  private static final class FrequencySketch {
+    private static final int MAX_COUNT = 15;
+
+    private final byte[] counters;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int capacity) {
+      int size = Integer.highestOneBit(Math.max(16, capacity * 4 - 1)) << 1;
+      this.counters = new byte[size];
+      this.mask = size - 1;
+      this.sampleSize = 10 * capacity;
+    }
+
+    void increment(long fingerprint) {
+      long h = spread(fingerprint);
+      boolean added = false;
+      for (int i = 0; i < 4; i++) {
+        int index = index(h, i);
+        if (counters[index] < MAX_COUNT) {
+          counters[index]++;
+          added = true;
+        }
+      }
+
+      if (added && ++additions >= sampleSize) {
+        for (int i = 0; i < counters.length; i++) {
+          counters[i] >>>= 1;
+        }
+        additions /= 2;
+      }
+    }
+
+    int frequency(long fingerprint) {
+      long h = spread(fingerprint);
+      int min = MAX_COUNT;
+      for (int i = 0; i < 4; i++) {
+        min = Math.min(min, counters[index(h, i)]);
+      }
+      return min;
+    }
+
+    /*
+     * Counter i of a key: bits 16i to 16i+15 of its spread fingerprint
+     */
+    private int index(long h, int i) {
+      return (int) (h >>> (i * 16)) & mask;
+    }
+
+    /*
+     * Multiplying by an odd constant carries the low fingerprint bits into every higher bit and
+     * the shift folds the high half back down, so no slice is fixed by the stripe bits
+     */
+    private static long spread(long fingerprint) {
+      long h = fingerprint * 0x9E3779B97F4A7C15L;
+      return h ^ (h >>> 32);
+    }
+  }
+
+  /*
+   * A cached result
+   */
+  private static final class Entry {
+    final boolean verified;
+    final long expires;
+
+    Entry(boolean verified, long expires) {
+      this.verified = verified;
+      this.expires = expires;
+    }
+  }
+
+  /*
+   * Everything the verification result depends on
+   */
+  private static final class Key {
+    final String subject;
+    final int modulus;
+    final int publicExponent;
+    final Digest digest;
+    final Binary signature;
+    final int issuerModulus;
+    final int issuerExponent;
+    final long fingerprint;
+
+    Key(DigitalCertificate certificate, RSAPublicKey issuerKey) {
+      this.subject = certificate.getSubject();
+      this.modulus = certificate.getSubjectPublicKey().getModulus();
+      this.publicExponent = certificate.getSubjectPublicKey().getPublicExponent();
+      this.digest = certificate.getDigest();
+      this.signature = certificate.getSignatureValue();
+      this.issuerModulus = issuerKey.getModulus();
+      this.issuerExponent = issuerKey.getPublicExponent();
+
+      long h = subject.hashCode();
+      h = mix(h * 31 + modulus);
+      h = mix(h * 31 + publicExponent);
+      h = mix(h * 31 + System.identityHashCode(digest));
+      h = mix(h * 31 + (signature == null ? -1 : signature.hashCode()));
+      h = mix(h * 31 + issuerModulus);
+      this.fingerprint = mix(h * 31 + issuerExponent);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key k = (Key) o;
+      return fingerprint == k.fingerprint
+          && modulus == k.modulus
+          && publicExponent == k.publicExponent
+          && issuerModulus == k.issuerModulus
+          && issuerExponent == k.issuerExponent
+          && digest == k.digest
+          && subject.equals(k.subject)
+          && (signature == null ? k.signature == null : signature.equals(k.signature));
+    }
+
+    @Override
+    public int hashCode() {
+      return (int) (fingerprint ^ (fingerprint >>> 32));
+    }
+
+    /*
+     * The finalizer of SplitMix64
+     */
+    private static long mix(long z) {
+      z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+      z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+      return z ^ (z >>> 31);
+    }
+  }
+}
@@ -0,0 +1,171 @@
+import java.util.Arrays;
+
+/**
+ * An exponent rewritten as a sum of odd digits times powers of two, 
+ * x = sum of values[k] * 2^positions[k].
+ * 
+ * Every digit is an odd number below 2^width, so an exponentiation only needs the odd powers
+ * a, a^3, ..., a^(2^width - 1) of the base and performs one multiplication per digit plus one
+ * squaring per bit. Digits are ordered from the most significant position down.
+ * 
+ * Fixed k-ary windows are recoded the same way: the trailing zeros of each window are moved
+ * into its position, which keeps the table to odd powers only.
+ * 
+ * @author cpp270
+ *
+ */
+public final class WindowRecoding {
+  // exponent bit lengths at which the window grows by one bit
+  private static final int[] WIDTH_THRESHOLDS = { 7, 25, 81, 241, 673, 1793 };
+  
+  private final int width;
+  private final int[] positions;
+  private final int[] values;
+  
+  private WindowRecoding(int width, int[] positions, int[] values) {
+    this.width = width;
+    this.positions = positions;
+    this.values = values;
+  }
+  
+  /**
+   * Picks the window width for an exponent of the given bit length. Wider windows save 
+   * multiplications but cost 2^(width-1) precomputed powers, so the width grows slowly.
+   * 
+   * @param bitLength the exponent bit length
+   * @return window width between 1 and 7
+   */
+  public static int windowWidth(int bitLength) {
+    int width = 1;
+    for (int threshold : WIDTH_THRESHOLDS) {
+      if (bitLength > threshold) {
+        width++;
+      }
+    }
+    return width;
+  }
+  
+  /**
+   * Recodes the exponent bit array <code>x</code>, least significant bit first.
+   * 
+   * @param x the exponent converted to binary
+   * @param strategy how to scan the exponent
+   * @return the recoded exponent
+   */
+  public static WindowRecoding recode(int[] x, ExponentiationStrategy strategy) {
+    int bitLength = x.length;
+    while (bitLength > 0 && x[bitLength - 1] == 0) {
+      bitLength--;
+    }
+    
+    int width = strategy == ExponentiationStrategy.BINARY ? 1 : windowWidth(bitLength);
+    
+    // at most one digit per bit
+    int[] positions = new int[bitLength];
+    int[] values = new int[bitLength];
+    int count = 0;
+    
+    if (strategy == ExponentiationStrategy.FIXED_WINDOW) {
+      int top = (bitLength - 1) / width * width;
+      for (int low = top; low >= 0; low -= width) {
+        int v = windowValue(x, bitLength, low + width - 1, low);
+        if (v != 0) {
+          int t = Integer.numberOfTrailingZeros(v);
+          positions[count] = low + t;
+          values[count++] = v >>> t;
+        }
+      }
+    } else {
+      int i = bitLength - 1;
+      while (i >= 0) {
+        if (x[i] == 0) {
+          i--;
+          continue;
+        }
+        // the window ends on the lowest set bit within reach
+        int low = Math.max(i - width + 1, 0);
+        while (x[low] == 0) {
+          low++;
+        }
+        positions[count] = low;
+        values[count++] = windowValue(x, bitLength, i, low);
+        i = low - 1;
+      }
+    }
+    
+    return new WindowRecoding(width, 
+        Arrays.copyOf(positions, count), Arrays.copyOf(values, count));
+  }
+  
+  /**
+   * Recodes the exponent <code>x</code>.
+   * 
+   * @param x the exponent
+   * @param strategy how to scan the exponent
+   * @return the recoded exponent
+   */
+  public static WindowRecoding recode(BigNatural x, ExponentiationStrategy strategy) {
+    int[] bits = new int[x.bitLength()];
+    for (int i = 0; i < bits.length; i++) {
+      bits[i] = x.testBit(i) ? 1 : 0;
+    }
+    return recode(bits, strategy);
+  }
+  
+  /*
+   * Value of the bits high..low of x; bits past bitLength read as zero
+   */
+  private static int windowValue(int[] x, int bitLength, int high, int low) {
+    int v = 0;
+    for (int i = Math.min(high, bitLength - 1); i >= low; i--) {
+      v = (v << 1) | x[i];
+    }
+    return v;
+  }
+  
+  /**
+   * 
+   * @return the window width in bits
+   */
+  public int getWidth() {
+    return width;
+  }
+  
+  /**
+   * 
+   * @return the number of odd powers of the base that have to be precomputed
+   */
+  public int getTableSize() {
+    int max = 0;
+    for (int v : values) {
+      max = Math.max(max, v);
+    }
+    return (max + 1) >>> 1;
+  }
+  
+  /**
+   * 
+   * @return the number of non zero digits, i.e. multiplications in the main loop
+   */
+  public int getDigitCount() {
+    return values.length;
+  }
+  
+  /**
+   * 
+   * @param k digit index, zero being the most significant digit
+   * @return the bit position of the digit
+   */
+  public int getPosition(int k) {
+    return positions[k];
+  }
+  
+  /**
+   * 
+   * @param k digit index, zero being the most significant digit
+   * @return the odd digit value
+   */
+  public int getValue(int k) {
+    return values[k];
+  }
+}
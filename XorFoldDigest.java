@@ -0,0 +1,48 @@
+/**
+ * The digest of {@link Binary#hash()}: the exclusive OR of all {@link Binary#BYTESIZE} bit 
+ * chunks of the message. It works on the words of the message in place and has no state.
+ * 
+ * @author cpp270
+ *
+ */
+public final class XorFoldDigest implements Digest {
+  /**
+   * The only instance; also available as {@link Digest#XOR_FOLD}.
+   */
+  public static final XorFoldDigest INSTANCE = new XorFoldDigest();
+  
+  private XorFoldDigest() {
+  }
+
+  @Override
+  public String getAlgorithm() {
+    return "XOR-FOLD";
+  }
+
+  @Override
+  public int getDigestLength() {
+    return Binary.BYTESIZE;
+  }
+
+  @Override
+  public int digest(Binary message, int bits) {
+    if (message == null) {
+      throw new NullPointerException("the message parameter must be non-null");
+    }
+    if (bits < 1 || bits >= Integer.SIZE) {
+      throw new IllegalArgumentException("bits is not in 0 < bits < 32");
+    }
+    
+    long w = 0;
+    for (long word : message.words()) {
+      w ^= word;
+    }
+    
+    w ^= w >>> 32;
+    w ^= w >>> 16;
+    w ^= w >>> 8;
+    
+    int h = (int) (w & 0xFFL);
+    return bits >= Binary.BYTESIZE ? h : h >>> (Binary.BYTESIZE - bits);
+  }
+}
@@ -0,0 +1,301 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Prepared inputs for the JMH benchmarks in <code>rsa.bench</code>.
+ *
+ * JMH does not accept benchmarks in the default package, and classes in a named package cannot
+ * refer to the default package, so every hot path is wrapped here as a {@link Supplier} that
+ * runs one operation on inputs built ahead of time. The benchmarks look the suppliers up once
+ * per trial; the call itself is a plain interface call.
+ *
+ * Every fixture takes the operand size in bits and a variant, which is the exponentiation
+ * strategy where one applies. Sizes up to 31 bits run the int paths, larger sizes the
+ * {@link BigNatural} paths.
+ *
+ * @author cpp270
+ *
+ */
+public class BenchmarkFixtures {
+  private static final long SEED = 0x5EEDL;
+
+  // the primes, keys and certificate of the int sized paths are fixed
+  private static final int PRIME_SIZE = 15;
+  private static final String SUBJECT = "Alice";
+  private static final String ISSUER = "Trent";
+
+  // the number of exponentiations per batch
+  private static final int BATCH_SIZE = 1024;
+
+  /*
+   * Static class; disable constructor
+   */
+  private BenchmarkFixtures() {
+  }
+
+  public static Supplier<Object> montgomeryExponentiation(int bits, String variant) {
+    ExponentiationStrategy strategy = ExponentiationStrategy.valueOf(variant);
+    Random r = new Random(SEED);
+
+    if (bits < Integer.SIZE) {
+      int n = oddModulus(bits, r).intValue();
+      int a = r.nextInt(n);
+      int[] x = Binary.toBitArray(r.nextInt(n));
+      return () -> RSAMath.MontgomeryExponentiation(a, x, n, strategy);
+    }
+
+    BigInteger n = oddModulus(bits, r);
+    BigNatural bn = toBigNatural(n);
+    BigNatural a = toBigNatural(new BigInteger(bits, r).mod(n));
+    BigNatural x = toBigNatural(new BigInteger(bits, r).mod(n));
+    return () -> RSAMath.MontgomeryExponentiation(a, x, bn, strategy);
+  }
+
+  public static Supplier<Object> fastExponentiation(int bits, String variant) {
+    Random r = new Random(SEED);
+
+    if (bits < Integer.SIZE) {
+      int n = oddModulus(bits, r).intValue();
+      int a = r.nextInt(n);
+      int[] x = Binary.toBitArray(r.nextInt(n));
+      return () -> RSAMath.FastExponentiation(a, x, n);
+    }
+
+    BigInteger n = oddModulus(bits, r);
+    BigNatural bn = toBigNatural(n);
+    BigNatural a = toBigNatural(new BigInteger(bits, r).mod(n));
+    BigNatural x = toBigNatural(new BigInteger(bits, r).mod(n));
+    return () -> RSAMath.FastExponentiation(a, x, bn);
+  }
+
+  public static Supplier<Object> longExponentiation(int bits, String variant) {
+    if (bits >= Long.SIZE) {
+      throw new IllegalArgumentException("the long path is limited to 63 bits");
+    }
+
+    Random r = new Random(SEED);
+    long n = oddModulus(bits, r).longValue();
+    long a = new BigInteger(bits, r).longValue() % n;
+    long x = new BigInteger(bits, r).longValue() % n;
+
+    if ("CACHED".equals(variant)) {
+      LongMontgomeryContext context = new LongMontgomeryContext(n);
+      return () -> RSAMath.FastExponentiation(a, x, context);
+    }
+    return () -> RSAMath.FastExponentiation(a, x, n);
+  }
+
+  public static Supplier<Object> barrettExponentiation(int bits, String variant) {
+    Random r = new Random(SEED);
+    BarrettContext n = new BarrettContext(oddModulus(Integer.SIZE - 1, r).intValue());
+    int a = r.nextInt(n.getModulus());
+    int[] x = Binary.toBitArray(exponent(bits, r));
+    return () -> RSAMath.FastExponentiation(a, x, n);
+  }
+
+  public static Supplier<Object> montgomeryShortExponentiation(int bits, String variant) {
+    Random r = new Random(SEED);
+    MontgomeryContext n = new MontgomeryContext(oddModulus(Integer.SIZE - 1, r).intValue());
+    int a = r.nextInt(n.getModulus());
+    WindowRecoding x = WindowRecoding.recode(Binary.toBitArray(exponent(bits, r)),
+        ExponentiationStrategy.SLIDING_WINDOW);
+    return () -> n.modPow(a, x);
+  }
+
+  public static Supplier<Object> batchExponentiation(int bits, String variant) {
+    Random r = new Random(SEED);
+    int n = oddModulus(Integer.SIZE - 1, r).intValue();
+    int x = exponent(bits, r);
+    int[] bases = r.ints(BATCH_SIZE, 0, n).toArray();
+    int[] moduli = new int[BATCH_SIZE];
+    Arrays.fill(moduli, n);
+    int[] results = new int[BATCH_SIZE];
+
+    if ("SCALAR".equals(variant)) {
+      return () -> {
+        BatchExponentiation.modPow(bases, x, moduli, results, ScalarExponentiationKernel.INSTANCE);
+        return results;
+      };
+    }
+    return () -> {
+      BatchExponentiation.modPow(bases, x, moduli, results);
+      return results;
+    };
+  }
+
+  public static Supplier<Object> planExponentiation(int bits, String variant) {
+    Random r = new Random(SEED);
+    int n = oddModulus(Integer.SIZE - 1, r).intValue();
+    ExponentiationPlan plan = new ExponentiationPlan(exponent(bits, r), n);
+    int[] bases = r.ints(BATCH_SIZE, 0, n).toArray();
+    int[] results = new int[BATCH_SIZE];
+
+    return () -> {
+      for (int i = 0; i < BATCH_SIZE; i++) {
+        results[i] = plan.modPow(bases[i]);
+      }
+      return results;
+    };
+  }
+
+  public static Supplier<Object> bigIntegerModPow(int bits, String variant) {
+    Random r = new Random(SEED);
+    BigInteger n = oddModulus(bits, r);
+    BigInteger a = new BigInteger(bits, r).mod(n);
+    BigInteger x = new BigInteger(bits, r).mod(n);
+    return () -> a.modPow(x, n);
+  }
+
+  public static Supplier<Object> primalityTesting(int bits, String variant) {
+    Random r = new Random(SEED);
+    BigInteger p = BigInteger.probablePrime(bits, r);
+
+    if (bits < Integer.SIZE) {
+      int a = 2 + r.nextInt(p.intValue() - 3);
+      Binary x = new Binary(p.intValue());
+      return () -> RSAMath.PrimalityTesting(a, x);
+    }
+
+    BigNatural a = toBigNatural(BigInteger.valueOf(2 + r.nextInt(Integer.MAX_VALUE - 2)));
+    BigNatural x = toBigNatural(p);
+    return () -> RSAMath.PrimalityTesting(a, x);
+  }
+
+  public static Supplier<Object> deterministicPrimalityTesting(int bits, String variant) {
+    if (bits >= Long.SIZE) {
+      throw new IllegalArgumentException("deterministic testing is limited to 63 bits");
+    }
+
+    long p = BigInteger.probablePrime(bits, new Random(SEED)).longValue();
+
+    if (bits < Integer.SIZE) {
+      int n = (int) p;
+      return () -> RSAMath.DeterministicPrimalityTesting(n);
+    }
+    return () -> RSAMath.DeterministicPrimalityTesting(p);
+  }
+
+  public static Supplier<Object> bigIntegerPrimality(int bits, String variant) {
+    BigInteger p = BigInteger.probablePrime(bits, new Random(SEED));
+    return () -> p.isProbablePrime(1);
+  }
+
+  public static Supplier<Object> extendedEuclid(int bits, String variant) {
+    Random r = new Random(SEED);
+    BigInteger m = oddModulus(bits, r);
+    BigInteger e = BigInteger.valueOf(RSAKeyGen.DEFAULT_PUBLIC_EXPONENT).mod(m);
+
+    if (bits < Integer.SIZE) {
+      int a = m.intValue();
+      int b = e.intValue();
+      return () -> RSAMath.ExtendedEuclid(a, b);
+    }
+
+    BigNatural a = toBigNatural(m);
+    BigNatural b = toBigNatural(new BigInteger(bits, r).mod(m));
+    return () -> RSAMath.ExtendedEuclid(a, b);
+  }
+
+  public static Supplier<Object> extendedGCDInverse(int bits, String variant) {
+    Random r = new Random(SEED);
+    BigInteger m = BigInteger.probablePrime(bits, r);
+
+    if (bits < Integer.SIZE) {
+      int a = r.nextInt(m.intValue() - 1) + 1;
+      int n = m.intValue();
+      return () -> ExtendedGCD.inverse(a, n);
+    }
+
+    BigNatural a = toBigNatural(new BigInteger(bits, r).mod(m));
+    BigNatural n = toBigNatural(m);
+    return () -> ExtendedGCD.inverse(a, n);
+  }
+
+  public static Supplier<Object> bigIntegerModInverse(int bits, String variant) {
+    Random r = new Random(SEED);
+    BigInteger m = BigInteger.probablePrime(bits, r);
+    BigInteger a = new BigInteger(bits, r).mod(m);
+    return () -> a.modInverse(m);
+  }
+
+  public static Supplier<Object> binaryHash(int bits, String variant) {
+    Binary b = randomBinary(bits);
+    return () -> b.hash();
+  }
+
+  public static Supplier<Object> binaryHashBitArray(int bits, String variant) {
+    int[] v = randomBinary(bits).toIntArray();
+    return () -> Binary.hash(v);
+  }
+
+  public static Supplier<Object> binaryConcatenate(int bits, String variant) {
+    Binary a = randomBinary(bits);
+    Binary b = randomBinary(bits / 2);
+    Binary c = randomBinary(bits / 4);
+    return () -> Binary.Concatenate(a, b, c);
+  }
+
+  public static Supplier<Object> prime(int bits, String variant) {
+    return () -> new Prime();
+  }
+
+  public static Supplier<Object> primeGenerator(int bits, String variant) {
+    PrimeGenerator generator = new PrimeGenerator(bits, 1e-12);
+    return () -> generator.generate();
+  }
+
+  public static Supplier<Object> rsaKeyGen(int bits, String variant) {
+    return () -> new RSAKeyGen();
+  }
+
+  public static Supplier<Object> rsaKeyGenFixedExponent(int bits, String variant) {
+    PrimeGenerator generator = new PrimeGenerator(PRIME_SIZE, 1e-12);
+    return () -> new RSAKeyGen(generator, RSAKeyGen.DEFAULT_PUBLIC_EXPONENT);
+  }
+
+  public static Supplier<Object> signCertificate(int bits, String variant) {
+    PrimeGenerator generator = new PrimeGenerator(PRIME_SIZE, 1e-12);
+    RSAKeyGen subject = new RSAKeyGen(generator);
+    RSAKeyGen issuer = new RSAKeyGen(generator);
+    RSAPublicKey subjectKey = subject.getPublicKey();
+    RSAPrivateKey issuerKey = issuer.getPrivateKey();
+
+    return () -> {
+      DigitalCertificate c = new DigitalCertificate(SUBJECT, subjectKey);
+      c.signCertificate(ISSUER, issuerKey);
+      return c;
+    };
+  }
+
+  /*
+   * A random odd modulus of exactly bits bits
+   */
+  private static BigInteger oddModulus(int bits, Random r) {
+    return new BigInteger(bits, r).setBit(bits - 1).setBit(0);
+  }
+
+  /*
+   * An exponent of exactly bits bits, at most 31; 2 and 17 bits give e = 3 and e = 65537
+   */
+  private static int exponent(int bits, Random r) {
+    if (bits == 2 || bits == 17) {
+      return (1 << (bits - 1)) + 1;
+    }
+    return oddModulus(bits, r).intValue();
+  }
+
+  private static BigNatural toBigNatural(BigInteger n) {
+    return BigNatural.valueOf(n.toString());
+  }
+
+  private static Binary randomBinary(int bits) {
+    Random r = new Random(SEED);
+    long[] words = new long[(bits + Long.SIZE - 1) / Long.SIZE];
+    for (int i = 0; i < words.length; i++) {
+      words[i] = r.nextLong();
+    }
+    return Binary.valueOf(words, bits);
+  }
+}
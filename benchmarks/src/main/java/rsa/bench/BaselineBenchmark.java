@@ -0,0 +1,88 @@
+package rsa.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Square-and-multiply exponentiation, the Euclid variants and primality testing per key size,
+ * next to the <code>java.math.BigInteger</code> equivalents.
+ *
+ * @author cpp270
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BaselineBenchmark {
+  @Param({ "30", "512", "1024", "2048" })
+  int keyBits;
+
+  private Supplier<Object> fastExponentiation;
+  private Supplier<Object> bigIntegerModPow;
+  private Supplier<Object> extendedEuclid;
+  private Supplier<Object> extendedGCDInverse;
+  private Supplier<Object> bigIntegerModInverse;
+  private Supplier<Object> primalityTesting;
+  private Supplier<Object> bigIntegerPrimality;
+
+  @Setup
+  public void setup() {
+    fastExponentiation = Fixtures.get("fastExponentiation", keyBits, "");
+    bigIntegerModPow = Fixtures.get("bigIntegerModPow", keyBits, "");
+    extendedEuclid = Fixtures.get("extendedEuclid", keyBits, "");
+    extendedGCDInverse = Fixtures.get("extendedGCDInverse", keyBits, "");
+    bigIntegerModInverse = Fixtures.get("bigIntegerModInverse", keyBits, "");
+    primalityTesting = Fixtures.get("primalityTesting", keyBits, "");
+    bigIntegerPrimality = Fixtures.get("bigIntegerPrimality", keyBits, "");
+  }
+
+  @Benchmark
+  public Object fastExponentiation() {
+    return fastExponentiation.get();
+  }
+
+  @Benchmark
+  public Object bigIntegerModPow() {
+    return bigIntegerModPow.get();
+  }
+
+  @Benchmark
+  public Object extendedEuclid() {
+    return extendedEuclid.get();
+  }
+
+  @Benchmark
+  public Object extendedGCDInverse() {
+    return extendedGCDInverse.get();
+  }
+
+  @Benchmark
+  public Object bigIntegerModInverse() {
+    return bigIntegerModInverse.get();
+  }
+
+  @Benchmark
+  public Object primalityTesting() {
+    return primalityTesting.get();
+  }
+
+  @Benchmark
+  public Object bigIntegerPrimality() {
+    return bigIntegerPrimality.get();
+  }
+}
@@ -0,0 +1,61 @@
+package rsa.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 1024 exponentiations modulo one 31 bit modulus with exponents of 2, 17 and 31 bits: the
+ * batch on the Vector API and on its scalar fallback against one plan call per base. The fork
+ * adds the incubating vector module, so this benchmark needs Java 16 or later.
+ *
+ * @author cpp270
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class BatchExponentiationBenchmark {
+  @Param({ "2", "17", "31" })
+  int bits;
+
+  private Supplier<Object> vector;
+  private Supplier<Object> scalar;
+  private Supplier<Object> plan;
+
+  @Setup
+  public void setup() {
+    vector = Fixtures.get("batchExponentiation", bits, "VECTOR");
+    scalar = Fixtures.get("batchExponentiation", bits, "SCALAR");
+    plan = Fixtures.get("planExponentiation", bits, "");
+  }
+
+  @Benchmark
+  public Object batchExponentiation() {
+    return vector.get();
+  }
+
+  @Benchmark
+  public Object scalarBatchExponentiation() {
+    return scalar.get();
+  }
+
+  @Benchmark
+  public Object planExponentiation() {
+    return plan.get();
+  }
+}
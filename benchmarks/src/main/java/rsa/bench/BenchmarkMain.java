@@ -0,0 +1,23 @@
+package rsa.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler attached, so every result comes with its
+ * allocation rate per operation (<code>gc.alloc.rate.norm</code>). Takes the usual JMH command
+ * line, e.g. <code>java -jar benchmarks/target/benchmarks.jar Exponentiation -p keyBits=2048</code>.
+ *
+ * @author cpp270
+ *
+ */
+public class BenchmarkMain {
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    CommandLineOptions cmd = new CommandLineOptions(args);
+    new Runner(new OptionsBuilder().parent(cmd).addProfiler(GCProfiler.class).build()).run();
+  }
+}
@@ -0,0 +1,59 @@
+package rsa.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Hashing and concatenation of bit sequences.
+ *
+ * @author cpp270
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryBenchmark {
+  @Param({ "112", "1024", "8192" })
+  int bits;
+
+  private Supplier<Object> hash;
+  private Supplier<Object> hashBitArray;
+  private Supplier<Object> concatenate;
+
+  @Setup
+  public void setup() {
+    hash = Fixtures.get("binaryHash", bits, "");
+    hashBitArray = Fixtures.get("binaryHashBitArray", bits, "");
+    concatenate = Fixtures.get("binaryConcatenate", bits, "");
+  }
+
+  @Benchmark
+  public Object hash() {
+    return hash.get();
+  }
+
+  @Benchmark
+  public Object hashBitArray() {
+    return hashBitArray.get();
+  }
+
+  @Benchmark
+  public Object concatenate() {
+    return concatenate.get();
+  }
+}
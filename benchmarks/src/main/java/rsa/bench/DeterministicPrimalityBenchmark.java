@@ -0,0 +1,45 @@
+package rsa.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Deterministic Miller-Rabin on word sized primes.
+ *
+ * @author cpp270
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeterministicPrimalityBenchmark {
+  @Param({ "15", "31", "62" })
+  int bits;
+
+  private Supplier<Object> deterministic;
+
+  @Setup
+  public void setup() {
+    deterministic = Fixtures.get("deterministicPrimalityTesting", bits, "");
+  }
+
+  @Benchmark
+  public Object deterministicPrimalityTesting() {
+    return deterministic.get();
+  }
+}
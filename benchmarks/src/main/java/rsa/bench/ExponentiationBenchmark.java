@@ -0,0 +1,48 @@
+package rsa.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Montgomery exponentiation per key size and exponentiation strategy.
+ *
+ * @author cpp270
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExponentiationBenchmark {
+  @Param({ "30", "512", "1024", "2048" })
+  int keyBits;
+
+  @Param({ "BINARY", "FIXED_WINDOW", "SLIDING_WINDOW" })
+  String strategy;
+
+  private Supplier<Object> montgomery;
+
+  @Setup
+  public void setup() {
+    montgomery = Fixtures.get("montgomeryExponentiation", keyBits, strategy);
+  }
+
+  @Benchmark
+  public Object montgomeryExponentiation() {
+    return montgomery.get();
+  }
+}
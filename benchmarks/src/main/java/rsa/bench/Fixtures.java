@@ -0,0 +1,42 @@
+package rsa.bench;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.function.Supplier;
+
+/**
+ * Looks up the prepared operations of <code>BenchmarkFixtures</code>, which lives in the default
+ * package with the code under test.
+ *
+ * @author cpp270
+ *
+ */
+final class Fixtures {
+  private static final String FIXTURES_CLASS = "BenchmarkFixtures";
+
+  /*
+   * Static class; disable constructor
+   */
+  private Fixtures() {
+  }
+
+  /**
+   * Builds the operation <code>name</code> for operands of <code>bits</code> bits.
+   *
+   * @param name the fixture method name
+   * @param bits the operand size in bits
+   * @param variant the exponentiation strategy, or any string where none applies
+   * @return one operation per call
+   */
+  @SuppressWarnings("unchecked")
+  static Supplier<Object> get(String name, int bits, String variant) {
+    try {
+      Method m = Class.forName(FIXTURES_CLASS).getMethod(name, int.class, String.class);
+      return (Supplier<Object>) m.invoke(null, bits, variant);
+    } catch (InvocationTargetException e) {
+      throw new IllegalStateException("fixture " + name + " failed", e.getCause());
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("no fixture " + name, e);
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package rsa.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Prime, key pair and certificate operations on the int sized project keys, which have one size
+ * only. The JDK baselines at real key sizes are in {@link KeyGenBenchmark} and
+ * {@link SignatureBenchmark}.
+ *
+ * @author cpp270
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntKeyBenchmark {
+  // the fixtures ignore the size, the project keys are int sized
+  private static final int ANY_SIZE = 0;
+
+  private Supplier<Object> prime;
+  private Supplier<Object> rsaKeyGen;
+  private Supplier<Object> rsaKeyGenFixedExponent;
+  private Supplier<Object> signCertificate;
+
+  @Setup
+  public void setup() {
+    prime = Fixtures.get("prime", ANY_SIZE, "");
+    rsaKeyGen = Fixtures.get("rsaKeyGen", ANY_SIZE, "");
+    rsaKeyGenFixedExponent = Fixtures.get("rsaKeyGenFixedExponent", ANY_SIZE, "");
+    signCertificate = Fixtures.get("signCertificate", ANY_SIZE, "");
+  }
+
+  @Benchmark
+  public Object prime() {
+    return prime.get();
+  }
+
+  @Benchmark
+  public Object rsaKeyGen() {
+    return rsaKeyGen.get();
+  }
+
+  @Benchmark
+  public Object rsaKeyGenFixedExponent() {
+    return rsaKeyGenFixedExponent.get();
+  }
+
+  @Benchmark
+  public Object signCertificate() {
+    return signCertificate.get();
+  }
+}
@@ -0,0 +1,59 @@
+package rsa.bench;
+
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Prime and key pair generation at each key size: <code>PrimeGenerator</code> primes of half the key
+ * size next to the JDK key pair generator. The int sized project keys are in
+ * {@link IntKeyBenchmark}.
+ *
+ * @author cpp270
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyGenBenchmark {
+  @Param({ "512", "1024", "2048" })
+  int keyBits;
+
+  private Supplier<Object> primeGenerator;
+  private KeyPairGenerator jdkKeyPairGenerator;
+
+  @Setup
+  public void setup() throws NoSuchAlgorithmException {
+    primeGenerator = Fixtures.get("primeGenerator", keyBits / 2, "");
+
+    jdkKeyPairGenerator = KeyPairGenerator.getInstance("RSA");
+    jdkKeyPairGenerator.initialize(keyBits, new SecureRandom());
+  }
+
+  @Benchmark
+  public Object primeGenerator() {
+    return primeGenerator.get();
+  }
+
+  @Benchmark
+  public Object jdkKeyPairGenerator() {
+    return jdkKeyPairGenerator.generateKeyPair();
+  }
+}
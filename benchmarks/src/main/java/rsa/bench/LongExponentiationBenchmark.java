@@ -0,0 +1,61 @@
+package rsa.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Exponentiation with moduli of up to 63 bits: the primitive long path, once with the
+ * Montgomery context built per call and once with a cached one, against Montgomery
+ * exponentiation, which runs on ints up to 31 bits and on multi-limb numbers above.
+ *
+ * @author cpp270
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LongExponentiationBenchmark {
+  @Param({ "31", "47", "62" })
+  int bits;
+
+  private Supplier<Object> primitive;
+  private Supplier<Object> primitiveCached;
+  private Supplier<Object> montgomery;
+
+  @Setup
+  public void setup() {
+    primitive = Fixtures.get("longExponentiation", bits, "");
+    primitiveCached = Fixtures.get("longExponentiation", bits, "CACHED");
+    montgomery = Fixtures.get("montgomeryExponentiation", bits, "SLIDING_WINDOW");
+  }
+
+  @Benchmark
+  public Object longExponentiation() {
+    return primitive.get();
+  }
+
+  @Benchmark
+  public Object longExponentiationCachedContext() {
+    return primitiveCached.get();
+  }
+
+  @Benchmark
+  public Object montgomeryExponentiation() {
+    return montgomery.get();
+  }
+}
@@ -0,0 +1,53 @@
+package rsa.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Exponentiation modulo a 31 bit modulus with exponents of 2 bits (e = 3), 17 bits
+ * (e = 65537) and 31 bits: Barrett reduction against Montgomery form with its conversions.
+ *
+ * @author cpp270
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShortExponentBenchmark {
+  @Param({ "2", "17", "31" })
+  int bits;
+
+  private Supplier<Object> barrett;
+  private Supplier<Object> montgomery;
+
+  @Setup
+  public void setup() {
+    barrett = Fixtures.get("barrettExponentiation", bits, "");
+    montgomery = Fixtures.get("montgomeryShortExponentiation", bits, "");
+  }
+
+  @Benchmark
+  public Object barrettExponentiation() {
+    return barrett.get();
+  }
+
+  @Benchmark
+  public Object montgomeryExponentiation() {
+    return montgomery.get();
+  }
+}
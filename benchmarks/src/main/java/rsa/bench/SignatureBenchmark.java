@@ -0,0 +1,58 @@
+package rsa.bench;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The JDK <code>SHA256withRSA</code> signature of a certificate sized message at each key size;
+ * signing with the int sized project keys is in {@link IntKeyBenchmark}.
+ *
+ * @author cpp270
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignatureBenchmark {
+  // subject, modulus and exponent as laid out in the certificate
+  private static final int CERTIFICATE_BYTES = 14;
+
+  @Param({ "512", "1024", "2048" })
+  int keyBits;
+
+  private Signature jdkSignature;
+  private final byte[] message = new byte[CERTIFICATE_BYTES];
+
+  @Setup
+  public void setup() throws GeneralSecurityException {
+    KeyPairGenerator g = KeyPairGenerator.getInstance("RSA");
+    g.initialize(keyBits);
+    KeyPair keys = g.generateKeyPair();
+    jdkSignature = Signature.getInstance("SHA256withRSA");
+    jdkSignature.initSign(keys.getPrivate());
+  }
+
+  @Benchmark
+  public byte[] jdkSignature() throws GeneralSecurityException {
+    jdkSignature.update(message);
+    return jdkSignature.sign();
+  }
+}
@@ -0,0 +1,78 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks Barrett reduction and the exponentiation plans built on it against
+ * {@link BigInteger}.
+ *
+ * @author cpp270
+ *
+ */
+class BarrettContextTest {
+  private static final int ROUNDS = 5000;
+
+  private final Random random = new Random(0x5EED);
+
+  @Test
+  void reduce() {
+    for (int i = 0; i < ROUNDS; i++) {
+      int n = modulus();
+      BarrettContext context = new BarrettContext(n);
+
+      for (long x : new long[] { 0, n - 1, n, (long) n * n - 1, Long.MAX_VALUE,
+          random.nextLong() >>> 1 + random.nextInt(63) }) {
+        assertEquals(x % n, context.reduce(x), () -> x + " % " + n);
+        assertEquals(x % n, RSAMath.mod(x, context));
+      }
+    }
+  }
+
+  @Test
+  void multiply() {
+    for (int i = 0; i < ROUNDS; i++) {
+      int n = modulus();
+      int a = random.nextInt(n);
+      int b = random.nextInt(n);
+      assertEquals((long) a * b % n, new BarrettContext(n).multiply(a, b));
+    }
+  }
+
+  @Test
+  void modPowAndPlans() {
+    for (int i = 0; i < ROUNDS; i++) {
+      int n = modulus();
+      int a = random.nextInt(Integer.MAX_VALUE);
+      // short exponents such as e = 3 run on Barrett, long ones on Montgomery for odd n
+      int x = random.nextInt(Integer.MAX_VALUE) >>> random.nextInt(31);
+
+      int expected = BigInteger.valueOf(a).modPow(BigInteger.valueOf(x), BigInteger.valueOf(n))
+          .intValue();
+      BarrettContext context = new BarrettContext(n);
+      assertEquals(expected, context.modPow(a, x), () -> a + "^" + x + " % " + n);
+      assertEquals(expected, context.modPow(a, Binary.toBitArray(x)));
+      assertEquals(expected, RSAMath.FastExponentiation(a, Binary.toBitArray(x), context));
+      assertEquals(expected, new ExponentiationPlan(x, context).modPow(a));
+      assertEquals(expected, new ExponentiationPlan(x, n).modPow(a));
+    }
+  }
+
+  @Test
+  void invalidArguments() {
+    assertThrows(IllegalArgumentException.class, () -> new BarrettContext(1));
+    assertThrows(IllegalArgumentException.class, () -> new BarrettContext(7).modPow(-1, 3));
+    assertThrows(IllegalArgumentException.class, () -> new ExponentiationPlan(-1, 7));
+  }
+
+  /*
+   * A modulus of 2 to 31 bits, odd or even
+   */
+  private int modulus() {
+    int bits = 2 + random.nextInt(30);
+    return random.nextInt(1 << (bits - 1)) | 1 << (bits - 1);
+  }
+}
@@ -0,0 +1,104 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks batch exponentiation on the scalar kernel and on the kernel in use, which is the
+ * vector kernel when the build runs the tests with the Vector API, against
+ * {@link BigInteger}.
+ *
+ * @author cpp270
+ *
+ */
+class BatchExponentiationTest {
+  private static final int ROUNDS = 200;
+
+  private final Random random = new Random(0x5EED);
+
+  @Test
+  void mixedModuli() {
+    for (int i = 0; i < ROUNDS; i++) {
+      // lengths that leave a tail after the last full vector
+      int length = random.nextInt(70);
+      int[] bases = new int[length];
+      int[] moduli = new int[length];
+      for (int k = 0; k < length; k++) {
+        moduli[k] = Math.max(2, random.nextInt(Integer.MAX_VALUE) >>> random.nextInt(30));
+        bases[k] = random.nextInt(Integer.MAX_VALUE);
+      }
+      int exponent = random.nextInt(Integer.MAX_VALUE) >>> random.nextInt(31);
+      int[] expected = expected(bases, exponent, moduli);
+
+      int[] results = new int[length];
+      BatchExponentiation.modPow(bases, exponent, moduli, results);
+      assertArrayEquals(expected, results, () -> "exponent " + exponent);
+
+      BatchExponentiation.modPow(bases, exponent, moduli, results,
+          ScalarExponentiationKernel.INSTANCE);
+      assertArrayEquals(expected, results, () -> "scalar, exponent " + exponent);
+    }
+  }
+
+  @Test
+  void sharedModulusInPlace() {
+    for (int i = 0; i < ROUNDS; i++) {
+      int length = random.nextInt(1100);
+      int modulus = Math.max(2, random.nextInt(Integer.MAX_VALUE) >>> random.nextInt(30));
+      int exponent = random.nextBoolean() ? 65537 : random.nextInt(Integer.MAX_VALUE);
+
+      int[] bases = new int[length];
+      int[] moduli = new int[length];
+      for (int k = 0; k < length; k++) {
+        bases[k] = random.nextInt(Integer.MAX_VALUE);
+        moduli[k] = modulus;
+      }
+      int[] expected = expected(bases, exponent, moduli);
+
+      // the results overwrite the bases
+      BatchExponentiation.modPow(bases, exponent, modulus, bases);
+      assertArrayEquals(expected, bases, () -> "modulus " + modulus);
+    }
+  }
+
+  @Test
+  void vectorKernelLoadsWithTheModule() {
+    boolean module = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    assertEquals(module, BatchExponentiation.isVectorized());
+  }
+
+  @Test
+  void invalidArguments() {
+    int[] two = { 1, 2 };
+    assertThrows(IllegalArgumentException.class,
+        () -> BatchExponentiation.modPow(two, 3, new int[] { 7 }, new int[2]));
+    assertThrows(IllegalArgumentException.class,
+        () -> BatchExponentiation.modPow(two, -1, 7, new int[2]));
+    assertThrows(IllegalArgumentException.class,
+        () -> BatchExponentiation.modPow(new int[] { -1 }, 3, 7, new int[1]));
+    assertThrows(IllegalArgumentException.class,
+        () -> BatchExponentiation.modPow(two, 3, 1, new int[2]));
+    assertThrows(NullPointerException.class,
+        () -> BatchExponentiation.modPow(null, 3, 7, new int[2]));
+  }
+
+  @Test
+  void emptyBatch() {
+    int[] results = new int[0];
+    BatchExponentiation.modPow(new int[0], 3, 7, results);
+    assertEquals(0, results.length);
+  }
+
+  private static int[] expected(int[] bases, int exponent, int[] moduli) {
+    int[] expected = new int[bases.length];
+    for (int k = 0; k < bases.length; k++) {
+      expected[k] = BigInteger.valueOf(bases[k]).modPow(BigInteger.valueOf(exponent),
+          BigInteger.valueOf(moduli[k])).intValue();
+    }
+    return expected;
+  }
+}
@@ -0,0 +1,127 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the {@link BigNatural} arithmetic against {@link BigInteger}.
+ *
+ * @author cpp270
+ *
+ */
+class BigNaturalTest {
+  private static final int ROUNDS = 2000;
+
+  // limbs that drive long division through its rare corrections
+  private static final int[] EDGE_LIMBS = { 0, 1, 0x7FFFFFFF, 0x80000000, 0xFFFFFFFF };
+
+  private final Random random = new Random(0x5EED);
+
+  @Test
+  void decimalConversionRoundTrips() {
+    for (int i = 0; i < ROUNDS; i++) {
+      BigInteger a = next();
+      assertEquals(a.toString(), of(a).toString());
+    }
+  }
+
+  @Test
+  void addSubtractMultiply() {
+    for (int i = 0; i < ROUNDS; i++) {
+      BigInteger a = next();
+      BigInteger b = next();
+      BigInteger big = a.max(b);
+      BigInteger small = a.min(b);
+
+      assertEquals(a.add(b), of(of(a).add(of(b))));
+      assertEquals(big.subtract(small), of(of(big).subtract(of(small))));
+      assertEquals(a.multiply(b), of(of(a).multiply(of(b))));
+    }
+  }
+
+  @Test
+  void divideAndRemainder() {
+    for (int i = 0; i < ROUNDS; i++) {
+      BigInteger a = next();
+      BigInteger b = next();
+      if (b.signum() == 0) {
+        continue;
+      }
+
+      BigNatural[] qr = of(a).divideAndRemainder(of(b));
+      BigInteger[] expected = a.divideAndRemainder(b);
+      assertEquals(expected[0], of(qr[0]), () -> a + " / " + b);
+      assertEquals(expected[1], of(qr[1]), () -> a + " % " + b);
+      assertEquals(expected[1], of(of(a).mod(of(b))));
+    }
+  }
+
+  @Test
+  void divideByZero() {
+    assertThrows(ArithmeticException.class,
+        () -> BigNatural.TWO.divideAndRemainder(BigNatural.ZERO));
+    assertThrows(ArithmeticException.class, () -> BigNatural.TWO.mod(BigNatural.ZERO));
+  }
+
+  @Test
+  void shiftsAndBits() {
+    for (int i = 0; i < ROUNDS; i++) {
+      BigInteger a = next();
+      int n = random.nextInt(100);
+
+      assertEquals(a.shiftLeft(n), of(of(a).shiftLeft(n)));
+      assertEquals(a.shiftRight(n), of(of(a).shiftRight(n)));
+      assertEquals(a.bitLength(), of(a).bitLength());
+      assertEquals(a.testBit(n), of(a).testBit(n));
+    }
+  }
+
+  @Test
+  void smallModulus() {
+    for (int i = 0; i < ROUNDS; i++) {
+      BigInteger a = next();
+      int d = 1 + random.nextInt(Integer.MAX_VALUE);
+      assertEquals(a.mod(BigInteger.valueOf(d)).intValue(), of(a).mod(d));
+    }
+  }
+
+  @Test
+  void modPow() {
+    for (int i = 0; i < ROUNDS / 10; i++) {
+      BigInteger n = next().setBit(0);
+      if (n.equals(BigInteger.ONE)) {
+        continue;
+      }
+      BigInteger a = next().mod(n);
+      BigInteger x = next();
+
+      assertEquals(a.modPow(x, n), of(RSAMath.FastExponentiation(of(a), of(x), of(n))));
+    }
+  }
+
+  /*
+   * A number of up to 8 limbs, half of them built from edge limbs
+   */
+  private BigInteger next() {
+    int limbs = random.nextInt(9);
+    boolean edge = random.nextBoolean();
+
+    BigInteger a = BigInteger.ZERO;
+    for (int i = 0; i < limbs; i++) {
+      int limb = edge ? EDGE_LIMBS[random.nextInt(EDGE_LIMBS.length)] : random.nextInt();
+      a = a.shiftLeft(Integer.SIZE).or(BigInteger.valueOf(limb & 0xFFFFFFFFL));
+    }
+    return a;
+  }
+
+  static BigNatural of(BigInteger a) {
+    return BigNatural.valueOf(a.toString());
+  }
+
+  static BigInteger of(BigNatural a) {
+    return new BigInteger(a.toString());
+  }
+}
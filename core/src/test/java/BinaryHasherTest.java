@@ -0,0 +1,206 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks every {@link BinaryHasher} input against {@link Binary#hash(int[])} of the same
+ * message as a bit array.
+ *
+ * @author cpp270
+ *
+ */
+class BinaryHasherTest {
+  private static final int ROUNDS = 200;
+  private static final int MAX_LENGTH = 3000;
+  // several times the hasher's read buffer
+  private static final int STREAM_LENGTH = 40000;
+
+  private final Random random = new Random(0x5EED);
+  private final BinaryHasher hasher = new BinaryHasher();
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void singleBytes() {
+    for (int i = 0; i < ROUNDS; i++) {
+      byte[] message = bytes(random.nextInt(100));
+      for (byte b : message) {
+        hasher.update(b);
+      }
+      assertHash(message);
+    }
+  }
+
+  @Test
+  void byteArrays() {
+    for (int i = 0; i < ROUNDS; i++) {
+      byte[] message = bytes(random.nextInt(MAX_LENGTH));
+      assertHash(message, hasher.update(message).digest());
+
+      // a slice at an unaligned offset
+      int offset = random.nextInt(message.length + 1);
+      int length = random.nextInt(message.length - offset + 1);
+      hasher.update(message, offset, length);
+      assertHash(copy(message, offset, length));
+    }
+  }
+
+  @Test
+  void heapBuffers() {
+    for (int i = 0; i < ROUNDS; i++) {
+      byte[] message = bytes(random.nextInt(MAX_LENGTH));
+      int offset = random.nextInt(message.length + 1);
+      int length = random.nextInt(message.length - offset + 1);
+
+      ByteBuffer buffer = ByteBuffer.wrap(message, offset, length);
+      hasher.update(buffer);
+      assertEquals(buffer.limit(), buffer.position());
+      assertHash(copy(message, offset, length));
+
+      // a slice has a non zero array offset
+      ByteBuffer slice = ByteBuffer.wrap(message, offset, message.length - offset).slice();
+      hasher.update(slice);
+      assertHash(copy(message, offset, message.length - offset));
+    }
+  }
+
+  @Test
+  void directBuffers() {
+    for (int i = 0; i < ROUNDS; i++) {
+      byte[] message = bytes(random.nextInt(MAX_LENGTH));
+      int offset = random.nextInt(message.length + 1);
+      int length = random.nextInt(message.length - offset + 1);
+
+      ByteBuffer buffer = ByteBuffer.allocateDirect(message.length);
+      buffer.put(message).position(offset).limit(offset + length);
+      hasher.update(buffer);
+      assertEquals(offset + length, buffer.position());
+      assertHash(copy(message, offset, length));
+    }
+  }
+
+  @Test
+  void inputStreams() throws IOException {
+    for (int i = 0; i < ROUNDS / 10; i++) {
+      byte[] message = bytes(random.nextInt(STREAM_LENGTH));
+      hasher.update(new ByteArrayInputStream(message));
+      assertHash(message);
+    }
+  }
+
+  @Test
+  void fileChannels() throws IOException {
+    for (int i = 0; i < ROUNDS / 10; i++) {
+      byte[] message = bytes(random.nextInt(STREAM_LENGTH));
+      Path file = directory.resolve("message" + i);
+      Files.write(file, message);
+
+      int offset = random.nextInt(message.length + 1);
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+        channel.position(offset);
+        hasher.update(channel);
+      }
+      assertHash(copy(message, offset, message.length - offset));
+    }
+  }
+
+  @Test
+  void binaries() {
+    for (int i = 0; i < ROUNDS; i++) {
+      int[] bits = bits(random.nextInt(MAX_LENGTH));
+      Binary b = new Binary(bits);
+      assertArrayEquals(Binary.hash(bits), hasher.update(b).digest().toIntArray());
+      assertEquals(b.hash(), new BinaryHasher().update(b).digest());
+    }
+  }
+
+  @Test
+  void mixedInputsOffByteBoundaries() {
+    for (int i = 0; i < ROUNDS; i++) {
+      Binary message = new Binary(new int[0]);
+      for (int k = random.nextInt(8); k >= 0; k--) {
+        Binary next;
+        if (random.nextBoolean()) {
+          next = new Binary(bits(random.nextInt(200)));
+          hasher.update(next);
+        } else {
+          byte[] bytes = bytes(random.nextInt(100));
+          next = toBinary(bytes);
+          hasher.update(bytes);
+        }
+        // the first input holds the least significant bits
+        message = Binary.Concatenate(next, message);
+      }
+
+      assertArrayEquals(Binary.hash(message.toIntArray()), hasher.digest().toIntArray(),
+          "length " + message.length());
+    }
+  }
+
+  @Test
+  void digestResets() {
+    byte[] message = bytes(37);
+    hasher.update(new Binary(bits(13))).update(bytes(5));
+    hasher.digest();
+    hasher.update(message);
+    assertHash(message);
+
+    hasher.update(new Binary(bits(13))).update(bytes(5));
+    hasher.reset();
+    hasher.update(message);
+    assertHash(message);
+  }
+
+  /*
+   * The hasher's digest is the hash of the message as a bit array, byte k holding bits 8k to
+   * 8k+7
+   */
+  private void assertHash(byte[] message) {
+    assertHash(message, hasher.digest());
+  }
+
+  private static void assertHash(byte[] message, Binary digest) {
+    assertArrayEquals(Binary.hash(toBinary(message).toIntArray()), digest.toIntArray(),
+        "length " + message.length);
+  }
+
+  private static Binary toBinary(byte[] message) {
+    int[] bits = new int[message.length * Binary.BYTESIZE];
+    for (int i = 0; i < bits.length; i++) {
+      bits[i] = message[i / Binary.BYTESIZE] >>> (i % Binary.BYTESIZE) & 0x1;
+    }
+    return new Binary(bits);
+  }
+
+  private static byte[] copy(byte[] message, int offset, int length) {
+    byte[] b = new byte[length];
+    System.arraycopy(message, offset, b, 0, length);
+    return b;
+  }
+
+  private byte[] bytes(int length) {
+    byte[] b = new byte[length];
+    random.nextBytes(b);
+    return b;
+  }
+
+  private int[] bits(int length) {
+    int[] bits = new int[length];
+    for (int i = 0; i < length; i++) {
+      bits[i] = random.nextInt(2);
+    }
+    return bits;
+  }
+}
@@ -0,0 +1,204 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the packed {@link Binary} against the bit per int array it replaced. Lengths are
+ * drawn so that most of them are not multiples of 64.
+ *
+ * @author cpp270
+ *
+ */
+class BinaryTest {
+  private static final int ROUNDS = 500;
+  private static final int MAX_LENGTH = 300;
+
+  private final Random random = new Random(0x5EED);
+
+  @Test
+  void bitArrayRoundTrip() {
+    for (int i = 0; i < ROUNDS; i++) {
+      int[] bits = bits(random.nextInt(MAX_LENGTH));
+      Binary b = new Binary(bits);
+
+      assertEquals(bits.length, b.length());
+      assertArrayEquals(bits, b.toIntArray());
+      assertArrayEquals(bits, new Binary(b).toIntArray());
+      for (int k = 0; k < bits.length; k++) {
+        assertEquals(bits[k], b.getBit(k));
+      }
+      assertEquals(reverse(bits), b.toString());
+    }
+  }
+
+  @Test
+  void getBitOutOfRange() {
+    Binary b = new Binary(bits(65));
+    assertThrows(IndexOutOfBoundsException.class, () -> b.getBit(-1));
+    assertThrows(IndexOutOfBoundsException.class, () -> b.getBit(65));
+  }
+
+  @Test
+  void hashMatchesBitArrayHash() {
+    for (int i = 0; i < ROUNDS; i++) {
+      int[] bits = bits(random.nextInt(MAX_LENGTH));
+      assertArrayEquals(Binary.hash(bits), new Binary(bits).hash().toIntArray(),
+          "length " + bits.length);
+    }
+  }
+
+  @Test
+  void concatenateAcrossWordBoundaries() {
+    for (int i = 0; i < ROUNDS; i++) {
+      int[][] parts = new int[1 + random.nextInt(5)][];
+      Binary[] binaries = new Binary[parts.length];
+      int len = 0;
+      for (int k = 0; k < parts.length; k++) {
+        parts[k] = bits(random.nextInt(MAX_LENGTH / 2));
+        binaries[k] = new Binary(parts[k]);
+        len += parts[k].length;
+      }
+
+      // the last binary goes into the least significant bits
+      int[] expected = new int[len];
+      int offset = 0;
+      for (int k = parts.length - 1; k >= 0; k--) {
+        System.arraycopy(parts[k], 0, expected, offset, parts[k].length);
+        offset += parts[k].length;
+      }
+
+      Binary conc = Binary.Concatenate(binaries);
+      assertArrayEquals(expected, conc.toIntArray());
+      assertEquals(new Binary(expected), conc);
+    }
+  }
+
+  @Test
+  void equalsComparesLengthAndBits() {
+    for (int i = 0; i < ROUNDS; i++) {
+      int[] bits = bits(1 + random.nextInt(MAX_LENGTH));
+      Binary b = new Binary(bits);
+
+      assertEquals(b, new Binary(bits.clone()));
+      assertEquals(b.hashCode(), new Binary(bits.clone()).hashCode());
+
+      int[] longer = Arrays.copyOf(bits, bits.length + 1);
+      assertNotEquals(b, new Binary(longer));
+
+      int[] flipped = bits.clone();
+      int k = random.nextInt(bits.length);
+      flipped[k] ^= 1;
+      assertNotEquals(b, new Binary(flipped));
+    }
+  }
+
+  @Test
+  void compareToOrdersByValueThenLength() {
+    for (int i = 0; i < ROUNDS; i++) {
+      int[] x = bits(random.nextInt(MAX_LENGTH));
+      int[] y = random.nextInt(4) == 0 ? x.clone() : bits(random.nextInt(MAX_LENGTH));
+
+      int c = value(x).compareTo(value(y));
+      int expected = c != 0 ? c : Integer.compare(x.length, y.length);
+      int actual = new Binary(x).compareTo(new Binary(y));
+      assertEquals(Integer.signum(expected), Integer.signum(actual), x.length + " vs " + y.length);
+    }
+  }
+
+  @Test
+  void valueOfIgnoresBitsPastSize() {
+    for (int i = 0; i < ROUNDS; i++) {
+      long[] words = random.longs(1 + random.nextInt(5)).toArray();
+      int size = random.nextInt(words.length * Long.SIZE + 70);
+      Binary b = Binary.valueOf(words, size);
+
+      int[] expected = new int[size];
+      for (int k = 0; k < size; k++) {
+        int w = k >>> 6;
+        expected[k] = w < words.length ? (int) (words[w] >>> k) & 0x1 : 0;
+      }
+      assertArrayEquals(expected, b.toIntArray());
+      assertEquals(new Binary(expected), b);
+    }
+  }
+
+  @Test
+  void intAndStringConstructors() {
+    for (int i = 0; i < ROUNDS; i++) {
+      int size = 1 + random.nextInt(Integer.SIZE - 1);
+      int n = random.nextInt(1 << size >>> 1) << 1 | random.nextInt(2);
+      assertArrayEquals(Binary.toBitArray(n, size), new Binary(n, size).toIntArray());
+      assertEquals(n, new Binary(n, size).toInt());
+    }
+
+    int n = random.nextInt() >>> 1;
+    assertArrayEquals(Binary.toBitArray(n), new Binary(n).toIntArray());
+
+    for (String s : new String[] { "", "A", "Alice", "Zoe and Bob, 9 chars" }) {
+      int size = s.length() * Binary.BYTESIZE + random.nextInt(80);
+      assertArrayEquals(Binary.toBitArray(s, size), new Binary(s, size).toIntArray(), s);
+    }
+  }
+
+  @Test
+  void iteratorsWriteThrough() {
+    int[] bits = bits(130);
+    Binary b = new Binary(new int[bits.length]);
+
+    InputIterator it = b.createIterator();
+    for (int bit : bits) {
+      it.setNext(bit);
+    }
+    assertArrayEquals(bits, b.toIntArray());
+
+    InputIterator rit = b.createReverseIterator();
+    for (int k = bits.length - 1; k >= 0; k--) {
+      rit.setNext(bits[k] ^ 1);
+    }
+    for (int k = 0; k < bits.length; k++) {
+      assertEquals(bits[k] ^ 1, b.getBit(k));
+    }
+  }
+
+  /*
+   * Random bit array of the given length
+   */
+  private int[] bits(int length) {
+    int[] bits = new int[length];
+    for (int i = 0; i < length; i++) {
+      bits[i] = random.nextInt(2);
+    }
+    return bits;
+  }
+
+  /*
+   * Unsigned value of a bit array, least significant bit first
+   */
+  private static BigInteger value(int[] bits) {
+    BigInteger v = BigInteger.ZERO;
+    for (int i = 0; i < bits.length; i++) {
+      if (bits[i] == 1) {
+        v = v.setBit(i);
+      }
+    }
+    return v;
+  }
+
+  /*
+   * The bits most significant first, the way toString prints them
+   */
+  private static String reverse(int[] bits) {
+    StringBuilder s = new StringBuilder(bits.length);
+    for (int i = bits.length - 1; i >= 0; i--) {
+      s.append(bits[i]);
+    }
+    return s.toString();
+  }
+}
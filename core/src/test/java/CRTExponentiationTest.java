@@ -0,0 +1,69 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the CRT form of generated keys and the CRT private key operation against
+ * {@link BigInteger}.
+ *
+ * @author cpp270
+ *
+ */
+class CRTExponentiationTest {
+  private static final int KEYS = 50;
+  private static final int ROUNDS = 200;
+
+  private final Random random = new Random(0x5EED);
+
+  @Test
+  void crtMatchesThePlainPrivateExponent() {
+    for (int bits = 3; bits <= RSAKeyGen.MAX_PRIME_SIZE; bits++) {
+      PrimeGenerator generator = new PrimeGenerator(bits, 1e-9);
+
+      for (int k = 0; k < KEYS; k++) {
+        RSAKeyGen keys = new RSAKeyGen(generator);
+        assertTrue(keys.getPrivateKey() instanceof RSAPrivateCrtKey);
+        RSAPrivateCrtKey key = (RSAPrivateCrtKey) keys.getPrivateKey();
+        checkCrtForm(key);
+
+        BigInteger n = BigInteger.valueOf(key.getModulus());
+        BigInteger d = BigInteger.valueOf(key.getPrivateExponent());
+        for (int i = 0; i < ROUNDS / bits; i++) {
+          int a = random.nextInt(key.getModulus());
+          assertEquals(BigInteger.valueOf(a).modPow(d, n).intValue(),
+              RSAMath.CRTExponentiation(a, key), () -> a + "^d mod " + n);
+        }
+      }
+    }
+  }
+
+  @Test
+  void signatureRoundTrip() {
+    RSAKeyGen keys = new RSAKeyGen(new PrimeGenerator(RSAKeyGen.MAX_PRIME_SIZE, 1e-9));
+    int n = keys.getPublicKey().getModulus();
+
+    for (int i = 0; i < ROUNDS; i++) {
+      int m = random.nextInt(n);
+      int s = RSAMath.PrivateExponentiation(m, keys.getPrivateKey());
+      assertEquals(m, RSAMath.PublicExponentiation(s, keys.getPublicKey()));
+    }
+  }
+
+  /*
+   * dP = d mod (p-1), dQ = d mod (q-1), qInv = q^-1 mod p and n = p*q
+   */
+  private static void checkCrtForm(RSAPrivateCrtKey key) {
+    BigInteger p = BigInteger.valueOf(key.getPrimeP());
+    BigInteger q = BigInteger.valueOf(key.getPrimeQ());
+    BigInteger d = BigInteger.valueOf(key.getPrivateExponent());
+
+    assertEquals(p.multiply(q).intValue(), key.getModulus());
+    assertEquals(d.mod(p.subtract(BigInteger.ONE)).intValue(), key.getPrimeExponentP());
+    assertEquals(d.mod(q.subtract(BigInteger.ONE)).intValue(), key.getPrimeExponentQ());
+    assertEquals(q.modInverse(p).intValue(), key.getCrtCoefficient());
+  }
+}
@@ -0,0 +1,147 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the compact certificate encoding and its in-place view.
+ *
+ * @author cpp270
+ *
+ */
+class CertificateEncoderTest {
+  private static RSAKeyGen subject;
+  private static RSAKeyGen issuer;
+
+  @BeforeAll
+  static void generateKeys() {
+    PrimeGenerator generator = new PrimeGenerator(RSAKeyGen.MAX_PRIME_SIZE, 1e-9);
+    subject = new RSAKeyGen(generator);
+    issuer = new RSAKeyGen(generator);
+  }
+
+  @Test
+  void signedRoundTrip() {
+    for (Digest digest : new Digest[] { Digest.XOR_FOLD, Digest.SHA_256 }) {
+      DigitalCertificate c = new DigitalCertificate("Zoë", subject.getPublicKey(), digest);
+      c.signCertificate("Trent", issuer.getPrivateKey());
+
+      ByteBuffer buffer = ByteBuffer.allocate(256);
+      buffer.position(7);
+      int length = CertificateEncoder.encode(c, buffer);
+      assertEquals(CertificateEncoder.encodedLength(c), length);
+      assertEquals(7 + length, buffer.position());
+
+      CertificateView view = new CertificateView().wrap(buffer, 7);
+      assertEquals(length, view.getEncodedLength());
+      assertTrue(view.isSigned());
+      assertEquals(digest, view.getDigest());
+      assertEquals(c.getSubject(), view.getSubject());
+      assertEquals(subject.getPublicKey().getModulus(), view.getModulus());
+      assertEquals(subject.getPublicKey().getPublicExponent(), view.getPublicExponent());
+      assertEquals("Trent", view.getIssuer());
+      assertEquals(c.getSignatureValue().toInt(), view.getSignature());
+      assertTrue(view.toCertificate().verify(issuer.getPublicKey()));
+    }
+  }
+
+  @Test
+  void unsignedRoundTrip() {
+    DigitalCertificate c = new DigitalCertificate("Bob", subject.getPublicKey());
+    ByteBuffer buffer = ByteBuffer.allocate(CertificateEncoder.encodedLength(c));
+    CertificateEncoder.encode(c, buffer);
+
+    CertificateView view = new CertificateView().wrap(buffer, 0);
+    assertFalse(view.isSigned());
+    assertNull(view.getIssuer());
+    assertThrows(IllegalStateException.class, view::getSignature);
+    assertEquals("Bob", view.toCertificate().getSubject());
+  }
+
+  @Test
+  void integersAreBigEndianInAnyBuffer() {
+    DigitalCertificate c = new DigitalCertificate("A", new RSAPublicKey(0x01020304, 0x0A0B0C0D));
+    ByteBuffer buffer = ByteBuffer.allocate(32).order(ByteOrder.LITTLE_ENDIAN);
+    CertificateEncoder.encode(c, buffer);
+
+    // length, version, flags, digest, subject length, subject, then the key
+    assertEquals(0, buffer.get(0));
+    assertEquals(CertificateEncoder.encodedLength(c), buffer.get(1));
+    assertEquals(CertificateEncoder.VERSION, buffer.get(2));
+    assertEquals(1, buffer.get(5));
+    assertEquals('A', buffer.get(6));
+    assertEquals(0x01, buffer.get(7));
+    assertEquals(0x04, buffer.get(10));
+    assertEquals(0x0A, buffer.get(11));
+    assertEquals(0x0D, buffer.get(14));
+    assertEquals(0x0A0B0C0D, new CertificateView().wrap(buffer, 0).getPublicExponent());
+  }
+
+  @Test
+  void recordsFollowEachOther() {
+    ByteBuffer buffer = ByteBuffer.allocate(1024);
+    for (int i = 0; i < 20; i++) {
+      CertificateEncoder.encode(new DigitalCertificate("subject " + i, subject.getPublicKey()),
+          buffer);
+    }
+
+    CertificateView view = new CertificateView();
+    int p = 0;
+    for (int i = 0; i < 20; i++) {
+      view.wrap(buffer, p);
+      assertTrue(view.subjectEquals(("subject " + i).getBytes(StandardCharsets.UTF_8)));
+      p += view.getEncodedLength();
+    }
+    assertEquals(buffer.position(), p);
+  }
+
+  @Test
+  void tooSmallBufferIsLeftUntouched() {
+    DigitalCertificate c = new DigitalCertificate("Carol", subject.getPublicKey());
+    ByteBuffer buffer = ByteBuffer.allocate(CertificateEncoder.encodedLength(c) - 1);
+
+    assertThrows(BufferOverflowException.class, () -> CertificateEncoder.encode(c, buffer));
+    assertEquals(0, buffer.position());
+    assertEquals(0, buffer.get(2));
+  }
+
+  @Test
+  void longSubjectRejected() {
+    StringBuilder s = new StringBuilder();
+    for (int i = 0; i < 256; i++) {
+      s.append('x');
+    }
+    DigitalCertificate c = new DigitalCertificate(s.toString(), subject.getPublicKey());
+    assertThrows(IllegalArgumentException.class,
+        () -> CertificateEncoder.encode(c, ByteBuffer.allocate(512)));
+  }
+
+  @Test
+  void malformedRecordsRejected() {
+    DigitalCertificate c = new DigitalCertificate("Dave", subject.getPublicKey());
+    ByteBuffer buffer = ByteBuffer.allocate(CertificateEncoder.encodedLength(c));
+    CertificateEncoder.encode(c, buffer);
+
+    // cut short
+    ByteBuffer shorter = buffer.duplicate();
+    shorter.limit(buffer.capacity() - 1);
+    assertThrows(IllegalArgumentException.class, () -> new CertificateView().wrap(shorter, 0));
+
+    // unknown version
+    buffer.put(CertificateEncoder.VERSION_OFFSET, (byte) 0);
+    assertThrows(IllegalArgumentException.class, () -> new CertificateView().wrap(buffer, 0));
+
+    // all zeros, as left by a write that never reached the disk
+    assertThrows(IllegalArgumentException.class,
+        () -> new CertificateView().wrap(ByteBuffer.allocate(64), 0));
+  }
+}
@@ -0,0 +1,123 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks the memory-mapped certificate store, its file format and its recovery from torn
+ * records.
+ *
+ * @author cpp270
+ *
+ */
+class CertificateStoreTest {
+  // enough records to grow the file past its first mapping and rehash the index
+  private static final int MANY = 50000;
+
+  private static final RSAPublicKey KEY = new RSAPublicKey(3233, 17);
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void putGetAndReplace() throws IOException {
+    try (CertificateStore store = new CertificateStore(dir.resolve("a.store"))) {
+      assertNull(store.get("alice"));
+
+      store.put(new DigitalCertificate("alice", KEY));
+      store.put(new DigitalCertificate("bob", KEY));
+      store.put(new DigitalCertificate("alice", new RSAPublicKey(3233, 7)));
+
+      assertEquals(2, store.size());
+      assertEquals(7, store.get("alice").getPublicExponent());
+      assertEquals(17, store.get("bob").getPublicExponent());
+      assertEquals(CertificateEncoder.encodedLength(new DigitalCertificate("alice", KEY)),
+          store.getGarbageBytes());
+    }
+  }
+
+  @Test
+  void reopenAndCompact() throws IOException {
+    Path file = dir.resolve("b.store");
+    try (CertificateStore store = new CertificateStore(file)) {
+      for (int i = 0; i < MANY; i++) {
+        store.put(new DigitalCertificate("subject " + (i % (MANY / 2)), KEY));
+      }
+    }
+
+    try (CertificateStore store = new CertificateStore(file)) {
+      assertEquals(MANY / 2, store.size());
+      CertificateView view = new CertificateView();
+      for (int i = 0; i < MANY / 2; i++) {
+        byte[] subject = ("subject " + i).getBytes(StandardCharsets.UTF_8);
+        assertTrue(store.get(subject, view));
+      }
+
+      store.compact();
+      assertEquals(0, store.getGarbageBytes());
+      assertEquals(MANY / 2, store.size());
+      assertNotNull(store.get("subject 0"));
+    }
+
+    try (CertificateStore store = new CertificateStore(file)) {
+      assertEquals(MANY / 2, store.size());
+    }
+  }
+
+  @Test
+  void foreignFilesAreRejectedAndLeftAlone() throws IOException {
+    byte[] text = "hello".getBytes(StandardCharsets.US_ASCII);
+    byte[] zeros = new byte[4096];
+
+    for (byte[] content : new byte[][] { text, zeros }) {
+      Path file = dir.resolve("foreign");
+      Files.write(file, content);
+
+      assertThrows(IOException.class, () -> new CertificateStore(file));
+      assertArrayEquals(content, Files.readAllBytes(file));
+    }
+  }
+
+  @Test
+  void tornRecordEndsTheStore() throws IOException {
+    Path file = dir.resolve("c.store");
+    int torn;
+    try (CertificateStore store = new CertificateStore(file)) {
+      store.put(new DigitalCertificate("alice", KEY));
+      torn = store.put(new DigitalCertificate("bob", KEY));
+      store.put(new DigitalCertificate("carol", KEY));
+    }
+
+    // the header counts the records, but the second one never reached the disk
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.allocate(CertificateEncoder.HEADER_SIZE), torn);
+    }
+
+    try (CertificateStore store = new CertificateStore(file)) {
+      assertEquals(1, store.size());
+      assertNotNull(store.get("alice"));
+      assertNull(store.get("bob"));
+      assertNull(store.get("carol"));
+
+      assertEquals(torn, store.put(new DigitalCertificate("dave", KEY)));
+    }
+
+    try (CertificateStore store = new CertificateStore(file)) {
+      assertEquals(2, store.size());
+      assertNotNull(store.get("dave"));
+    }
+  }
+}
@@ -0,0 +1,129 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the bulk checks of {@link CertificateVerifier} set bit i exactly for the
+ * certificates that verify one at a time, on both the batch and the scalar path.
+ *
+ * @author cpp270
+ *
+ */
+class CertificateVerifierTest {
+  // more than two batches of 1024, the last one partly filled
+  private static final int CERTIFICATES = 2 * 1024 + 37;
+
+  private final Random random = new Random(0x5EED);
+
+  @Test
+  void batchExponent() {
+    check(new RSAKeyGen(new PrimeGenerator(RSAKeyGen.MAX_PRIME_SIZE, 1e-9),
+        RSAKeyGen.DEFAULT_PUBLIC_EXPONENT));
+  }
+
+  @Test
+  void scalarExponent() {
+    check(new RSAKeyGen(new PrimeGenerator(RSAKeyGen.MAX_PRIME_SIZE, 1e-9), 3));
+  }
+
+  @Test
+  void emptyInputs() {
+    CertificateVerifier verifier = new CertificateVerifier(new RSAPublicKey(3233, 17));
+    assertTrue(verifier.verifyAll(new ArrayList<DigitalCertificate>()).isEmpty());
+    assertTrue(verifier.verifyAll(ByteBuffer.allocate(0)).isEmpty());
+  }
+
+  @Test
+  void nullElementIsNamed() {
+    RSAKeyGen issuer = new RSAKeyGen(new PrimeGenerator(10, 0.01));
+    List<DigitalCertificate> certificates = new ArrayList<DigitalCertificate>();
+    for (int i = 0; i < 5; i++) {
+      certificates.add(new DigitalCertificate("S" + i, issuer.getPublicKey()));
+    }
+    certificates.add(null);
+
+    CertificateVerifier verifier = new CertificateVerifier(issuer.getPublicKey());
+    NullPointerException e = assertThrows(NullPointerException.class,
+        () -> verifier.verifyAll(certificates));
+    assertEquals("certificate 5 is null", e.getMessage());
+  }
+
+  /*
+   * Signed, unsigned, tampered and s >= n certificates of one issuer, checked in bulk from a
+   * list and from an encoded buffer against one at a time
+   */
+  private void check(RSAKeyGen issuer) {
+    RSAPublicKey issuerKey = issuer.getPublicKey();
+    RSAPrivateKey issuerPrivateKey = issuer.getPrivateKey();
+    int n = issuerKey.getModulus();
+
+    RSAPublicKey[] subjectKeys = new RSAPublicKey[4];
+    for (int i = 0; i < subjectKeys.length; i++) {
+      subjectKeys[i] = new RSAKeyGen(new PrimeGenerator(12, 0.01)).getPublicKey();
+    }
+
+    List<DigitalCertificate> certificates = new ArrayList<DigitalCertificate>();
+    for (int i = 0; i < CERTIFICATES; i++) {
+      String subject = "S" + random.nextInt(100000);
+      RSAPublicKey key = subjectKeys[random.nextInt(subjectKeys.length)];
+      Digest digest = random.nextBoolean() ? Digest.XOR_FOLD : Digest.SHA_256;
+      DigitalCertificate c = new DigitalCertificate(subject, key, digest);
+
+      switch (random.nextInt(5)) {
+      case 0:
+        // unsigned
+        break;
+      case 1:
+        // s >= n
+        c = new DigitalCertificate(subject, key, digest, "Trent",
+            new Binary(n + random.nextInt(Integer.MAX_VALUE - n)));
+        break;
+      case 2:
+        // a signature of something else
+        c = new DigitalCertificate(subject, key, digest, "Trent", new Binary(random.nextInt(n)));
+        break;
+      default:
+        c.signCertificate("Trent", issuerPrivateKey);
+        break;
+      }
+      certificates.add(c);
+    }
+
+    CertificateVerifier verifier = new CertificateVerifier(issuerKey);
+    BitSet expected = new BitSet(CERTIFICATES);
+    for (int i = 0; i < CERTIFICATES; i++) {
+      boolean verified = certificates.get(i).verify(issuerKey);
+      assertEquals(verified, verifier.verify(certificates.get(i)));
+      expected.set(i, verified);
+    }
+    assertTrue(expected.cardinality() > CERTIFICATES / 3, "too few verify");
+    assertFalse(expected.cardinality() == CERTIFICATES, "all verify");
+
+    assertEquals(expected, verifier.verifyAll(certificates));
+
+    // the records start past the buffer's position
+    int offset = 13;
+    int length = offset;
+    for (DigitalCertificate c : certificates) {
+      length += CertificateEncoder.encodedLength(c);
+    }
+    ByteBuffer buffer = ByteBuffer.allocateDirect(length + 9);
+    buffer.position(offset);
+    for (DigitalCertificate c : certificates) {
+      CertificateEncoder.encode(c, buffer);
+    }
+    buffer.flip().position(offset);
+
+    assertEquals(expected, verifier.verifyAll(buffer));
+    assertEquals(offset, buffer.position());
+  }
+}
@@ -0,0 +1,91 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the deterministic Miller-Rabin tests against a sieve, {@link BigInteger} and known
+ * strong pseudoprimes.
+ *
+ * @author cpp270
+ *
+ */
+class DeterministicPrimalityTest {
+  private static final int SIEVE_LIMIT = 1 << 20;
+  private static final int ROUNDS = 20000;
+
+  // strong pseudoprimes to several small bases, and Carmichael numbers
+  private static final long[] PSEUDOPRIMES = { 561, 1105, 2047, 3277, 4033, 4681, 41041, 825265,
+      1373653, 25326001, 3215031751L, 2152302898747L, 3474749660383L, 341550071728321L,
+      3825123056546413051L };
+
+  private final Random random = new Random(0x5EED);
+
+  @Test
+  void smallNumbersMatchASieve() {
+    boolean[] composite = new boolean[SIEVE_LIMIT];
+    composite[0] = true;
+    composite[1] = true;
+    for (int i = 2; (long) i * i < SIEVE_LIMIT; i++) {
+      for (int j = i * i; !composite[i] && j < SIEVE_LIMIT; j += i) {
+        composite[j] = true;
+      }
+    }
+
+    for (int i = -2; i < SIEVE_LIMIT; i++) {
+      int n = i;
+      boolean prime = n >= 0 && !composite[n];
+      assertEquals(prime, RSAMath.DeterministicPrimalityTesting(n), () -> "int " + n);
+      assertEquals(prime, RSAMath.DeterministicPrimalityTesting((long) n), () -> "long " + n);
+    }
+  }
+
+  @Test
+  void pseudoprimesAreComposite() {
+    for (long n : PSEUDOPRIMES) {
+      assertFalse(RSAMath.DeterministicPrimalityTesting(n), () -> Long.toString(n));
+      if (n <= Integer.MAX_VALUE) {
+        assertFalse(RSAMath.DeterministicPrimalityTesting((int) n), () -> Long.toString(n));
+      }
+    }
+  }
+
+  @Test
+  void randomIntsMatchBigInteger() {
+    for (int i = 0; i < ROUNDS; i++) {
+      int n = random.nextInt(Integer.MAX_VALUE) | 1;
+      assertEquals(BigInteger.valueOf(n).isProbablePrime(64),
+          RSAMath.DeterministicPrimalityTesting(n), () -> Integer.toString(n));
+    }
+    assertTrue(RSAMath.DeterministicPrimalityTesting(Integer.MAX_VALUE));
+  }
+
+  @Test
+  void randomLongsMatchBigInteger() {
+    for (int i = 0; i < ROUNDS; i++) {
+      long n = (random.nextLong() >>> 1 + random.nextInt(32)) | 1;
+      assertEquals(BigInteger.valueOf(n).isProbablePrime(64),
+          RSAMath.DeterministicPrimalityTesting(n), () -> Long.toString(n));
+    }
+  }
+
+  @Test
+  void productsOfTwoPrimesAreComposite() {
+    for (int i = 0; i < ROUNDS / 10; i++) {
+      long p = BigInteger.probablePrime(2 + random.nextInt(30), random).longValue();
+      long q = BigInteger.probablePrime(2 + random.nextInt(30), random).longValue();
+      assertFalse(RSAMath.DeterministicPrimalityTesting(p * q), () -> p + " * " + q);
+      assertTrue(RSAMath.DeterministicPrimalityTesting(p));
+    }
+  }
+
+  @Test
+  void largestPrimeBelowTwoToThe63() {
+    assertTrue(RSAMath.DeterministicPrimalityTesting(9223372036854775783L));
+    assertFalse(RSAMath.DeterministicPrimalityTesting(Long.MAX_VALUE));
+  }
+}
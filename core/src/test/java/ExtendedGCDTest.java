@@ -0,0 +1,94 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the binary and Lehmer gcd and inverse against {@link BigInteger}.
+ *
+ * @author cpp270
+ *
+ */
+class ExtendedGCDTest {
+  private static final int ROUNDS = 5000;
+
+  private final Random random = new Random(0x5EED);
+
+  @Test
+  void intGcdAndInverse() {
+    for (int i = 0; i < ROUNDS; i++) {
+      int g = 1 + random.nextInt(random.nextBoolean() ? 1 : 1000);
+      int a = random.nextInt(Integer.MAX_VALUE / g) * g;
+      int m = Math.max(2, random.nextInt(Integer.MAX_VALUE / g) * g);
+      BigInteger bigA = BigInteger.valueOf(a);
+      BigInteger bigM = BigInteger.valueOf(m);
+
+      assertEquals(bigA.gcd(bigM).intValue(), ExtendedGCD.gcd(a, m));
+      if (bigA.gcd(bigM).equals(BigInteger.ONE)) {
+        assertEquals(bigA.modInverse(bigM).intValue(), ExtendedGCD.inverse(a, m),
+            () -> a + "^-1 mod " + m);
+      } else {
+        assertThrows(ArithmeticException.class, () -> ExtendedGCD.inverse(a, m));
+      }
+    }
+  }
+
+  @Test
+  void longGcdAndInverse() {
+    for (int i = 0; i < ROUNDS; i++) {
+      long g = 1 + random.nextInt(random.nextBoolean() ? 1 : 1000);
+      long a = (random.nextLong() >>> 1) / g * g;
+      long m = Math.max(2, (random.nextLong() >>> 1 + random.nextInt(40)) / g * g);
+      BigInteger bigA = BigInteger.valueOf(a);
+      BigInteger bigM = BigInteger.valueOf(m);
+
+      assertEquals(bigA.gcd(bigM).longValue(), ExtendedGCD.gcd(a, m));
+      if (bigA.gcd(bigM).equals(BigInteger.ONE)) {
+        assertEquals(bigA.modInverse(bigM).longValue(), ExtendedGCD.inverse(a, m),
+            () -> a + "^-1 mod " + m);
+      } else {
+        assertThrows(ArithmeticException.class, () -> ExtendedGCD.inverse(a, m));
+      }
+    }
+  }
+
+  @Test
+  void lehmerGcdAndInverse() {
+    for (int i = 0; i < ROUNDS / 5; i++) {
+      BigInteger g = new BigInteger(random.nextBoolean() ? 1 : 100, random).max(BigInteger.ONE);
+      BigInteger a = new BigInteger(random.nextInt(600), random).multiply(g);
+      BigInteger m = new BigInteger(2 + random.nextInt(600), random).multiply(g)
+          .max(BigInteger.TWO);
+
+      assertEquals(a.gcd(m), BigNaturalTest.of(ExtendedGCD.gcd(BigNaturalTest.of(a),
+          BigNaturalTest.of(m))));
+      if (a.gcd(m).equals(BigInteger.ONE)) {
+        assertEquals(a.modInverse(m), BigNaturalTest.of(ExtendedGCD.inverse(BigNaturalTest.of(a),
+            BigNaturalTest.of(m))), () -> a + "^-1 mod " + m);
+      } else {
+        assertThrows(ArithmeticException.class,
+            () -> ExtendedGCD.inverse(BigNaturalTest.of(a), BigNaturalTest.of(m)));
+      }
+    }
+  }
+
+  @Test
+  void consecutiveFibonacciNumbers() {
+    // the longest Euclid sequence for their size; every quotient is 1
+    BigInteger f0 = BigInteger.ONE;
+    BigInteger f1 = BigInteger.TWO;
+    for (int i = 0; i < 1000; i++) {
+      BigInteger f2 = f0.add(f1);
+      f0 = f1;
+      f1 = f2;
+    }
+
+    BigNatural a = BigNaturalTest.of(f1);
+    BigNatural b = BigNaturalTest.of(f0);
+    assertEquals(BigInteger.ONE, BigNaturalTest.of(ExtendedGCD.gcd(a, b)));
+    assertEquals(f0.modInverse(f1), BigNaturalTest.of(ExtendedGCD.inverse(b, a)));
+  }
+}
@@ -0,0 +1,98 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the primitive long arithmetic for moduli up to 63 bits and the long keys against
+ * {@link BigInteger}.
+ *
+ * @author cpp270
+ *
+ */
+class LongExponentiationTest {
+  private static final int ROUNDS = 5000;
+
+  private final Random random = new Random(0x5EED);
+
+  @Test
+  void wordInverse() {
+    for (int i = 0; i < ROUNDS; i++) {
+      long n = random.nextLong() | 1;
+      assertEquals(1, n * LongMontgomeryContext.inverseModWord(n));
+    }
+  }
+
+  @Test
+  void multiplyMod() {
+    for (int i = 0; i < ROUNDS; i++) {
+      long n = modulus();
+      long a = Math.floorMod(random.nextLong(), n);
+      long b = Math.floorMod(random.nextLong(), n);
+
+      BigInteger expected = BigInteger.valueOf(a).multiply(BigInteger.valueOf(b))
+          .mod(BigInteger.valueOf(n));
+      assertEquals(expected.longValue(), RSAMath.multiplyMod(a, b, n),
+          () -> a + "*" + b + " % " + n);
+    }
+  }
+
+  @Test
+  void modPowOddAndEvenModuli() {
+    for (int i = 0; i < ROUNDS; i++) {
+      long n = modulus();
+      long a = random.nextLong() >>> 1;
+      long x = random.nextLong() >>> 1 + random.nextInt(63);
+
+      long expected = BigInteger.valueOf(a).modPow(BigInteger.valueOf(x), BigInteger.valueOf(n))
+          .longValue();
+      assertEquals(expected, RSAMath.FastExponentiation(a, x, n), () -> a + "^" + x + " % " + n);
+      if ((n & 0x1) == 1) {
+        assertEquals(expected, RSAMath.FastExponentiation(a, x, new LongMontgomeryContext(n)));
+      }
+    }
+  }
+
+  @Test
+  void modulusNearTwoToThe63() {
+    // the largest odd and even moduli
+    for (long n : new long[] { Long.MAX_VALUE, Long.MAX_VALUE - 1 }) {
+      for (long x : new long[] { 0, 1, 2, 3, 65537, Long.MAX_VALUE }) {
+        long a = n - 1;
+        long expected = BigInteger.valueOf(a).modPow(BigInteger.valueOf(x),
+            BigInteger.valueOf(n)).longValue();
+        assertEquals(expected, RSAMath.FastExponentiation(a, x, n), () -> a + "^" + x);
+      }
+    }
+  }
+
+  @Test
+  void longKeys() {
+    for (int bits = 16; bits <= LongRSAKeyGen.MAX_PRIME_SIZE; bits += 5) {
+      LongRSAKeyGen keys = new LongRSAKeyGen(new PrimeGenerator(bits, 1e-9));
+      LongRSAPrivateKey key = keys.getPrivateKey();
+      assertTrue(key instanceof LongRSAPrivateCrtKey);
+
+      BigInteger n = BigInteger.valueOf(key.getModulus());
+      BigInteger d = BigInteger.valueOf(key.getPrivateExponent());
+      for (int i = 0; i < ROUNDS / 50; i++) {
+        long m = Math.floorMod(random.nextLong(), key.getModulus());
+        long s = RSAMath.PrivateExponentiation(m, key);
+
+        assertEquals(BigInteger.valueOf(m).modPow(d, n).longValue(), s);
+        assertEquals(m, RSAMath.PublicExponentiation(s, keys.getPublicKey()));
+      }
+    }
+  }
+
+  /*
+   * A modulus of 2 to 63 bits, odd or even
+   */
+  private long modulus() {
+    int bits = 2 + random.nextInt(62);
+    return Math.max(2, random.nextLong() >>> (Long.SIZE - bits) | 1L << (bits - 1));
+  }
+}
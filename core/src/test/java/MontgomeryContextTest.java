@@ -0,0 +1,84 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the int and multi-limb Montgomery arithmetic against {@link BigInteger}.
+ *
+ * @author cpp270
+ *
+ */
+class MontgomeryContextTest {
+  private static final int ROUNDS = 2000;
+
+  private final Random random = new Random(0x5EED);
+
+  @Test
+  void wordInverse() {
+    for (int i = 0; i < ROUNDS; i++) {
+      int n = random.nextInt() | 1;
+      assertEquals(1, n * MontgomeryContext.inverseModWord(n));
+    }
+  }
+
+  @Test
+  void multiply() {
+    for (int i = 0; i < ROUNDS; i++) {
+      int n = oddModulus();
+      MontgomeryContext m = new MontgomeryContext(n);
+      int a = random.nextInt(n);
+      int b = random.nextInt(n);
+
+      assertEquals(a, m.fromMontgomery(m.toMontgomery(a)));
+      long product = m.multiply(m.toMontgomery(a), m.toMontgomery(b));
+      assertEquals((long) a * b % n, m.fromMontgomery(product));
+    }
+  }
+
+  @Test
+  void intModPow() {
+    for (int i = 0; i < ROUNDS; i++) {
+      int n = oddModulus();
+      int a = random.nextInt(Integer.MAX_VALUE);
+      int x = random.nextInt(Integer.MAX_VALUE);
+
+      int expected = BigInteger.valueOf(a).modPow(BigInteger.valueOf(x), BigInteger.valueOf(n))
+          .intValue();
+      assertEquals(expected, RSAMath.MontgomeryExponentiation(a, Binary.toBitArray(x), n));
+      assertEquals(expected, new MontgomeryContext(n).modPow(a, Binary.toBitArray(x)));
+    }
+  }
+
+  @Test
+  void bigModPow() {
+    for (int i = 0; i < ROUNDS / 10; i++) {
+      int bits = 2 + random.nextInt(300);
+      BigInteger n = new BigInteger(bits, random).setBit(0).setBit(bits - 1);
+      BigInteger a = new BigInteger(bits + 8, random);
+      BigInteger x = new BigInteger(1 + random.nextInt(300), random);
+
+      BigNatural result = RSAMath.MontgomeryExponentiation(BigNaturalTest.of(a),
+          BigNaturalTest.of(x), BigNaturalTest.of(n));
+      assertEquals(a.modPow(x, n), BigNaturalTest.of(result), () -> a + "^" + x + " mod " + n);
+    }
+  }
+
+  @Test
+  void evenModulusRejected() {
+    assertThrows(IllegalArgumentException.class, () -> new MontgomeryContext(10));
+    assertThrows(IllegalArgumentException.class,
+        () -> new BigMontgomeryContext(BigNatural.valueOf(10)));
+  }
+
+  /*
+   * An odd modulus of 2 to 31 bits
+   */
+  private int oddModulus() {
+    int bits = 2 + random.nextInt(30);
+    return (random.nextInt(1 << (bits - 1)) | (1 << (bits - 1))) | 1;
+  }
+}
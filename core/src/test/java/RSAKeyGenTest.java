@@ -0,0 +1,127 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Checks that key generation either finishes or rejects sizes that cannot give two distinct
+ * primes.
+ *
+ * @author cpp270
+ *
+ */
+@Timeout(30)
+class RSAKeyGenTest {
+  private static final int KEYS = 20;
+
+  @Test
+  void sizesWithoutDistinctPrimesAreRejected() {
+    assertThrows(IllegalArgumentException.class, () -> new PrimeGenerator(2, 0.01));
+
+    for (int b = 3; b <= 4; b++) {
+      int bits = b;
+      PrimeGenerator generator = new PrimeGenerator(bits, 0.01);
+      assertThrows(IllegalArgumentException.class, () -> new RSAKeyGen(generator, 3));
+      assertThrows(IllegalArgumentException.class, () -> new LongRSAKeyGen(generator, 3));
+      assertThrows(IllegalArgumentException.class,
+          () -> new BulkKeyGen(bits, 0.01, 3, ForkJoinPool.commonPool()));
+    }
+  }
+
+  @Test
+  void smallestSizesFinish() {
+    for (int i = 0; i < KEYS; i++) {
+      check(new RSAKeyGen(new PrimeGenerator(3, 0.01)));
+      check(new RSAKeyGen(new PrimeGenerator(5, 0.01), 3));
+    }
+    assertEquals(KEYS, new BulkKeyGen(3, 0.01).generate(KEYS).size());
+  }
+
+  @Test
+  void fixedExponentKeys() {
+    PrimeGenerator generator = new PrimeGenerator(RSAKeyGen.MAX_PRIME_SIZE, 1e-9);
+    for (int i = 0; i < KEYS; i++) {
+      RSAKeyGen keys = new RSAKeyGen(generator, RSAKeyGen.DEFAULT_PUBLIC_EXPONENT);
+      assertEquals(RSAKeyGen.DEFAULT_PUBLIC_EXPONENT, keys.getPublicKey().getPublicExponent());
+      check(keys);
+    }
+  }
+
+  @Test
+  void defaultExponentWhenItFits() {
+    for (int bits = 3; bits <= RSAKeyGen.MAX_PRIME_SIZE; bits++) {
+      int e = RSAKeyGen.defaultPublicExponent(bits);
+      assertEquals(bits >= 10 ? RSAKeyGen.DEFAULT_PUBLIC_EXPONENT : 0, e);
+
+      PrimeGenerator generator = new PrimeGenerator(bits, 0.01);
+      RSAKeyGen keys = new RSAKeyGen(generator);
+      check(keys);
+      if (e != 0) {
+        assertEquals(e, keys.getPublicKey().getPublicExponent());
+        assertEquals(e, new LongRSAKeyGen(generator).getPublicKey().getPublicExponent());
+        assertEquals(e, new BulkKeyGen(bits, 0.01).generate(1).get(0)
+            .getPublicKey().getPublicExponent());
+      }
+    }
+  }
+
+  @Test
+  void bulkKeyGenIsNotTraced() {
+    AtomicInteger traced = new AtomicInteger();
+    TraceSink sink = new TraceSink() {
+      public boolean isEnabled() {
+        return true;
+      }
+
+      public void message(String text) {
+        traced.incrementAndGet();
+      }
+
+      public void beginTable(String title, String... columns) {
+        traced.incrementAndGet();
+      }
+
+      public void row(long... values) {
+        traced.incrementAndGet();
+      }
+
+      public void endTable(String summary) {
+        traced.incrementAndGet();
+      }
+    };
+
+    TraceSink previous = RSAMath.setTraceSink(sink);
+    try {
+      // the calling thread may run some of the tasks itself
+      assertEquals(KEYS, new BulkKeyGen(5, 0.01).generate(KEYS).size());
+      assertSame(sink, RSAMath.getTraceSink());
+      assertEquals(0, traced.get());
+
+      new RSAKeyGen(new PrimeGenerator(5, 0.01));
+      assertNotEquals(0, traced.get());
+    } finally {
+      RSAMath.setTraceSink(previous);
+    }
+  }
+
+  /*
+   * p != q and e*d = 1 mod phi(n)
+   */
+  private static void check(RSAKeyGen keys) {
+    RSAPrivateCrtKey key = (RSAPrivateCrtKey) keys.getPrivateKey();
+    assertNotEquals(key.getPrimeP(), key.getPrimeQ());
+
+    BigInteger phi = BigInteger.valueOf(key.getPrimeP() - 1)
+        .multiply(BigInteger.valueOf(key.getPrimeQ() - 1));
+    BigInteger ed = BigInteger.valueOf(keys.getPublicKey().getPublicExponent())
+        .multiply(BigInteger.valueOf(key.getPrivateExponent()));
+    assertEquals(BigInteger.ONE, ed.mod(phi));
+  }
+}
@@ -0,0 +1,172 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Checks that the {@link RSAKeyPool} workers fill the pool, refill it below the low-water mark,
+ * keep going after a failed key pair and stop on close.
+ *
+ * @author cpp270
+ *
+ */
+@Timeout(30)
+class RSAKeyPoolTest {
+  private static final int CAPACITY = 6;
+  private static final int LOW_WATER_MARK = 3;
+
+  private final PrimeGenerator generator = new PrimeGenerator(8, 0.01);
+
+  @Test
+  void argumentsAreChecked() {
+    assertThrows(NullPointerException.class, () -> new RSAKeyPool(null, 4, 2, 1));
+    assertThrows(IllegalArgumentException.class,
+        () -> new RSAKeyPool(new PrimeGenerator(RSAKeyGen.MAX_PRIME_SIZE + 1, 0.01), 4, 2, 1));
+    assertThrows(IllegalArgumentException.class,
+        () -> new RSAKeyPool(generator, RSAKeyGen.DEFAULT_PUBLIC_EXPONENT, 4, 2, 1));
+    assertThrows(IllegalArgumentException.class, () -> new RSAKeyPool(generator, 4, 4, 2, 1));
+    assertThrows(IllegalArgumentException.class, () -> new RSAKeyPool(generator, 4, 5, 1));
+    assertThrows(IllegalArgumentException.class, () -> new RSAKeyPool(generator, 4, 0, 1));
+    assertThrows(IllegalArgumentException.class, () -> new RSAKeyPool(generator, 4, 2, 0));
+  }
+
+  @Test
+  void fillsToCapacity() throws InterruptedException {
+    try (RSAKeyPool pool = new RSAKeyPool(generator, CAPACITY, LOW_WATER_MARK, 3)) {
+      await(() -> pool.size() == CAPACITY);
+      Thread.sleep(50);
+      assertEquals(CAPACITY, pool.size());
+      assertTrue(pool.getLastRefillLag() > 0);
+      assertEquals(0, pool.getHitRate());
+    }
+  }
+
+  @Test
+  void refillsBelowLowWaterMark() throws InterruptedException {
+    try (RSAKeyPool pool = new RSAKeyPool(generator, CAPACITY, LOW_WATER_MARK, 2)) {
+      await(() -> pool.size() == CAPACITY);
+      long firstLag = pool.getLastRefillLag();
+
+      // staying at or above the mark does not wake the workers
+      for (int i = 0; i < CAPACITY - LOW_WATER_MARK; i++) {
+        assertNotNull(pool.poll());
+      }
+      Thread.sleep(50);
+      assertEquals(LOW_WATER_MARK, pool.size());
+      assertEquals(firstLag, pool.getLastRefillLag());
+
+      assertNotNull(pool.poll());
+      await(() -> pool.size() == CAPACITY);
+      assertTrue(pool.getLastRefillLag() > 0);
+      assertTrue(pool.getMaxRefillLag() >= pool.getLastRefillLag());
+      assertTrue(pool.getMaxRefillLag() >= firstLag);
+      assertEquals(CAPACITY - LOW_WATER_MARK + 1, pool.getHits());
+    }
+  }
+
+  @Test
+  void hitsAndMisses() throws InterruptedException {
+    RSAKeyPool pool = new RSAKeyPool(generator, CAPACITY, LOW_WATER_MARK, 1);
+    await(() -> pool.size() == CAPACITY);
+    pool.close();
+
+    for (int i = 0; i < CAPACITY; i++) {
+      assertNotNull(RSAKeyGen.fromPool(pool));
+    }
+    assertNull(pool.poll());
+    assertNull(pool.poll());
+    assertNotNull(RSAKeyGen.fromPool(pool));
+
+    assertEquals(CAPACITY, pool.getHits());
+    assertEquals(3, pool.getMisses());
+    assertEquals((double) CAPACITY / (CAPACITY + 3), pool.getHitRate());
+  }
+
+  @Test
+  void keyPairsUseThePoolExponent() throws InterruptedException {
+    PrimeGenerator large = new PrimeGenerator(12, 0.01);
+    try (RSAKeyPool pool = new RSAKeyPool(large, CAPACITY, LOW_WATER_MARK, 2)) {
+      assertEquals(RSAKeyGen.DEFAULT_PUBLIC_EXPONENT, pool.getPublicExponent());
+      await(() -> pool.size() == CAPACITY);
+      RSAKeyGen keys = pool.poll();
+      assertEquals(RSAKeyGen.DEFAULT_PUBLIC_EXPONENT, keys.getPublicKey().getPublicExponent());
+    }
+
+    RSAKeyPool pool = new RSAKeyPool(generator, 5, 1, 1, 1);
+    pool.close();
+    await(() -> !workersAlive());
+    while (pool.poll() != null) {
+      // drain
+    }
+    // the fall back generates with the pool exponent too
+    assertEquals(5, RSAKeyGen.fromPool(pool).getPublicKey().getPublicExponent());
+  }
+
+  @Test
+  void closeStopsTheWorkers() throws InterruptedException {
+    RSAKeyPool pool = new RSAKeyPool(generator, CAPACITY, LOW_WATER_MARK, 3);
+    await(() -> pool.size() == CAPACITY);
+    pool.close();
+    await(() -> !workersAlive());
+
+    while (pool.poll() != null) {
+      // drain
+    }
+    Thread.sleep(50);
+    assertEquals(0, pool.size());
+  }
+
+  @Test
+  void failedRefillDoesNotKillTheWorker() throws InterruptedException {
+    AtomicInteger failures = new AtomicInteger(2);
+    PrimeGenerator flaky = new PrimeGenerator(8, 0.01) {
+      @Override
+      public Prime generate(long publicExponent) {
+        if (failures.getAndDecrement() > 0) {
+          throw new IllegalStateException("flaky generator");
+        }
+        return super.generate(publicExponent);
+      }
+    };
+
+    try (RSAKeyPool pool = new RSAKeyPool(flaky, CAPACITY, LOW_WATER_MARK, 1)) {
+      // the single worker failed and waits for a poll; the reserved slot has to be released
+      await(() -> failures.get() <= 0);
+      while (pool.size() < CAPACITY) {
+        if (pool.size() == 0) {
+          pool.poll();
+        }
+        Thread.sleep(10);
+      }
+      assertEquals(CAPACITY, pool.size());
+    }
+  }
+
+  /*
+   * Waits until the condition holds; the class timeout interrupts the sleep otherwise
+   */
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    while (!condition.getAsBoolean()) {
+      Thread.sleep(1);
+    }
+  }
+
+  /*
+   * Whether any pool worker thread is still running
+   */
+  private static boolean workersAlive() {
+    for (Thread t : Thread.getAllStackTraces().keySet()) {
+      if (t.getName().startsWith("RSAKeyPool-refill-") && t.isAlive()) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
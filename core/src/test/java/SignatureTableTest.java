@@ -0,0 +1,75 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks every {@link SignatureTable} entry against a private exponentiation, and which
+ * digests and keys sign through a table.
+ *
+ * @author cpp270
+ *
+ */
+class SignatureTableTest {
+  private static final int KEYS = 5;
+
+  @Test
+  void entriesMatchPrivateExponentiation() {
+    // 3 and 4 bit primes give moduli below 256
+    for (int bits : new int[] { 3, 4, 6, 10, RSAKeyGen.MAX_PRIME_SIZE }) {
+      for (int i = 0; i < KEYS; i++) {
+        RSAPrivateKey key = new RSAKeyGen(new PrimeGenerator(bits, 1e-9)).getPrivateKey();
+        int n = key.getModulus();
+        SignatureTable table = new SignatureTable(key);
+
+        assertEquals(n, table.getModulus());
+        assertEquals(Math.min(1 << SignatureTable.DIGEST_BITS, n), table.size());
+        for (int h = 0; h < table.size(); h++) {
+          assertEquals(RSAMath.PrivateExponentiation(h, key), table.sign(h), "n " + n + " h " + h);
+        }
+
+        int size = table.size();
+        assertThrows(IllegalArgumentException.class, () -> table.sign(-1));
+        assertThrows(IllegalArgumentException.class, () -> table.sign(size));
+      }
+    }
+  }
+
+  @Test
+  void coversShortDigestsAndLargeModuli() {
+    assertTrue(SignatureTable.covers(Digest.XOR_FOLD));
+    assertFalse(SignatureTable.covers(Digest.SHA_256));
+
+    assertTrue(SignatureTable.covers(Digest.XOR_FOLD, 256));
+    assertTrue(SignatureTable.covers(Digest.XOR_FOLD, Integer.MAX_VALUE));
+    assertFalse(SignatureTable.covers(Digest.XOR_FOLD, 255));
+    assertFalse(SignatureTable.covers(Digest.XOR_FOLD, 35));
+    assertFalse(SignatureTable.covers(Digest.SHA_256, 1 << 20));
+  }
+
+  @Test
+  void certificatesSignThroughTheTable() {
+    RSAKeyGen subject = new RSAKeyGen(new PrimeGenerator(10, 1e-9));
+    for (int bits : new int[] { 4, RSAKeyGen.MAX_PRIME_SIZE }) {
+      RSAKeyGen issuer = new RSAKeyGen(new PrimeGenerator(bits, 1e-9));
+      RSAPrivateKey key = issuer.getPrivateKey();
+
+      for (Digest digest : new Digest[] { Digest.XOR_FOLD, Digest.SHA_256 }) {
+        DigitalCertificate c = new DigitalCertificate("Alice", subject.getPublicKey(), digest);
+        c.signCertificate("Trent", key);
+
+        int h = c.digestOfSubjectAndKey(key.getModulus());
+        assertEquals(RSAMath.PrivateExponentiation(h, key), c.getSignatureValue().toInt());
+        assertTrue(c.verify(issuer.getPublicKey()));
+      }
+
+      if (SignatureTable.covers(Digest.XOR_FOLD, key.getModulus())) {
+        SignatureTable table = key.getSignatureTable();
+        assertSame(table, key.getSignatureTable());
+      }
+    }
+  }
+}
@@ -0,0 +1,208 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Checks the hits, admission, expiry and thread safety of {@link VerificationCache} against
+ * {@link DigitalCertificate#verify(RSAPublicKey)}.
+ *
+ * @author cpp270
+ *
+ */
+@Timeout(60)
+class VerificationCacheTest {
+  private static RSAKeyGen subject;
+  private static RSAKeyGen issuer;
+  private static RSAKeyGen otherIssuer;
+
+  private final Random random = new Random(0x5EED);
+
+  @BeforeAll
+  static void generateKeys() {
+    PrimeGenerator generator = new PrimeGenerator(RSAKeyGen.MAX_PRIME_SIZE, 1e-9);
+    subject = new RSAKeyGen(generator);
+    issuer = new RSAKeyGen(generator);
+    otherIssuer = new RSAKeyGen(generator);
+  }
+
+  @Test
+  void repeatedCertificateHits() {
+    VerificationCache cache = new VerificationCache(64);
+    DigitalCertificate c = signed("Alice");
+
+    assertEquals(0, cache.getHitRate());
+    assertTrue(cache.verify(c, issuer.getPublicKey()));
+    assertEquals(0, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    assertEquals(1, cache.size());
+
+    for (int i = 0; i < 3; i++) {
+      assertTrue(cache.verify(c, issuer.getPublicKey()));
+    }
+    assertEquals(3, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    assertEquals(0.75, cache.getHitRate());
+
+    // an equal certificate built separately is the same key
+    assertTrue(cache.verify(signed("Alice"), issuer.getPublicKey()));
+    assertEquals(4, cache.getHits());
+
+    cache.clear();
+    assertEquals(0, cache.size());
+    assertTrue(cache.verify(c, issuer.getPublicKey()));
+    assertEquals(2, cache.getMisses());
+  }
+
+  @Test
+  void changedSignatureOrIssuerKeyMisses() {
+    VerificationCache cache = new VerificationCache(64);
+    DigitalCertificate c = signed("Bob");
+    assertTrue(cache.verify(c, issuer.getPublicKey()));
+
+    int s = c.getSignatureValue().toInt();
+    DigitalCertificate tampered = new DigitalCertificate(c.getSubject(),
+        c.getSubjectPublicKey(), c.getDigest(), c.getIssuer(),
+        new Binary((s + 1) % issuer.getPublicKey().getModulus()));
+    assertEquals(tampered.verify(issuer.getPublicKey()),
+        cache.verify(tampered, issuer.getPublicKey()));
+    assertEquals(2, cache.getMisses());
+
+    DigitalCertificate unsigned = new DigitalCertificate("Bob", subject.getPublicKey());
+    assertFalse(cache.verify(unsigned, issuer.getPublicKey()));
+    assertEquals(3, cache.getMisses());
+
+    assertEquals(c.verify(otherIssuer.getPublicKey()),
+        cache.verify(c, otherIssuer.getPublicKey()));
+    assertEquals(4, cache.getMisses());
+    assertEquals(0, cache.getHits());
+
+    // the original is still cached
+    assertTrue(cache.verify(c, issuer.getPublicKey()));
+    assertEquals(1, cache.getHits());
+  }
+
+  @Test
+  void burstDoesNotEvictFrequentEntry() {
+    // 16 stripes of 8
+    VerificationCache cache = new VerificationCache(128);
+    DigitalCertificate frequent = signed("Carol");
+    for (int i = 0; i < 20; i++) {
+      assertTrue(cache.verify(frequent, issuer.getPublicKey()));
+    }
+    assertEquals(19, cache.getHits());
+
+    for (int i = 0; i < 512; i++) {
+      DigitalCertificate once = signed("O" + i);
+      assertTrue(cache.verify(once, issuer.getPublicKey()));
+    }
+    assertTrue(cache.size() <= 128);
+
+    long hits = cache.getHits();
+    assertTrue(cache.verify(frequent, issuer.getPublicKey()));
+    assertEquals(hits + 1, cache.getHits());
+  }
+
+  @Test
+  void frequentNewcomerEvicts() {
+    // one entry per stripe; certificates asked for three times in a row push out older ones
+    VerificationCache cache = new VerificationCache(16);
+    for (int i = 0; i < 200; i++) {
+      DigitalCertificate c = signed("N" + i);
+      for (int k = 0; k < 3; k++) {
+        assertTrue(cache.verify(c, issuer.getPublicKey()));
+      }
+    }
+    assertTrue(cache.getEvictions() > 0);
+    assertTrue(cache.size() <= 16);
+  }
+
+  @Test
+  void entryExpires() throws InterruptedException {
+    VerificationCache cache = new VerificationCache(64, 100, TimeUnit.MILLISECONDS);
+    DigitalCertificate c = signed("Dave");
+
+    assertTrue(cache.verify(c, issuer.getPublicKey()));
+    assertTrue(cache.verify(c, issuer.getPublicKey()));
+    assertEquals(1, cache.getHits());
+
+    Thread.sleep(200);
+    assertTrue(cache.verify(c, issuer.getPublicKey()));
+    assertEquals(1, cache.getHits());
+    assertEquals(2, cache.getMisses());
+
+    // stored again, so the next one hits
+    assertTrue(cache.verify(c, issuer.getPublicKey()));
+    assertEquals(2, cache.getHits());
+  }
+
+  @Test
+  void concurrentVerifyMatchesDirectVerify() throws Exception {
+    List<DigitalCertificate> certificates = new ArrayList<DigitalCertificate>();
+    List<RSAPublicKey> keys = new ArrayList<RSAPublicKey>();
+    List<Boolean> expected = new ArrayList<Boolean>();
+    for (int i = 0; i < 300; i++) {
+      DigitalCertificate c = i % 4 == 0
+          ? new DigitalCertificate("U" + i, subject.getPublicKey())
+          : signed("T" + i);
+      RSAPublicKey key = i % 3 == 0 ? otherIssuer.getPublicKey() : issuer.getPublicKey();
+      certificates.add(c);
+      keys.add(key);
+      expected.add(c.verify(key));
+    }
+
+    // smaller than the working set, so entries are evicted and admitted while threads race
+    VerificationCache cache = new VerificationCache(64);
+    int threads = 8;
+    int rounds = 5000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+      for (int t = 0; t < threads; t++) {
+        long seed = random.nextLong();
+        results.add(executor.submit(() -> {
+          Random r = new Random(seed);
+          int wrong = 0;
+          for (int i = 0; i < rounds; i++) {
+            // skewed towards the first certificates, so some stay popular
+            int k = Math.min(r.nextInt(certificates.size()), r.nextInt(certificates.size()));
+            if (cache.verify(certificates.get(k), keys.get(k)) != expected.get(k)) {
+              wrong++;
+            }
+          }
+          return wrong;
+        }));
+      }
+
+      for (Future<Integer> f : results) {
+        assertEquals(0, f.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertEquals((long) threads * rounds, cache.getHits() + cache.getMisses());
+    assertTrue(cache.getHits() > 0);
+    assertTrue(cache.size() <= 64);
+  }
+
+  /*
+   * A certificate of the subject key signed by the issuer
+   */
+  private static DigitalCertificate signed(String name) {
+    DigitalCertificate c = new DigitalCertificate(name, subject.getPublicKey());
+    c.signCertificate("Trent", issuer.getPrivateKey());
+    return c;
+  }
+}
@@ -0,0 +1,76 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the window recodings and every {@link ExponentiationStrategy} against
+ * {@link BigInteger}.
+ *
+ * @author cpp270
+ *
+ */
+class WindowRecodingTest {
+  private static final int ROUNDS = 500;
+
+  private final Random random = new Random(0x5EED);
+
+  @Test
+  void recodingSumsToTheExponent() {
+    for (int i = 0; i < ROUNDS; i++) {
+      BigInteger x = new BigInteger(random.nextInt(2000), random);
+
+      for (ExponentiationStrategy s : ExponentiationStrategy.values()) {
+        WindowRecoding r = WindowRecoding.recode(BigNaturalTest.of(x), s);
+        BigInteger sum = BigInteger.ZERO;
+        for (int k = 0; k < r.getDigitCount(); k++) {
+          int value = r.getValue(k);
+          assertTrue((value & 0x1) == 1 && value < 1 << r.getWidth(), s + " digit " + value);
+          sum = sum.add(BigInteger.valueOf(value).shiftLeft(r.getPosition(k)));
+        }
+        assertEquals(x, sum, s.toString());
+      }
+    }
+  }
+
+  @Test
+  void intStrategies() {
+    for (int i = 0; i < ROUNDS; i++) {
+      int n = random.nextInt(Integer.MAX_VALUE) | 1;
+      if (n == 1) {
+        continue;
+      }
+      int a = random.nextInt(Integer.MAX_VALUE);
+      int x = random.nextInt(Integer.MAX_VALUE) >>> random.nextInt(31);
+
+      int expected = BigInteger.valueOf(a).modPow(BigInteger.valueOf(x), BigInteger.valueOf(n))
+          .intValue();
+      for (ExponentiationStrategy s : ExponentiationStrategy.values()) {
+        assertEquals(expected, RSAMath.MontgomeryExponentiation(a, Binary.toBitArray(x), n, s),
+            s + ": " + a + "^" + x + " mod " + n);
+      }
+    }
+  }
+
+  @Test
+  void bigStrategies() {
+    for (int i = 0; i < ROUNDS / 5; i++) {
+      BigInteger n = new BigInteger(2 + random.nextInt(500), random).setBit(0);
+      if (n.equals(BigInteger.ONE)) {
+        continue;
+      }
+      BigInteger a = new BigInteger(n.bitLength(), random).mod(n);
+      BigInteger x = new BigInteger(random.nextInt(800), random);
+
+      BigInteger expected = a.modPow(x, n);
+      for (ExponentiationStrategy s : ExponentiationStrategy.values()) {
+        BigNatural result = RSAMath.MontgomeryExponentiation(BigNaturalTest.of(a),
+            BigNaturalTest.of(x), BigNaturalTest.of(n), s);
+        assertEquals(expected, BigNaturalTest.of(result), s.toString());
+      }
+    }
+  }
+}